@@ -0,0 +1,109 @@
+package com.example.adaptivelearningbackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports carrier-thread pinning when the application runs on virtual threads. A JFR stream records
+ * {@code jdk.VirtualThreadPinned} events from startup through a smoke window (the first requests after a deploy);
+ * events are counted per pinning site, i.e. the first application frame of the stack, and summarised in the log
+ * when the window closes. A window of 0 keeps the audit running, counting into {@code jvm.threads.virtual.pinned}.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "threads.pinning-audit.enabled"}, havingValue = "true")
+public class VirtualThreadPinningAudit {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningAudit.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.example.adaptivelearningbackend";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Duration smokeWindow;
+    private final Map<String, LongAdder> pinningSites = new ConcurrentHashMap<>();
+    private RecordingStream recording;
+
+    public VirtualThreadPinningAudit(MeterRegistry meterRegistry,
+                                     @Value("${threads.pinning-audit.threshold-ms:20}") long thresholdMs,
+                                     @Value("${threads.pinning-audit.smoke-seconds:300}") long smokeSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.smokeWindow = Duration.ofSeconds(smokeSeconds);
+    }
+
+    @PostConstruct
+    void start() {
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::record);
+        recording.startAsync();
+        logger.info("Pinning audit started: recording virtual threads pinned for more than {} ms{}", threshold.toMillis(),
+                smokeWindow.isZero() ? "" : " during the first " + smokeWindow.toSeconds() + " s");
+        if (!smokeWindow.isZero()) {
+            CompletableFuture.delayedExecutor(smokeWindow.toMillis(), TimeUnit.MILLISECONDS).execute(this::finishSmokeRun);
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        String site = pinningSite(event.getStackTrace());
+        pinningSites.computeIfAbsent(site, key -> new LongAdder()).increment();
+        meterRegistry.counter("jvm.threads.virtual.pinned").increment();
+        logger.debug("Virtual thread pinned its carrier for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    // The application frame that led into the pinned section; library code alone falls back to its top non-JDK frame
+    private static String pinningSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) return "unknown";
+        RecordedFrame fallback = null;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(APPLICATION_PACKAGE)) return describe(frame);
+            if (fallback == null && !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                fallback = frame;
+            }
+        }
+        return describe(fallback != null ? fallback : stackTrace.getFrames().get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private void finishSmokeRun() {
+        if (pinningSites.isEmpty()) {
+            logger.info("Pinning audit: no virtual thread pinned its carrier for more than {} ms in the first {} s.",
+                    threshold.toMillis(), smokeWindow.toSeconds());
+        } else {
+            long total = pinningSites.values().stream().mapToLong(LongAdder::sum).sum();
+            logger.warn("Pinning audit: {} pinning event(s) over {} ms in the first {} s, by site:",
+                    total, threshold.toMillis(), smokeWindow.toSeconds());
+            pinningSites.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                    .forEach(entry -> logger.warn("  {} x {}", entry.getValue().sum(), entry.getKey()));
+        }
+        recording.close();
+    }
+
+    @PreDestroy
+    void stop() {
+        recording.close();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.adaptivelearningbackend.controller;
+
+import com.example.adaptivelearningbackend.dto.LearningPathCatalogueCoverageDTO;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import com.example.adaptivelearningbackend.service.LearningPathCatalogueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Operational endpoints; restricted to ROLE_ADMIN in SecurityConfig
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final LearningPathCacheService learningPathCacheService;
+    private final LearningPathCatalogueService learningPathCatalogueService;
+
+    @DeleteMapping("/learning-path-cache/domains/{domainId}")
+    public ResponseEntity<Map<String, Integer>> invalidateLearningPathCache(@PathVariable Long domainId) {
+        return ResponseEntity.ok(Map.of("evicted", learningPathCacheService.invalidateDomain(domainId)));
+    }
+
+    // Starts a catalogue run now instead of waiting for the off-peak schedule; progress shows up in the coverage report
+    @PostMapping("/learning-path-catalogue/runs")
+    public ResponseEntity<Map<String, Boolean>> startLearningPathCatalogueRun() {
+        boolean started = learningPathCatalogueService.startRun();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(Map.of("started", started));
+    }
+
+    @GetMapping("/learning-path-catalogue/coverage")
+    public ResponseEntity<LearningPathCatalogueCoverageDTO> getLearningPathCatalogueCoverage() {
+        return ResponseEntity.ok(learningPathCatalogueService.getCoverage());
+    }
+}
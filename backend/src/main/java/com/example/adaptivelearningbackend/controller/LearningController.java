@@ -2,24 +2,36 @@ package com.example.adaptivelearningbackend.controller;
 
 import com.example.adaptivelearningbackend.dto.*;
 import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import com.example.adaptivelearningbackend.exception.GenerationPendingException;
 import com.example.adaptivelearningbackend.exception.NotFoundException;
 import com.example.adaptivelearningbackend.repository.UserRepository;
 import com.example.adaptivelearningbackend.security.CustomUserDetails;
+import com.example.adaptivelearningbackend.service.GenerationJobService;
 import com.example.adaptivelearningbackend.service.LearningService;
 import com.example.adaptivelearningbackend.service.UserService;
+import com.example.adaptivelearningbackend.service.impl.AiRequestBulkhead;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/learning")
@@ -30,6 +42,8 @@ public class LearningController {
     private static final Logger logger = LoggerFactory.getLogger(LearningController.class);
     private final LearningService learningService;
     private final UserService userService;
+    private final GenerationJobService generationJobService;
+    private final AiRequestBulkhead aiRequestBulkhead; // AI-dependent endpoints run on their own lanes, off the servlet threads
 
     private Long getCurrentUserId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -67,30 +81,92 @@ public class LearningController {
         }
     }
 
+    // 200 with the path, or 202 Accepted with the generation job (Location: /api/learning/jobs/{id}) when generation
+    // is queued: always in queued mode, otherwise while the AI service is over its latency or in-flight budget
     @PostMapping("/domains/start")
-    public ResponseEntity<LearningPathDTO> startDomain(@Valid @RequestBody AssessmentSubmissionDTO submission) {
+    public CompletableFuture<ResponseEntity<LearningPathDTO>> startDomain(@Valid @RequestBody AssessmentSubmissionDTO submission) {
         Long userId = getCurrentUserId(); // Placeholder
-        try {
-            LearningPathDTO path = learningService.startDomainAndGetLearningPath(userId, submission);
-            return ResponseEntity.ok(path);
-        } catch (Exception e) {
-            logger.error("Error starting domain {} for user {}", submission.getDomainId(), userId, e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to start domain: " + e.getMessage(), e);
-        }
+        return learningService.startDomainAsync(userId, submission)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(failure -> {
+                    Throwable e = unwrap(failure);
+                    if (e instanceof GenerationPendingException || e instanceof BulkheadFullException) {
+                        throw (RuntimeException) e; // answered with 202 / 503 by GlobalExceptionHandler
+                    }
+                    logger.error("Error starting domain {} for user {}", submission.getDomainId(), userId, e);
+                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to start domain: " + e.getMessage(), e);
+                });
     }
 
     @GetMapping("/domains/{domainId}/next-insight")
-    public ResponseEntity<InsightDTO> getNextInsight(@PathVariable Long domainId) {
+    public CompletableFuture<ResponseEntity<InsightDTO>> getNextInsight(@PathVariable Long domainId) {
         Long userId = getCurrentUserId(); // Placeholder
-        try {
-            InsightDTO insight = learningService.getNextInsight(userId, domainId);
-            if (insight == null) {
-                return ResponseEntity.noContent().build(); // Or a specific DTO indicating review is ready
+        return aiRequestBulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> {
+            try {
+                InsightDTO insight = learningService.getNextInsight(userId, domainId);
+                if (insight == null) {
+                    return ResponseEntity.<InsightDTO>noContent().build(); // Or a specific DTO indicating review is ready
+                }
+                return ResponseEntity.ok(insight);
+            } catch (GenerationPendingException e) {
+                throw e; // answered with 202 Accepted by GlobalExceptionHandler
+            } catch (Exception e) {
+                logger.error("Error getting next insight for user {} domain {}", userId, domainId, e);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not retrieve next insight: " + e.getMessage(), e);
             }
-            return ResponseEntity.ok(insight);
-        } catch (Exception e) {
-            logger.error("Error getting next insight for user {} domain {}", userId, domainId, e);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not retrieve next insight: " + e.getMessage(), e);
+        });
+    }
+
+    // Server-Sent Events: one "insight-ready" event per insight of the current level as soon as it is persisted,
+    // then "complete" (or "generation-failed", which carries a retry time when the lane is full). Generation carries on
+    // when the client disconnects.
+    @GetMapping(value = "/domains/{domainId}/insights/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamInsights(@PathVariable Long domainId) {
+        Long userId = getCurrentUserId();
+        SseEmitter emitter = new SseEmitter(); // spring.mvc.async.request-timeout applies
+        try {
+            aiRequestBulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> {
+                AtomicInteger sent = new AtomicInteger();
+                try {
+                    learningService.streamInsights(userId, domainId, insight -> {
+                        if (sendEvent(emitter, SseEmitter.event().id(String.valueOf(insight.getId())).name("insight-ready").data(insight))) {
+                            sent.incrementAndGet();
+                        }
+                    });
+                    sendEvent(emitter, SseEmitter.event().name("complete").data(Map.of("insights", sent.get())));
+                } catch (Exception e) {
+                    logger.error("Error streaming insights for user {} domain {}", userId, domainId, e);
+                    sendEvent(emitter, SseEmitter.event().name("generation-failed")
+                            .data(Map.of("message", "Could not stream insights: " + e.getMessage(), "insights", sent.get())));
+                }
+                emitter.complete();
+                return null;
+            });
+        } catch (BulkheadFullException e) {
+            // This response is an event stream, so the rejection is an event too rather than the handler's JSON 503
+            logger.warn("Rejected insight stream for user {} domain {} on saturated {} lane", userId, domainId, e.getLane());
+            sendEvent(emitter, SseEmitter.event().name("generation-failed")
+                    .reconnectTime(TimeUnit.SECONDS.toMillis(e.getRetryAfterSeconds()))
+                    .data(Map.of("message", e.getMessage(), "insights", 0, "retryAfterSeconds", e.getRetryAfterSeconds())));
+            emitter.complete();
+        }
+        // Tells nginx (frontend container) not to buffer the events
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    // Failures of composed futures arrive wrapped in a CompletionException
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    // False once the client has gone away; later events are dropped quietly
+    private boolean sendEvent(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Insight stream client disconnected: {}", e.getMessage());
+            return false;
         }
     }
 
@@ -117,29 +193,39 @@ public class LearningController {
     }
 
     @GetMapping("/domains/{domainId}/review")
-    public ResponseEntity<ReviewDTO> getReview(@PathVariable Long domainId) {
+    public CompletableFuture<ResponseEntity<ReviewDTO>> getReview(@PathVariable Long domainId) {
         Long userId = getCurrentUserId(); // Placeholder
-        try {
-            return ResponseEntity.ok(learningService.getReview(userId, domainId));
-        } catch (IllegalStateException e) {
-            logger.warn("Review requested prematurely for user {} domain {}: {}", userId, domainId, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage(), e);
-        } catch (Exception e) {
-            logger.error("Error generating review for user {} domain {}", userId, domainId, e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not generate review: " + e.getMessage(), e);
-        }
+        return learningService.getReviewAsync(userId, domainId)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(failure -> {
+                    Throwable e = unwrap(failure);
+                    if (e instanceof GenerationPendingException || e instanceof BulkheadFullException) {
+                        throw (RuntimeException) e; // answered with 202 / 503 by GlobalExceptionHandler
+                    }
+                    if (e instanceof IllegalStateException) {
+                        logger.warn("Review requested prematurely for user {} domain {}: {}", userId, domainId, e.getMessage());
+                        throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage(), e);
+                    }
+                    logger.error("Error generating review for user {} domain {}", userId, domainId, e);
+                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not generate review: " + e.getMessage(), e);
+                });
     }
 
+    // 200 once the next level's insights exist, or 202 Accepted with their generation job (see startDomain)
     @PostMapping("/domains/{domainId}/complete-review")
-    public ResponseEntity<Void> completeReview(@PathVariable Long domainId, @RequestParam boolean satisfactoryPerformance) {
+    public CompletableFuture<ResponseEntity<Void>> completeReview(@PathVariable Long domainId, @RequestParam boolean satisfactoryPerformance) {
         Long userId = getCurrentUserId(); // Placeholder
-        try {
-            learningService.completeReviewAndAdvance(userId, domainId, satisfactoryPerformance);
-            return ResponseEntity.ok().build();
-        } catch (Exception e) {
-            logger.error("Error completing review for user {} domain {}: {}", userId, domainId, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to complete review: " + e.getMessage(), e);
-        }
+        return aiRequestBulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> {
+            try {
+                learningService.completeReviewAndAdvance(userId, domainId, satisfactoryPerformance);
+                return ResponseEntity.ok().<Void>build();
+            } catch (GenerationPendingException e) {
+                throw e; // answered with 202 Accepted by GlobalExceptionHandler
+            } catch (Exception e) {
+                logger.error("Error completing review for user {} domain {}: {}", userId, domainId, e.getMessage());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to complete review: " + e.getMessage(), e);
+            }
+        });
     }
 
     @GetMapping("/domains/{domainId}/overview")
@@ -149,10 +235,18 @@ public class LearningController {
     }
 
     @PostMapping("/domains/{domainId}/select-topic/{topicIdx}")
-    public ResponseEntity<Void> select(@PathVariable Long domainId, @PathVariable int topicIdx){
+    public CompletableFuture<ResponseEntity<Void>> select(@PathVariable Long domainId, @PathVariable int topicIdx){
+        Long userId = getCurrentUserId();
+        return aiRequestBulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> {
+            learningService.selectTopic(userId, domainId, topicIdx);
+            return ResponseEntity.ok().<Void>build();
+        });
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<GenerationJobDTO> getGenerationJob(@PathVariable Long jobId) {
         Long userId = getCurrentUserId();
-        learningService.selectTopic(userId, domainId, topicIdx);
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(generationJobService.getJob(userId, jobId));
     }
 
     @GetMapping("/domains/status")
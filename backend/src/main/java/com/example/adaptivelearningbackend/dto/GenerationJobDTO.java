@@ -0,0 +1,22 @@
+package com.example.adaptivelearningbackend.dto;
+
+import com.example.adaptivelearningbackend.enums.GenerationJobStatus;
+import com.example.adaptivelearningbackend.enums.GenerationJobType;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class GenerationJobDTO {
+    private Long id;
+    private GenerationJobType type;
+    private GenerationJobStatus status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private JsonNode result; // LearningPathDTO / ReviewDTO once SUCCEEDED, null for insight jobs
+}
@@ -0,0 +1,22 @@
+package com.example.adaptivelearningbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Result of reserving a topic level: everything the AI call and the persist step need, without holding entities
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationTargetDTO {
+    private Long topicProgressId;
+    private Long userDomainProgressId;
+    private Long userId;
+    private String domainName;
+    private String topicName;
+    private int level;
+    private boolean needsGeneration;
+    private Long previousPoolEntryId; // pool entry of the level's current insights, if any
+}
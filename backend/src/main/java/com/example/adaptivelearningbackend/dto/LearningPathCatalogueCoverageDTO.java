@@ -0,0 +1,42 @@
+package com.example.adaptivelearningbackend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class LearningPathCatalogueCoverageDTO {
+    private boolean running;
+    private long pinnedPaths; // Catalogue entries across all domains, including profiles no longer observed
+    private long domainStarts; // Started domains with recorded assessment answers
+    private long coveredDomainStarts; // ... whose answer profile is in the catalogue
+    private double coverage; // coveredDomainStarts / domainStarts
+    private List<DomainCoverage> domains;
+    private LastRun lastRun; // Null until a run finished on this instance
+
+    @Data
+    @Builder
+    public static class DomainCoverage {
+        private Long domainId;
+        private String domainName;
+        private int observedProfiles; // Distinct answer profiles
+        private int cataloguedProfiles;
+        private long domainStarts;
+        private long coveredDomainStarts;
+    }
+
+    @Data
+    @Builder
+    public static class LastRun {
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private int generated; // New paths from the AI service
+        private int pinnedFromCache; // Paths learners had already generated, pinned without an AI call
+        private int failed;
+        private int remaining; // Candidate profiles left for the next run
+        private String stopReason; // null when every candidate was processed
+    }
+}
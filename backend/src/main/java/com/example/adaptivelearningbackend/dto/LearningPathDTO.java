@@ -1,5 +1,6 @@
 package com.example.adaptivelearningbackend.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import java.util.List;
 
@@ -7,4 +8,7 @@ import java.util.List;
 public class LearningPathDTO {
     private String domainName;
     private List<String> topics; // Ordered list of topic names
-}
\ No newline at end of file
+
+    @JsonIgnore
+    private boolean fallback; // Built locally because the AI service failed; never cached
+}
@@ -0,0 +1,16 @@
+package com.example.adaptivelearningbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Insights taken from the shared content pool, with the entry they came from
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PooledInsightsDTO {
+    private Long poolEntryId;
+    private List<InsightGenerationRequestDTO.InsightDetailDTO> insights;
+}
@@ -1,5 +1,6 @@
 package com.example.adaptivelearningbackend.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
 import java.util.List;
@@ -11,4 +12,7 @@ public class ReviewDTO {
     private List<String> strengths;
     private List<String> weaknesses;
     private List<QuestionDTO> revisionQuestions;
+
+    @JsonIgnore
+    private boolean fallback; // Built locally because the AI service failed; never stored
 }
\ No newline at end of file
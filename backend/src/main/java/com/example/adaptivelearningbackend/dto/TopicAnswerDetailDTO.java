@@ -0,0 +1,17 @@
+package com.example.adaptivelearningbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Read model for performance data: one answer of a topic level with the question it answers (options are loaded apart)
+@Getter
+@AllArgsConstructor
+public class TopicAnswerDetailDTO {
+    private Long insightId;
+    private Long questionId;
+    private String questionText;
+    private String correctAnswer;
+    private String selectedAnswer;
+    private boolean correct;
+    private Long timeTakenMs;
+}
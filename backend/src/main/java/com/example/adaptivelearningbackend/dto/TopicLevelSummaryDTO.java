@@ -0,0 +1,14 @@
+package com.example.adaptivelearningbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Read model for the domain overview: the learner's current (highest unstaged) level of one topic
+@Getter
+@AllArgsConstructor
+public class TopicLevelSummaryDTO {
+    private String topicName;
+    private int level;
+    private int completedInsights;
+    private int requiredInsights;
+}
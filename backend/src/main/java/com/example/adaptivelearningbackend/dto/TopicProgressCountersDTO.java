@@ -0,0 +1,17 @@
+package com.example.adaptivelearningbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Read model for progress checks: the counters and flags of one topic level, without its content or stored review
+@Getter
+@AllArgsConstructor
+public class TopicProgressCountersDTO {
+    private Long id;
+    private String topicName;
+    private int level;
+    private int completedInsightsCount;
+    private int requiredInsightsForLevelCompletion;
+    private boolean insightsGenerated;
+    private boolean staged;
+}
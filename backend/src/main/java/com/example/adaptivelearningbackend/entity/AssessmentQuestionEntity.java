@@ -17,7 +17,7 @@ public class AssessmentQuestionEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "assessment_question_seq")
-    @SequenceGenerator(name = "assessment_question_seq", sequenceName = "assessment_question_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "assessment_question_seq", sequenceName = "assessment_question_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
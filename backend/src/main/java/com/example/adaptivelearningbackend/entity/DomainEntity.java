@@ -17,7 +17,7 @@ public class DomainEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "domain_seq")
-    @SequenceGenerator(name = "domain_seq", sequenceName = "domain_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "domain_seq", sequenceName = "domain_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,94 @@
+package com.example.adaptivelearningbackend.entity;
+
+import com.example.adaptivelearningbackend.enums.GenerationJobStatus;
+import com.example.adaptivelearningbackend.enums.GenerationJobType;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "generation_jobs", indexes = {
+        @Index(name = "idx_generation_jobs_status_run_after", columnList = "status, run_after"),
+        @Index(name = "idx_generation_jobs_status_priority_run_after", columnList = "status, priority, run_after")
+})
+public class GenerationJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "generation_job_seq")
+    @SequenceGenerator(name = "generation_job_seq", sequenceName = "generation_job_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 32)
+    private GenerationJobType jobType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private GenerationJobStatus status;
+
+    // Set while the job is PENDING or RUNNING, cleared once it finishes so the same target can be queued again
+    @Column(name = "dedupe_key", unique = true)
+    private String dedupeKey;
+
+    // Stored as the ordinal so claiming can order by it: interactive jobs are picked up before prefetch and batch work
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "priority", nullable = false, columnDefinition = "smallint default 0")
+    private GenerationPriority priority;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "domain_id")
+    private Long domainId;
+
+    @Column(name = "user_domain_progress_id")
+    private Long userDomainProgressId;
+
+    private String domainName;
+    private String topicName;
+    private Integer level;
+
+    @Column(name = "payload_json", columnDefinition = "TEXT") // Input needed to rerun the generation, e.g. performance data
+    private String payloadJson;
+
+    @Column(name = "result_json", columnDefinition = "TEXT") // Generated DTO, returned by the status endpoint
+    private String resultJson;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "max_attempts", nullable = false)
+    private int maxAttempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "run_after", nullable = false)
+    private LocalDateTime runAfter;
+
+    // Visibility timeout: a RUNNING job whose lock expired is claimable again (e.g. the pod died mid-call)
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,49 @@
+package com.example.adaptivelearningbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// One generated set of insights for a (domain, topic, level, performance bucket); immutable once written.
+// A key can hold several variants so a learner who repeats a level gets different content.
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "insight_content_pool", indexes = {
+        @Index(name = "idx_insight_content_pool_key", columnList = "domain_name, topic_name, level, performance_bucket")
+})
+public class InsightContentPoolEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insight_content_pool_seq")
+    @SequenceGenerator(name = "insight_content_pool_seq", sequenceName = "insight_content_pool_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "domain_name", nullable = false)
+    private String domainName;
+
+    @Column(name = "topic_name", nullable = false)
+    private String topicName;
+
+    @Column(nullable = false)
+    private int level;
+
+    @Column(name = "performance_bucket", nullable = false, length = 64)
+    private String performanceBucket;
+
+    // List<InsightGenerationRequestDTO.InsightDetailDTO> as returned by the AI service
+    @Column(name = "insights_json", nullable = false, columnDefinition = "TEXT")
+    private String insightsJson;
+
+    @Column(name = "use_count", nullable = false)
+    private long useCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -14,12 +14,14 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "insights")
+@Table(name = "insights", indexes = {
+        @Index(name = "idx_insights_topic_progress", columnList = "topic_progress_id")
+})
 public class InsightEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insight_seq")
-    @SequenceGenerator(name = "insight_seq", sequenceName = "insight_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "insight_seq", sequenceName = "insight_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -44,7 +46,7 @@ public class InsightEntity {
     @Column(name = "last_accessed_at")
     private LocalDateTime lastAccessedAt;
 
-    @OneToMany(mappedBy = "insight", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER) // Questions are part of an insight
+    @OneToMany(mappedBy = "insight", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY) // Questions are part of an insight; fetched with it only for display
     private List<QuestionEntity> questions = new ArrayList<>();
 
     // For LlamaIndex or other selection strategies
@@ -0,0 +1,56 @@
+package com.example.adaptivelearningbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// A generated learning path shared by every learner who gave the same assessment answers for a domain
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "learning_path_cache", indexes = {
+        @Index(name = "idx_learning_path_cache_domain", columnList = "domain_id"),
+        @Index(name = "idx_learning_path_cache_last_hit", columnList = "last_hit_at")
+})
+public class LearningPathCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "learning_path_cache_seq")
+    @SequenceGenerator(name = "learning_path_cache_seq", sequenceName = "learning_path_cache_id_seq", allocationSize = 50)
+    private Long id;
+
+    // SHA-256 (hex) of the canonical domain + answers + prompt version string
+    @Column(name = "cache_key", nullable = false, unique = true, length = 64)
+    private String cacheKey;
+
+    @Column(name = "domain_id", nullable = false)
+    private Long domainId;
+
+    @Column(name = "prompt_version", nullable = false, length = 64)
+    private String promptVersion;
+
+    @Column(name = "learning_path_json", nullable = false, columnDefinition = "TEXT")
+    private String learningPathJson;
+
+    // Catalogue entry: precomputed for a common answer profile; exempt from the TTL and the size bound
+    @Column(name = "pinned", nullable = false, columnDefinition = "boolean default false")
+    private boolean pinned;
+
+    @Column(name = "hit_count", nullable = false)
+    private long hitCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_hit_at", nullable = false)
+    private LocalDateTime lastHitAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -15,12 +15,14 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "questions")
+@Table(name = "questions", indexes = {
+        @Index(name = "idx_questions_insight", columnList = "insight_id")
+})
 public class QuestionEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_seq")
-    @SequenceGenerator(name = "question_seq", sequenceName = "question_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "question_seq", sequenceName = "question_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,12 +36,12 @@ public class QuestionEntity {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String questionText;
 
-    @ElementCollection(fetch = FetchType.EAGER) // For multiple choice options
+    @ElementCollection(fetch = FetchType.LAZY) // For multiple choice options
     @CollectionTable(name = "question_options", joinColumns = @JoinColumn(name = "question_id"))
     @Column(name = "option_text")
     private List<String> options = new ArrayList<>(); // Option text
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "Youtube_feedback", joinColumns = @JoinColumn(name = "question_id"))
     @MapKeyColumn(name = "option_key") // For multiple choice, this could be option index or text. For T/F, "true" or "false".
     @Column(name = "feedback_text", columnDefinition = "TEXT")
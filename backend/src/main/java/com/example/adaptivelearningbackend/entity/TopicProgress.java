@@ -17,7 +17,7 @@ import java.util.List;
 public class TopicProgress {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topic_progress_seq")
-    @SequenceGenerator(name = "topic_progress_seq", sequenceName = "topic_progress_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "topic_progress_seq", sequenceName = "topic_progress_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,10 +33,15 @@ public class TopicProgress {
     @Column(name = "insights_generated", nullable = false, columnDefinition = "boolean default false")
     private boolean insightsGenerated = false;
 
+    // Pre-generated ahead of the learner; ignored when resolving the current level until the learner reaches it
+    @Column(name = "staged", nullable = false, columnDefinition = "boolean default false")
+    @Builder.Default
+    private boolean staged = false;
+
     @OneToMany(mappedBy = "topicProgress",
             cascade = CascadeType.ALL,
             orphanRemoval = true,
-            fetch = FetchType.EAGER)
+            fetch = FetchType.LAZY)
     @Builder.Default
     private List<InsightEntity> insights = new ArrayList<>();
 
@@ -46,6 +51,24 @@ public class TopicProgress {
     @Column(name = "required_insights_for_level_completion", nullable = false, columnDefinition = "integer default 6")
     private int requiredInsightsForLevelCompletion = 6; // Default to 6
 
+    // Shared content pool entry the current insights were copied from; skipped when the level is regenerated
+    @Column(name = "content_pool_entry_id")
+    private Long contentPoolEntryId;
+
+    // Generation lease: set by the node that is generating this level so other replicas wait instead of generating too
+    @Column(name = "generation_lease_owner")
+    private String generationLeaseOwner;
+
+    @Column(name = "generation_lease_until")
+    private LocalDateTime generationLeaseUntil;
+
+    // Last review generated for this level, with a fingerprint of the answers it was built from
+    @Column(name = "review_json", columnDefinition = "TEXT")
+    private String reviewJson;
+
+    @Column(name = "review_answers_fingerprint", length = 64)
+    private String reviewAnswersFingerprint;
+
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
     private LocalDateTime lastReviewedAt;
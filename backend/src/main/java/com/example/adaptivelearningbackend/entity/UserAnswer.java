@@ -12,12 +12,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "user_answers")
+@Table(name = "user_answers", indexes = {
+        @Index(name = "idx_user_answers_question_user", columnList = "question_id, user_id")
+})
 public class UserAnswer {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_answer_seq")
-    @SequenceGenerator(name = "user_answer_seq", sequenceName = "user_answer_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "user_answer_seq", sequenceName = "user_answer_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
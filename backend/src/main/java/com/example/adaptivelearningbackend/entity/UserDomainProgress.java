@@ -19,7 +19,7 @@ public class UserDomainProgress {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_domain_progress_seq")
-    @SequenceGenerator(name = "user_domain_progress_seq", sequenceName = "user_domain_progress_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "user_domain_progress_seq", sequenceName = "user_domain_progress_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
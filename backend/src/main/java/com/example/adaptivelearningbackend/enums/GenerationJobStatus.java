@@ -0,0 +1,8 @@
+package com.example.adaptivelearningbackend.enums;
+public enum GenerationJobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,6 @@
+package com.example.adaptivelearningbackend.enums;
+public enum GenerationJobType {
+    INSIGHTS,
+    LEARNING_PATH,
+    REVIEW
+}
@@ -0,0 +1,7 @@
+package com.example.adaptivelearningbackend.enums;
+// Declaration order is serving order for AI calls and queued jobs (persisted as the ordinal)
+public enum GenerationPriority {
+    INTERACTIVE, // A learner is waiting for the result
+    PREFETCH,    // Staged ahead of the learner: next levels and topics, precomputed reviews
+    BATCH        // Offline work such as the learning-path catalogue
+}
@@ -0,0 +1,16 @@
+package com.example.adaptivelearningbackend.exception;
+
+import lombok.Getter;
+
+// Thrown when an AI execution lane has no free thread or queue slot; answered with 503 and Retry-After
+@Getter
+public class BulkheadFullException extends RuntimeException {
+    private final String lane;
+    private final long retryAfterSeconds;
+
+    public BulkheadFullException(String lane, long retryAfterSeconds) {
+        super("The " + lane + " lane is at capacity. Please retry shortly.");
+        this.lane = lane;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.adaptivelearningbackend.exception;
+
+import com.example.adaptivelearningbackend.dto.GenerationJobDTO;
+import lombok.Getter;
+
+// Thrown when the requested content is being generated by a queued job; answered with 202 Accepted and the job status
+@Getter
+public class GenerationPendingException extends RuntimeException {
+    private final GenerationJobDTO job;
+
+    public GenerationPendingException(GenerationJobDTO job) {
+        super("Content generation in progress (job " + job.getId() + ")");
+        this.job = job;
+    }
+}
@@ -2,6 +2,8 @@ package com.example.adaptivelearningbackend.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.example.adaptivelearningbackend.dto.GenerationJobDTO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -35,6 +37,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(GenerationPendingException.class)
+    public ResponseEntity<GenerationJobDTO> handleGenerationPendingException(GenerationPendingException ex) {
+        logger.info("Generation pending: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/learning/jobs/" + ex.getJob().getId())
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(ex.getJob());
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ErrorDetails> handleBulkheadFullException(BulkheadFullException ex, WebRequest request) {
+        logger.warn("Rejected request on saturated {} lane", ex.getLane());
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorDetails);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex, WebRequest request) {
         logger.warn("Validation error: {}", ex.getMessage());
@@ -0,0 +1,51 @@
+package com.example.adaptivelearningbackend.repository;
+
+import com.example.adaptivelearningbackend.entity.GenerationJob;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface GenerationJobRepository extends JpaRepository<GenerationJob, Long> {
+    Optional<GenerationJob> findByDedupeKey(String dedupeKey);
+    Optional<GenerationJob> findByIdAndUserId(Long id, Long userId);
+
+    // Whether pre-generation was ever queued for the level, whatever became of the job
+    boolean existsByUserDomainProgressIdAndTopicNameAndLevelAndPriority(Long userDomainProgressId, String topicName,
+                                                                          Integer level, GenerationPriority priority);
+
+    // Highest priority first, oldest first within a priority.
+    // Rows stay locked until the claiming transaction commits; other replicas skip them instead of waiting
+    @Query(value = """
+            SELECT *
+            FROM generation_jobs
+            WHERE (status = 'PENDING' AND run_after <= :now)
+               OR (status = 'RUNNING' AND locked_until < :now)
+            ORDER BY priority, run_after
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<GenerationJob> lockClaimableJobs(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Row lock for completing a job; a concurrent claim skips the row instead of reclaiming it underneath the owner
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM GenerationJob j WHERE j.id = :id")
+    Optional<GenerationJob> findByIdForUpdate(@Param("id") Long id);
+
+    // Heartbeat: pushes out the visibility timeout of the jobs the worker still owns
+    @Modifying
+    @Query("""
+            UPDATE GenerationJob j SET j.lockedUntil = :until
+            WHERE j.id IN :ids AND j.lockedBy = :workerId
+              AND j.status = com.example.adaptivelearningbackend.enums.GenerationJobStatus.RUNNING
+            """)
+    int extendLocks(@Param("ids") Collection<Long> ids, @Param("workerId") String workerId, @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,25 @@
+package com.example.adaptivelearningbackend.repository;
+
+import com.example.adaptivelearningbackend.entity.InsightContentPoolEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface InsightContentPoolRepository extends JpaRepository<InsightContentPoolEntry, Long> {
+    // Least used variant of the key, skipping the one the learner already had
+    Optional<InsightContentPoolEntry> findFirstByDomainNameAndTopicNameAndLevelAndPerformanceBucketAndIdNotOrderByUseCountAsc(
+            String domainName, String topicName, int level, String performanceBucket, Long excludedId);
+
+    // Fallback library: most used content for the level, whatever the bucket
+    Optional<InsightContentPoolEntry> findFirstByDomainNameAndTopicNameAndLevelAndIdNotOrderByUseCountDesc(
+            String domainName, String topicName, int level, Long excludedId);
+
+    long countByDomainNameAndTopicNameAndLevelAndPerformanceBucket(String domainName, String topicName, int level, String performanceBucket);
+
+    @Modifying
+    @Query("UPDATE InsightContentPoolEntry e SET e.useCount = e.useCount + 1 WHERE e.id = :id")
+    int recordUse(@Param("id") Long id);
+}
@@ -1,7 +1,9 @@
 package com.example.adaptivelearningbackend.repository;
 
+import com.example.adaptivelearningbackend.dto.SimpleInsightInfoDTO;
 import com.example.adaptivelearningbackend.entity.InsightEntity;
 import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -14,15 +16,26 @@ public interface InsightRepository extends JpaRepository<InsightEntity, Long> {
     List<InsightEntity> findByTopicProgressId(Long topicProgressId);
     List<InsightEntity> findByTopicProgressIdAndLevel(Long topicProgressId, int level);
 
+    // Full insight for display: questions in the same query; their options and feedback follow in batches
+    @EntityGraph(attributePaths = "questions")
+    Optional<InsightEntity> findWithQuestionsById(Long id);
 
+    // Insight list for selection: uncompleted insights of a level in serving order, without explanations or questions
     @Query("""
-            SELECT i 
-            FROM InsightEntity i 
-            WHERE i.topicProgress.id = :topicProgressId 
-            AND i.completed = false 
+            SELECT new com.example.adaptivelearningbackend.dto.SimpleInsightInfoDTO(i.id, i.title, i.relevanceScore, i.timesShown)
+            FROM InsightEntity i
+            WHERE i.topicProgress.id = :topicProgressId
+            AND i.completed = false
             ORDER BY i.lastAccessedAt ASC, i.relevanceScore DESC
             """)
-    List<InsightEntity> findUncompletedInsightsForTopic(@Param("topicProgressId") Long topicProgressId);
+    List<SimpleInsightInfoDTO> findSelectionCandidatesForTopic(@Param("topicProgressId") Long topicProgressId);
 
     long countByTopicProgressId(Long topicProgressId);
+
+    // (id, title, times shown) of each insight of a topic level, without its questions
+    @Query("SELECT i.id, i.title, i.timesShown FROM InsightEntity i WHERE i.topicProgress.id = :topicProgressId ORDER BY i.id")
+    List<Object[]> findSummariesByTopicProgressId(@Param("topicProgressId") Long topicProgressId);
+
+    @Query("SELECT i.id FROM InsightEntity i WHERE i.topicProgress.id = :topicProgressId ORDER BY i.id")
+    List<Long> findIdsByTopicProgressId(@Param("topicProgressId") Long topicProgressId);
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.example.adaptivelearningbackend.repository;
+
+import com.example.adaptivelearningbackend.entity.LearningPathCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface LearningPathCacheRepository extends JpaRepository<LearningPathCacheEntry, Long> {
+    Optional<LearningPathCacheEntry> findByCacheKey(String cacheKey);
+
+    Optional<LearningPathCacheEntry> findFirstByDomainIdOrderByHitCountDesc(Long domainId);
+
+    @Query("SELECT e.cacheKey FROM LearningPathCacheEntry e WHERE e.pinned = true AND e.cacheKey IN :cacheKeys")
+    List<String> findPinnedKeys(@Param("cacheKeys") Collection<String> cacheKeys);
+
+    long countByPinnedFalse();
+
+    long countByPinnedTrue();
+
+    @Modifying
+    @Query("UPDATE LearningPathCacheEntry e SET e.hitCount = e.hitCount + 1, e.lastHitAt = :now WHERE e.id = :id")
+    int recordHit(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM LearningPathCacheEntry e WHERE e.domainId = :domainId")
+    int deleteByDomainId(@Param("domainId") Long domainId);
+
+    @Modifying
+    @Query("DELETE FROM LearningPathCacheEntry e WHERE e.expiresAt < :now AND e.pinned = false")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Catalogue entries of an older prompt version never match a lookup again
+    @Modifying
+    @Query("DELETE FROM LearningPathCacheEntry e WHERE e.pinned = true AND e.promptVersion <> :promptVersion")
+    int deleteStalePinned(@Param("promptVersion") String promptVersion);
+
+    // Least recently used unpinned entries beyond the size bound
+    @Modifying
+    @Query(value = """
+            DELETE FROM learning_path_cache
+            WHERE id IN (SELECT id FROM learning_path_cache WHERE pinned = false ORDER BY last_hit_at LIMIT :count)
+            """, nativeQuery = true)
+    int deleteLeastRecentlyUsed(@Param("count") long count);
+}
@@ -11,6 +11,12 @@ import java.util.List;
 
 public interface QuestionRepository extends JpaRepository<QuestionEntity, Long> {
     List<QuestionEntity> findByInsightId(Long insightId);
+    long countByInsightId(Long insightId);
+
+    // (question id, option text) for every question of a topic level, grouped by question. question_options has no
+    // order column, so options within a question come in whatever order the database returns them
+    @Query("SELECT q.id, o FROM QuestionEntity q JOIN q.options o WHERE q.insight.topicProgress.id = :topicProgressId ORDER BY q.id")
+    List<Object[]> findOptionsByTopicProgressId(@Param("topicProgressId") Long topicProgressId);
 
     @Modifying
     @Transactional
@@ -1,11 +1,65 @@
 package com.example.adaptivelearningbackend.repository;
 
+import com.example.adaptivelearningbackend.dto.TopicLevelSummaryDTO;
+import com.example.adaptivelearningbackend.dto.TopicProgressCountersDTO;
 import com.example.adaptivelearningbackend.entity.TopicProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
 public interface TopicProgressRepository extends JpaRepository<TopicProgress, Long> {
     Optional<TopicProgress> findByUserDomainProgressIdAndTopicNameAndLevel(Long userDomainProgressId, String topicName, int level);
     List<TopicProgress> findByUserDomainProgressIdOrderByTopicNameAscLevelAsc(Long userDomainProgressId);
+
+    // Progress counters of one topic level, for checks that need no content
+    @Query("""
+            SELECT new com.example.adaptivelearningbackend.dto.TopicProgressCountersDTO(
+                tp.id, tp.topicName, tp.level, tp.completedInsightsCount, tp.requiredInsightsForLevelCompletion,
+                tp.insightsGenerated, tp.staged)
+            FROM TopicProgress tp
+            WHERE tp.userDomainProgress.id = :userDomainProgressId AND tp.topicName = :topicName AND tp.level = :level
+            """)
+    Optional<TopicProgressCountersDTO> findCounters(@Param("userDomainProgressId") Long userDomainProgressId,
+                                                   @Param("topicName") String topicName, @Param("level") int level);
+
+    @Query("SELECT COALESCE(SUM(tp.completedInsightsCount), 0) FROM TopicProgress tp WHERE tp.userDomainProgress.user.id = :userId")
+    long sumCompletedInsightsByUserId(@Param("userId") Long userId);
+
+    // One row per started topic at its current level; staged (pre-generated) levels are not current yet
+    @Query("""
+            SELECT new com.example.adaptivelearningbackend.dto.TopicLevelSummaryDTO(
+                tp.topicName, tp.level, tp.completedInsightsCount, tp.requiredInsightsForLevelCompletion)
+            FROM TopicProgress tp
+            WHERE tp.userDomainProgress.id = :userDomainProgressId AND tp.staged = false
+              AND tp.level = (SELECT MAX(other.level) FROM TopicProgress other
+                              WHERE other.userDomainProgress.id = tp.userDomainProgress.id
+                                AND other.topicName = tp.topicName AND other.staged = false)
+            """)
+    List<TopicLevelSummaryDTO> findCurrentLevelSummaries(@Param("userDomainProgressId") Long userDomainProgressId);
+
+    // Transaction-scoped advisory lock; serializes creation of the row for one (progress, topic, level) across replicas
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:lockKey)) AS locked", nativeQuery = true)
+    Integer lockTopicLevel(@Param("lockKey") long lockKey);
+
+    @Modifying
+    @Query("""
+            UPDATE TopicProgress tp SET tp.generationLeaseOwner = :owner, tp.generationLeaseUntil = :until
+            WHERE tp.id = :id AND (tp.generationLeaseUntil IS NULL OR tp.generationLeaseUntil < :now)
+            """)
+    int acquireGenerationLease(@Param("id") Long id, @Param("owner") String owner,
+                               @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Only the holder renews; also run in the persisting transaction, where it confirms (and row-locks) the lease
+    @Modifying
+    @Query("UPDATE TopicProgress tp SET tp.generationLeaseUntil = :until WHERE tp.id = :id AND tp.generationLeaseOwner = :owner")
+    int renewGenerationLease(@Param("id") Long id, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE TopicProgress tp SET tp.generationLeaseOwner = NULL, tp.generationLeaseUntil = NULL WHERE tp.id = :id AND tp.generationLeaseOwner = :owner")
+    int releaseGenerationLease(@Param("id") Long id, @Param("owner") String owner);
 }
\ No newline at end of file
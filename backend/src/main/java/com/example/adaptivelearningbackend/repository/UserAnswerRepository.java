@@ -1,5 +1,6 @@
 package com.example.adaptivelearningbackend.repository;
 
+import com.example.adaptivelearningbackend.dto.TopicAnswerDetailDTO;
 import com.example.adaptivelearningbackend.entity.UserAnswer;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,6 +14,40 @@ public interface UserAnswerRepository extends JpaRepository<UserAnswer, Long> {
     List<UserAnswer> findByUserIdAndQuestionInsightId(Long userId, Long insightId);
     List<UserAnswer> findByUserId(Long userId);
 
+    // Scalar projection: no entities, so the questions and their option and feedback collections are not loaded
+    @Query("""
+            SELECT new com.example.adaptivelearningbackend.dto.TopicAnswerDetailDTO(
+                q.insight.id, q.id, q.questionText, q.correctAnswer, ua.selectedAnswer, ua.isCorrect, ua.timeTakenMs)
+            FROM UserAnswer ua JOIN ua.question q
+            WHERE ua.user.id = :userId AND q.insight.topicProgress.id = :topicProgressId
+            ORDER BY ua.id
+            """)
+    List<TopicAnswerDetailDTO> findAnswerDetailsByUserIdAndTopicProgressId(@Param("userId") Long userId,
+                                                                          @Param("topicProgressId") Long topicProgressId);
+
+    @Query("SELECT COUNT(DISTINCT ua.question.id) FROM UserAnswer ua WHERE ua.user.id = :userId AND ua.question.insight.id = :insightId")
+    long countAnsweredQuestionsByUserIdAndInsightId(@Param("userId") Long userId, @Param("insightId") Long insightId);
+
+    // Up to :limit distinct questions of a topic level the user has answered, in random order
+    @Query(value = """
+            SELECT answered.question_id
+            FROM (SELECT DISTINCT ua.question_id
+                  FROM user_answers ua
+                  JOIN questions q ON q.id = ua.question_id
+                  JOIN insights i ON i.id = q.insight_id
+                  WHERE ua.user_id = :userId AND i.topic_progress_id = :topicProgressId) AS answered
+            ORDER BY random()
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> sampleAnsweredQuestionIds(@Param("userId") Long userId, @Param("topicProgressId") Long topicProgressId,
+                                         @Param("limit") int limit);
+
+    // Identity of each answer in a topic level, in a stable order, for fingerprinting the answer set
+    @Query("SELECT ua.id, q.id, ua.selectedAnswer FROM UserAnswer ua JOIN ua.question q " +
+            "WHERE ua.user.id = :userId AND q.insight.topicProgress.id = :topicProgressId ORDER BY ua.id")
+    List<Object[]> findAnswerKeysByUserIdAndTopicProgressId(@Param("userId") Long userId,
+                                                            @Param("topicProgressId") Long topicProgressId);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM UserAnswer ua WHERE ua.question.insight.id = :insightId")
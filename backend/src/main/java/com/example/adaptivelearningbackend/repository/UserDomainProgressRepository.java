@@ -2,10 +2,15 @@ package com.example.adaptivelearningbackend.repository;
 
 import com.example.adaptivelearningbackend.entity.UserDomainProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 import java.util.List;
 
 public interface UserDomainProgressRepository extends JpaRepository<UserDomainProgress, Long> {
     Optional<UserDomainProgress> findByUserIdAndDomainId(Long userId, Long domainId);
     List<UserDomainProgress> findByUserId(Long userId);
+
+    // (domain id, assessment answers JSON) of every started domain; the source of the learning-path catalogue
+    @Query("SELECT p.domain.id, p.assessmentAnswersJson FROM UserDomainProgress p WHERE p.assessmentAnswersJson IS NOT NULL")
+    List<Object[]> findAssessmentAnswerProfiles();
 }
\ No newline at end of file
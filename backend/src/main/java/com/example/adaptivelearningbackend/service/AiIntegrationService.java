@@ -1,6 +1,8 @@
 package com.example.adaptivelearningbackend.service;
 
 import com.example.adaptivelearningbackend.dto.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
@@ -27,4 +29,22 @@ public interface AiIntegrationService {
             String domainName, String topicName, int level, Long userId,
             TopicPerformanceDataDTO userPerformanceData // Changed from Map<String, Object>
     );
+
+    // Non-blocking variants: same requests and fallbacks, but no thread waits for the AI service. The blocking
+    // methods above are these followed by block(); callers continuing with JDBC work must leave the Netty event loop.
+    Mono<LearningPathDTO> generateLearningPathAsync(String domainName, Long userId, TopicPerformanceDataDTO assessmentPerformanceData);
+
+    Mono<List<InsightGenerationRequestDTO.InsightDetailDTO>> generateInsightsForTopicAsync(
+            String domainName, String topicName, int level, Long userId,
+            TopicPerformanceDataDTO userPerformanceData
+    );
+
+    Mono<ReviewDTO> generateReviewAsync(Long userId, Long topicProgressId, Map<String, Object> performanceData);
+
+    // Same request, but each insight is emitted as soon as it has been decoded. Errors are not swallowed:
+    // the caller decides what to do with the items that arrived before a failure. An open circuit completes empty.
+    Flux<InsightGenerationRequestDTO.InsightDetailDTO> streamInsightsForTopic(
+            String domainName, String topicName, int level, Long userId,
+            TopicPerformanceDataDTO userPerformanceData
+    );
 }
\ No newline at end of file
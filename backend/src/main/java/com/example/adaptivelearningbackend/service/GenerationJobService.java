@@ -0,0 +1,33 @@
+package com.example.adaptivelearningbackend.service;
+
+import com.example.adaptivelearningbackend.dto.AssessmentSubmissionDTO;
+import com.example.adaptivelearningbackend.dto.GenerationJobDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.entity.GenerationJob;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GenerationJobService {
+
+    // Enqueue methods are idempotent per target: while a job for the same target is pending or running it is returned instead.
+    // A pending job asked for again with a higher priority (a learner now waits for prefetched work) is promoted.
+    GenerationJobDTO enqueueInsights(Long userId, Long userDomainProgressId, String domainName, String topicName, int level,
+                                     TopicPerformanceDataDTO performanceData, GenerationPriority priority);
+    GenerationJobDTO enqueueLearningPath(Long userId, AssessmentSubmissionDTO submission);
+    GenerationJobDTO enqueueReview(Long userId, Long domainId, Long userDomainProgressId, String topicName, int level,
+                                   GenerationPriority priority);
+
+    GenerationJobDTO getJob(Long userId, Long jobId);
+
+    // Cancels a still pending insights job for the target, e.g. pre-generated content that is no longer wanted
+    void cancelInsights(Long userDomainProgressId, String topicName, int level);
+
+    // Worker side. Completing a job only takes effect while the worker still owns it; a job reclaimed after its
+    // visibility timeout belongs to the new owner.
+    List<GenerationJob> claimJobs(String workerId, int limit);
+    int renewLocks(String workerId, Collection<Long> jobIds); // returns how many of the jobs the worker still owns
+    void markSucceeded(Long jobId, String workerId, Object result);
+    void markFailed(Long jobId, String workerId, Throwable error);
+}
@@ -0,0 +1,28 @@
+package com.example.adaptivelearningbackend.service;
+
+import com.example.adaptivelearningbackend.dto.InsightGenerationRequestDTO;
+import com.example.adaptivelearningbackend.dto.PooledInsightsDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shared pool of generated insight sets, keyed by domain, topic, level and a coarse performance bucket.
+ * Learners whose inputs fall into the same bucket reuse pooled content instead of calling the AI service.
+ */
+public interface InsightContentPoolService {
+
+    // Bucket for the performance data, e.g. "cold" or "acc-mid:pace-slow"
+    String performanceBucket(TopicPerformanceDataDTO performanceData);
+
+    // excludedEntryId: the entry the learner already had for this level (null when none)
+    Optional<PooledInsightsDTO> acquire(String domainName, String topicName, int level, String bucket, Long excludedEntryId);
+
+    // Fallback when the AI service is unavailable: any pooled content for the level, ignoring the bucket
+    Optional<PooledInsightsDTO> findFallback(String domainName, String topicName, int level, Long excludedEntryId);
+
+    // Adds a new variant unless the key already holds the maximum; returns its id, or null when not pooled
+    Long contribute(String domainName, String topicName, int level, String bucket,
+                    List<InsightGenerationRequestDTO.InsightDetailDTO> insights);
+}
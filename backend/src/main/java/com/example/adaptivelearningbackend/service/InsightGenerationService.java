@@ -0,0 +1,47 @@
+package com.example.adaptivelearningbackend.service;
+
+import com.example.adaptivelearningbackend.dto.GenerationTargetDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+
+import java.util.function.Consumer;
+
+/**
+ * Generates the insights of a topic level in three phases so that no database connection
+ * is held while the AI service is working:
+ * <ol>
+ *     <li>a short transaction that creates or loads the {@code TopicProgress} row (the reservation),</li>
+ *     <li>the AI call, outside of any transaction,</li>
+ *     <li>a short transaction that persists the generated insights.</li>
+ * </ol>
+ * Callers must not invoke the generating methods from inside a transaction.
+ * <p>
+ * Levels can also be pre-generated ahead of the learner. Such a level is <em>staged</em>: it is invisible when
+ * resolving the learner's current level and is promoted the first time the learner reserves it.
+ * <p>
+ * With streaming enabled, phase 3 is split into one short transaction per insight as the AI service emits them.
+ * If the stream breaks off, the insights that arrived are kept and the level's required count is lowered to match;
+ * if nothing arrived, the fallback library is used as for a failed batch call.
+ */
+public interface InsightGenerationService {
+
+    // Phase 1 only: creates the TopicProgress row when missing (promoting a staged one) and reports whether insights still have to be generated
+    GenerationTargetDTO reserveTopicLevel(Long userDomainProgressId, String domainName, String topicName, int level);
+
+    // Phases 2 and 3 for an already reserved level; does nothing when the level needs no generation
+    void generateAndPersist(GenerationTargetDTO target, TopicPerformanceDataDTO performanceData);
+
+    // Same, reporting the id of every insight of the level as it is committed, including insights persisted by another
+    // request that holds the generation lease. An id can be reported more than once; callers deduplicate.
+    void generateAndPersist(GenerationTargetDTO target, TopicPerformanceDataDTO performanceData, Consumer<Long> onInsightPersisted);
+
+    // All three phases; performanceData may be null, in which case a default (non adaptive) payload is sent
+    GenerationTargetDTO ensureInsights(Long userDomainProgressId, String domainName, String topicName, int level,
+                                       TopicPerformanceDataDTO performanceData);
+
+    // Background variant used by the job worker: never promotes, and creates a staged row when the level has none yet
+    GenerationTargetDTO ensureInsightsInBackground(Long userDomainProgressId, String domainName, String topicName, int level,
+                                                   TopicPerformanceDataDTO performanceData);
+
+    // Deletes a staged level and its insights; a level the learner already reached is left alone. Joins the caller's transaction.
+    boolean discardStagedLevel(Long userDomainProgressId, String topicName, int level);
+}
@@ -0,0 +1,22 @@
+package com.example.adaptivelearningbackend.service;
+
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface LearningPathCacheService {
+    // answers: assessment questionId -> selected answer, as submitted
+    Optional<LearningPathDTO> lookup(Long domainId, Map<Long, String> answers);
+    // Fallback when the AI service is unavailable: the most used path of the domain, whatever the answers (expired ones included)
+    Optional<LearningPathDTO> findFallback(Long domainId);
+    void store(Long domainId, Map<Long, String> answers, LearningPathDTO learningPath);
+    int invalidateDomain(Long domainId);
+    // Catalogue: pinned entries never expire and do not count against the size bound
+    boolean pinExisting(Long domainId, Map<Long, String> answers); // true when a path for these answers was cached already
+    void storePinned(Long domainId, Map<Long, String> answers, LearningPathDTO learningPath);
+    Set<Map<Long, String>> findPinned(Long domainId, Collection<Map<Long, String>> answerProfiles);
+    long countPinned();
+}
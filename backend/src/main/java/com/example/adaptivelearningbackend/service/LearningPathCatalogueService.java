@@ -0,0 +1,8 @@
+package com.example.adaptivelearningbackend.service;
+
+import com.example.adaptivelearningbackend.dto.LearningPathCatalogueCoverageDTO;
+
+public interface LearningPathCatalogueService {
+    boolean startRun(); // false when a run is already in progress on this instance
+    LearningPathCatalogueCoverageDTO getCoverage();
+}
@@ -2,15 +2,23 @@ package com.example.adaptivelearningbackend.service;
 
 import com.example.adaptivelearningbackend.dto.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface LearningService {
     List<DomainDTO> getAllDomains();
     List<AssessmentQuestionDTO> getAssessmentQuestions(Long domainId);
     LearningPathDTO startDomainAndGetLearningPath(Long userId, AssessmentSubmissionDTO submission); // userId will come from security context
+    CompletableFuture<LearningPathDTO> startDomainAsync(Long userId, AssessmentSubmissionDTO submission); // no thread is held while the AI service works
+    LearningPathDTO generateAndStoreLearningPath(Long userId, AssessmentSubmissionDTO submission); // always generates inline; used by the job worker
     InsightDTO getNextInsight(Long userId, Long domainId);
+    void streamInsights(Long userId, Long domainId, Consumer<InsightDTO> onInsightReady); // uncompleted insights of the current level, each as soon as it is persisted
     AnswerFeedbackDTO submitAnswer(Long userId, AnswerSubmissionDTO submission);
     TopicProgressDTO getTopicProgress(Long userId, Long domainId);
     ReviewDTO getReview(Long userId, Long domainId);
+    CompletableFuture<ReviewDTO> getReviewAsync(Long userId, Long domainId); // no thread is held while the AI service works
+    // Always generates inline; used by the job worker. Returns null when the learner is no longer on that topic level.
+    ReviewDTO generateReview(Long userId, Long domainId, String topicName, Integer level);
     void completeReviewAndAdvance(Long userId, Long domainId, boolean satisfactoryPerformance);
     DomainOverviewDTO getDomainOverview(Long userId, Long domainId);
     void selectTopic(Long userId, Long domainId, int topicIndex);
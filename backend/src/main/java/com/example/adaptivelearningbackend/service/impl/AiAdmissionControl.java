@@ -0,0 +1,111 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether a request may wait for the AI service inline or should be handed to a generation job (202 Accepted).
+ * Two signals, both fed by AiIntegrationServiceImpl: a moving average of recent call latency per endpoint, compared
+ * with that endpoint's budget, and the number of AI calls waiting or in flight. Averages with no sample for
+ * sample-ttl-seconds are ignored, so an endpoint is probed again once deferred work stops reporting.
+ */
+@Component
+public class AiAdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiAdmissionControl.class);
+    private static final double SMOOTHING = 0.2; // Weight of the newest sample in the moving average
+
+    private final boolean enabled;
+    private final int maxPendingCalls;
+    private final Duration sampleTtl;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger pendingCalls = new AtomicInteger();
+    private final Map<String, LatencyAverage> latencies = new ConcurrentHashMap<>();
+
+    public AiAdmissionControl(@Value("${generation.admission.enabled:true}") boolean enabled,
+                              @Value("${generation.admission.max-pending-calls:48}") int maxPendingCalls,
+                              @Value("${generation.admission.sample-ttl-seconds:60}") long sampleTtlSeconds,
+                              Environment environment,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxPendingCalls = maxPendingCalls;
+        this.sampleTtl = Duration.ofSeconds(sampleTtlSeconds);
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ai.admission.pending-calls", pendingCalls, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // False when the endpoint is over budget; the caller then queues the generation instead of calling it
+    public boolean tryAdmit(String endpoint) {
+        if (!enabled) return true;
+        String reason = null;
+        if (pendingCalls.get() >= maxPendingCalls) {
+            reason = "pending-calls";
+        } else if (latency(endpoint).overBudget(System.nanoTime() - sampleTtl.toNanos())) {
+            reason = "latency";
+        }
+        if (reason == null) return true;
+        meterRegistry.counter("ai.admission.deferred", "endpoint", endpoint.substring(1), "reason", reason).increment();
+        logger.debug("Deferring {} to a generation job: {} over budget", endpoint, reason);
+        return false;
+    }
+
+    void callStarted() {
+        pendingCalls.incrementAndGet();
+    }
+
+    void callFinished(String endpoint, long elapsedNanos) {
+        pendingCalls.decrementAndGet();
+        latency(endpoint).record(elapsedNanos);
+    }
+
+    // Budget per endpoint: generation.admission.latency-budget-ms.<name>, e.g. generate-review
+    private LatencyAverage latency(String endpoint) {
+        return latencies.computeIfAbsent(endpoint, key -> {
+            String name = key.substring(1);
+            long budgetMs = environment.getProperty("generation.admission.latency-budget-ms." + name, Long.class, 20000L);
+            LatencyAverage average = new LatencyAverage(Duration.ofMillis(budgetMs).toNanos());
+            Gauge.builder("ai.admission.latency", average, LatencyAverage::averageMillis)
+                    .tag("endpoint", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            return average;
+        });
+    }
+
+    private static final class LatencyAverage {
+        private final long budgetNanos;
+        private double averageNanos; // guarded by this
+        private long lastSampleAt; // guarded by this
+        private boolean sampled; // guarded by this
+
+        private LatencyAverage(long budgetNanos) {
+            this.budgetNanos = budgetNanos;
+        }
+
+        synchronized void record(long elapsedNanos) {
+            averageNanos = sampled ? SMOOTHING * elapsedNanos + (1 - SMOOTHING) * averageNanos : elapsedNanos;
+            lastSampleAt = System.nanoTime();
+            sampled = true;
+        }
+
+        synchronized boolean overBudget(long staleBefore) {
+            return sampled && lastSampleAt - staleBefore > 0 && averageNanos > budgetNanos;
+        }
+
+        synchronized double averageMillis() {
+            return averageNanos / 1_000_000;
+        }
+    }
+}
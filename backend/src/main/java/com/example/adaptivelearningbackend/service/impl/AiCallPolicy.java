@@ -0,0 +1,120 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Retry and hedging for one AI endpoint; the circuit breaker's deadline wraps all attempts.
+ * Retries: transient failures (connection errors, 5xx, 429) are retried with exponential backoff and jitter.
+ * Hedging: when enabled, a duplicate request is sent if the first has not answered after the endpoint's observed
+ * p95 latency (never earlier than {@code hedgeMinDelay}); the first response wins and the other is cancelled. A request
+ * that fails before the delay cancels the hedge, so a non-transient error is never sent twice.
+ * Only for calls without side effects on the AI service, which holds for every generation endpoint.
+ */
+class AiCallPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiCallPolicy.class);
+    private static final long MIN_SAMPLES_FOR_P95 = 20;
+
+    private final String name;
+    private final int maxRetries;
+    private final Duration backoff;
+    private final double jitter;
+    private final boolean hedgingEnabled;
+    private final Duration hedgeMinDelay;
+    private final MeterRegistry meterRegistry;
+    private final Timer latency;
+
+    AiCallPolicy(String name, int maxRetries, Duration backoff, double jitter,
+                 boolean hedgingEnabled, Duration hedgeMinDelay, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxRetries = maxRetries;
+        this.backoff = backoff;
+        this.jitter = jitter;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.meterRegistry = meterRegistry;
+        this.latency = Timer.builder("ai.call.latency")
+                .description("Latency of successful single attempts, used as the hedging delay")
+                .tag("endpoint", name)
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+    }
+
+    <T> Mono<T> apply(Supplier<Mono<T>> call) {
+        Mono<T> attempt = hedgingEnabled ? hedged(call) : timed(call);
+        if (maxRetries <= 0) return attempt;
+        return attempt.retryWhen(Retry.backoff(maxRetries, backoff)
+                .jitter(jitter)
+                .filter(AiCallPolicy::isTransient)
+                .doBeforeRetry(signal -> {
+                    meterRegistry.counter("ai.call.retries", "endpoint", name).increment();
+                    logger.info("Retrying AI call to {} (attempt {}): {}", name, signal.totalRetries() + 2, signal.failure().toString());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    // The hedge is sent only while the first request is still in flight and the first settled outcome wins. A failed
+    // request ends the race unless its error is transient and the other request may still answer.
+    private <T> Mono<T> hedged(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Duration delay = hedgeDelay();
+            AtomicBoolean hedgeSent = new AtomicBoolean();
+            AtomicBoolean primaryFailed = new AtomicBoolean();
+            AtomicBoolean hedgeFailed = new AtomicBoolean();
+            Mono<T> primary = timed(call).onErrorResume(e -> {
+                primaryFailed.set(true);
+                return hedgeSent.get() && !hedgeFailed.get() && isTransient(e) ? Mono.never() : Mono.error(e);
+            });
+            Mono<T> hedge = Mono.delay(delay).then(Mono.defer(() -> {
+                hedgeSent.set(true);
+                meterRegistry.counter("ai.call.hedges", "endpoint", name).increment();
+                logger.debug("AI call to {} exceeded {} ms; sending a hedged request", name, delay.toMillis());
+                return timed(call);
+            })).onErrorResume(e -> {
+                hedgeFailed.set(true);
+                return !primaryFailed.get() && isTransient(e) ? Mono.never() : Mono.error(e);
+            });
+            // The loser is cancelled; a pending hedge timer is cancelled with it
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return call.get().doOnSuccess(result -> latency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Duration hedgeDelay() {
+        if (latency.count() < MIN_SAMPLES_FOR_P95) return hedgeMinDelay;
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.95) {
+                Duration p95 = Duration.ofNanos((long) percentile.value(TimeUnit.NANOSECONDS));
+                return p95.compareTo(hedgeMinDelay) > 0 ? p95 : hedgeMinDelay;
+            }
+        }
+        return hedgeMinDelay;
+    }
+
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientRequestException) return true; // connect / I/O failure before a response
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return false;
+    }
+}
@@ -1,53 +1,185 @@
 package com.example.adaptivelearningbackend.service.impl;
 
 import com.example.adaptivelearningbackend.dto.*;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
 import com.example.adaptivelearningbackend.service.AiIntegrationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class AiIntegrationServiceImpl implements AiIntegrationService {
 
     private static final Logger logger = LoggerFactory.getLogger(AiIntegrationServiceImpl.class);
     private final WebClient webClient;
+    private final SingleFlight singleFlight; // Identical concurrent generation requests share one upstream call
+    private final AiRequestScheduler scheduler; // Global cap on AI calls, interactive work served first
+    private final AiAdmissionControl admissionControl; // Fed with every call's latency, queue wait included
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>(); // One per endpoint, keyed by path
+    private final Map<String, Duration> timeouts = new HashMap<>();
+    private final Map<String, AiCallPolicy> callPolicies = new HashMap<>(); // Retry and hedging per endpoint
+    private final ConnectionProvider connectionProvider;
+    private final boolean ndjsonInsightStream; // false = read the JSON array of /generate-insights element by element
+    private final boolean compactPayload; // Per-insight aggregates and question ids instead of every answered question in full
+    private final boolean compressRequests;
+    private final int compressionMinBytes;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper; // Same Jackson configuration as objectMapper, CBOR instead of JSON
+    private volatile boolean cborEnabled; // Cleared for good once the AI service rejects a CBOR body
+    private final MeterRegistry meterRegistry;
 
     public AiIntegrationServiceImpl(@Value("${python.service.baseurl}") String pythonServiceBaseUrl,
-                                    WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl(pythonServiceBaseUrl).build();
+                                    @Value("${python.service.join-timeout-seconds:120}") long joinTimeoutSeconds,
+                                    @Value("${python.service.timeout.learning-path-seconds:60}") long learningPathTimeoutSeconds,
+                                    @Value("${python.service.timeout.insights-seconds:90}") long insightsTimeoutSeconds,
+                                    @Value("${python.service.timeout.review-seconds:45}") long reviewTimeoutSeconds,
+                                    @Value("${python.service.circuit.failure-threshold:5}") int failureThreshold,
+                                    @Value("${python.service.circuit.open-seconds:30}") long openSeconds,
+                                    @Value("${python.service.insights-stream-format:ndjson}") String insightsStreamFormat,
+                                    @Value("${python.service.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                    @Value("${python.service.pool.max-connections:100}") int maxConnections,
+                                    @Value("${python.service.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+                                    @Value("${python.service.pool.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMs,
+                                    @Value("${python.service.pool.max-idle-seconds:30}") long maxIdleSeconds,
+                                    @Value("${python.service.pool.max-life-seconds:300}") long maxLifeSeconds,
+                                    @Value("${python.service.payload-mode:compact}") String payloadMode,
+                                    @Value("${python.service.request-compression.enabled:true}") boolean compressRequests,
+                                    @Value("${python.service.request-compression.min-bytes:1024}") int compressionMinBytes,
+                                    @Value("${python.service.wire-format:cbor}") String wireFormat,
+                                    @Value("${python.service.scheduler.max-concurrent:32}") int schedulerMaxConcurrent,
+                                    @Value("${python.service.scheduler.max-wait-seconds:60}") long schedulerMaxWaitSeconds,
+                                    Environment environment,
+                                    WebClient.Builder webClientBuilder,
+                                    ObjectMapper objectMapper,
+                                    Jackson2ObjectMapperBuilder jacksonBuilder,
+                                    AiAdmissionControl admissionControl,
+                                    MeterRegistry meterRegistry) {
+        // Dedicated pool: bounded connections and acquire queue, idle connections evicted before the server drops them.
+        // metrics(true) publishes reactor.netty.connection.provider.* gauges through Micrometer.
+        this.connectionProvider = ConnectionProvider.builder("python-ai")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleSeconds))
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+        this.cborMapper = jacksonBuilder.factory(new CBORFactory()).build();
+        this.webClient = webClientBuilder
+                .baseUrl(pythonServiceBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Without an explicit media type the decoder would also claim application/json responses
+                .codecs(codecs -> codecs.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR)))
+                .build();
+        this.singleFlight = new SingleFlight(Duration.ofSeconds(joinTimeoutSeconds), meterRegistry);
+        this.scheduler = new AiRequestScheduler(schedulerMaxConcurrent, Duration.ofSeconds(schedulerMaxWaitSeconds), meterRegistry);
+        this.admissionControl = admissionControl;
+        timeouts.put("/generate-learning-path", Duration.ofSeconds(learningPathTimeoutSeconds));
+        timeouts.put("/generate-insights", Duration.ofSeconds(insightsTimeoutSeconds));
+        timeouts.put("/generate-review", Duration.ofSeconds(reviewTimeoutSeconds));
+        timeouts.keySet().forEach(endpoint -> circuitBreakers.put(endpoint,
+                new CircuitBreaker(endpoint.substring(1), failureThreshold, Duration.ofSeconds(openSeconds), meterRegistry)));
+        callPolicies.put("/generate-learning-path", callPolicy("learning-path", environment, meterRegistry));
+        callPolicies.put("/generate-insights", callPolicy("insights", environment, meterRegistry));
+        callPolicies.put("/generate-review", callPolicy("review", environment, meterRegistry));
+        this.ndjsonInsightStream = !"json-array".equalsIgnoreCase(insightsStreamFormat);
+        this.compactPayload = !"full".equalsIgnoreCase(payloadMode);
+        this.compressRequests = compressRequests;
+        this.compressionMinBytes = compressionMinBytes;
+        this.objectMapper = objectMapper;
+        this.cborEnabled = "cbor".equalsIgnoreCase(wireFormat);
+        this.meterRegistry = meterRegistry;
         logger.info("Python AI Service Base URL: {}", pythonServiceBaseUrl);
     }
 
+    // python.service.retry.<key>.* and python.service.hedge.<key>.*, where key is learning-path, insights or review
+    private static AiCallPolicy callPolicy(String key, Environment environment, MeterRegistry meterRegistry) {
+        return new AiCallPolicy("generate-" + key,
+                environment.getProperty("python.service.retry." + key + ".max-retries", Integer.class, 2),
+                Duration.ofMillis(environment.getProperty("python.service.retry." + key + ".backoff-ms", Long.class, 250L)),
+                environment.getProperty("python.service.retry." + key + ".jitter", Double.class, 0.5),
+                environment.getProperty("python.service.hedge." + key + ".enabled", Boolean.class, false),
+                Duration.ofMillis(environment.getProperty("python.service.hedge." + key + ".min-delay-ms", Long.class, 5000L)),
+                meterRegistry);
+    }
+
+    @PreDestroy
+    public void disposeConnectionPool() {
+        connectionProvider.dispose();
+    }
+
     @Override
     public LearningPathDTO generateLearningPath(String domainName,
                                                 Long userId,
                                                 TopicPerformanceDataDTO assessmentPerformanceData) {
+        warnIfTransactionActive("/generate-learning-path");
+        return generateLearningPathAsync(domainName, userId, assessmentPerformanceData).block();
+    }
+
+    @Override
+    public Mono<LearningPathDTO> generateLearningPathAsync(String domainName,
+                                                          Long userId,
+                                                          TopicPerformanceDataDTO assessmentPerformanceData) {
         String endpoint = "/generate-learning-path";
-        Map<String, Object> requestBody = Map.of(
-                "domain_name", domainName,
-                "user_id", userId,
-                "user_topic_performance_data", buildUserTopicPerformancePayload(assessmentPerformanceData)
-        );
+        // userId is null for catalogue paths, which belong to an answer profile rather than a learner
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("domain_name", domainName);
+        requestBody.put("user_id", userId);
+        requestBody.put("user_topic_performance_data", buildUserTopicPerformancePayload(assessmentPerformanceData));
 
         logger.debug("Sending request to Python AI for learning path: {} with body {}", endpoint, requestBody);
 
-        try {
-            LearningPathDTO response = postForObject(endpoint, requestBody, LearningPathDTO.class);
-            if (response == null) {
-                logger.warn("Python AI service returned an empty learning path for domain {}", domainName);
-                return buildFallbackLearningPath(domainName);
-            }
-            return response;
-        } catch (Exception e) {
-            logger.error("Error calling Python AI service for learning path generation: {}", e.getMessage(), e);
-            return buildFallbackLearningPath(domainName);
-        }
+        return postForObject(flightKey("learning-path:" + userId + ":" + domainName, requestBody), userId, endpoint, requestBody,
+                        LearningPathDTO.class)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Python AI service returned an empty learning path for domain {}", domainName);
+                    return buildFallbackLearningPath(domainName);
+                }))
+                .onErrorResume(CircuitBreaker.CircuitOpenException.class, e -> {
+                    logger.debug("Skipping learning path call for domain {}: {}", domainName, e.getMessage());
+                    return Mono.fromSupplier(() -> buildFallbackLearningPath(domainName));
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error calling Python AI service for learning path generation: {}", e.getMessage(), e);
+                    return Mono.fromSupplier(() -> buildFallbackLearningPath(domainName));
+                });
     }
 
     @Override
@@ -56,6 +188,16 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
                                                                                        int level,
                                                                                        Long userId,
                                                                                        TopicPerformanceDataDTO userPerformanceData) {
+        warnIfTransactionActive("/generate-insights");
+        return generateInsightsForTopicAsync(domainName, topicName, level, userId, userPerformanceData).block();
+    }
+
+    @Override
+    public Mono<List<InsightGenerationRequestDTO.InsightDetailDTO>> generateInsightsForTopicAsync(String domainName,
+                                                                                                 String topicName,
+                                                                                                 int level,
+                                                                                                 Long userId,
+                                                                                                 TopicPerformanceDataDTO userPerformanceData) {
         String endpoint = "/generate-insights";
 
         Map<String, Object> requestBody = new HashMap<>();
@@ -67,15 +209,52 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
 
         logger.debug("Sending request to Python AI for insights generation: {} with body {}", endpoint, requestBody);
 
-        try {
-            List<InsightGenerationRequestDTO.InsightDetailDTO> insights =
-                    postForList(endpoint, requestBody, InsightGenerationRequestDTO.InsightDetailDTO.class);
-            return insights != null ? insights : Collections.emptyList();
-        } catch (Exception e) {
-            logger.error("Error calling Python AI service for insight generation: {}", e.getMessage(), e);
-            logger.warn("Returning empty list of insights due to error for topic: {}", topicName);
-            return Collections.emptyList();
-        }
+        return postForList(flightKey("insights:" + userId + ":" + domainName + ":" + topicName + ":" + level, requestBody), userId,
+                endpoint, requestBody, InsightGenerationRequestDTO.InsightDetailDTO.class)
+                .defaultIfEmpty(Collections.emptyList())
+                .onErrorResume(CircuitBreaker.CircuitOpenException.class, e -> {
+                    logger.debug("Skipping insight generation for topic {}: {}", topicName, e.getMessage());
+                    return Mono.just(Collections.emptyList());
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error calling Python AI service for insight generation: {}", e.getMessage(), e);
+                    logger.warn("Returning empty list of insights due to error for topic: {}", topicName);
+                    return Mono.just(Collections.emptyList());
+                });
+    }
+
+    @Override
+    public Flux<InsightGenerationRequestDTO.InsightDetailDTO> streamInsightsForTopic(String domainName,
+                                                                                    String topicName,
+                                                                                    int level,
+                                                                                    Long userId,
+                                                                                    TopicPerformanceDataDTO userPerformanceData) {
+        String endpoint = "/generate-insights";
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("domain_name", domainName);
+        requestBody.put("topic_name", topicName);
+        requestBody.put("level", level);
+        requestBody.put("user_id", userId);
+        requestBody.put("user_topic_performance_data", buildUserTopicPerformancePayload(userPerformanceData));
+
+        // NDJSON: the AI service writes each insight as soon as it is ready.
+        // JSON array: the plain endpoint answers in one piece, but elements are still decoded and handed on one by one.
+        String uri = ndjsonInsightStream ? endpoint + "/stream" : endpoint;
+        MediaType accept = ndjsonInsightStream ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+        logger.debug("Streaming insights from Python AI: {} with body {}", uri, requestBody);
+
+        warnIfTransactionActive(endpoint);
+        // The request body may be CBOR; the response stays line-delimited JSON either way
+        return observedMany(endpoint, scheduler.scheduleMany(AiPriorityContext.current(), userKey(userId), () -> circuitBreakers.get(endpoint)
+                        .protectStream(negotiatedMany(endpoint, requestBody, encoded -> post(uri, encoded, accept)
+                                .retrieve()
+                                .bodyToFlux(InsightGenerationRequestDTO.InsightDetailDTO.class)), timeouts.get(endpoint))))
+                .onErrorResume(CircuitBreaker.CircuitOpenException.class, e -> {
+                    logger.debug("Skipping insight stream for topic {}: {}", topicName, e.getMessage());
+                    return Flux.empty();
+                })
+                .doOnError(e -> logger.error("Insight stream from Python AI service failed for topic {}: {}", topicName, e.getMessage()));
     }
 
     /*@Override
@@ -110,6 +289,12 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
 
     @Override
     public ReviewDTO generateReview(Long userId, Long topicProgressId, Map<String, Object> performanceData) {
+        warnIfTransactionActive("/generate-review");
+        return generateReviewAsync(userId, topicProgressId, performanceData).block();
+    }
+
+    @Override
+    public Mono<ReviewDTO> generateReviewAsync(Long userId, Long topicProgressId, Map<String, Object> performanceData) {
         String endpoint = "/generate-review";
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("user_id", userId);
@@ -118,38 +303,183 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
 
         logger.debug("Sending request to Python AI for review generation: {} with body {}", endpoint, requestBody);
 
-        try {
-            ReviewDTO response = postForObject(endpoint, requestBody, ReviewDTO.class);
-            if (response == null) {
-                logger.warn("Python AI service returned no review for topic progress {}", topicProgressId);
-                return buildFallbackReview();
-            }
-            return response;
-        } catch (Exception e) {
-            logger.error("Error calling Python AI service for review generation: {}", e.getMessage(), e);
-            return buildFallbackReview();
+        return postForObject(flightKey("review:" + userId + ":" + topicProgressId, requestBody), userId, endpoint, requestBody,
+                        ReviewDTO.class)
+                // Callers fill in revision questions, so each gets its own copy of the shared response
+                .map(response -> ReviewDTO.builder()
+                        .summary(response.getSummary())
+                        .strengths(response.getStrengths())
+                        .weaknesses(response.getWeaknesses())
+                        .revisionQuestions(response.getRevisionQuestions())
+                        .build())
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Python AI service returned no review for topic progress {}", topicProgressId);
+                    return buildFallbackReview();
+                }))
+                .onErrorResume(CircuitBreaker.CircuitOpenException.class, e -> {
+                    logger.debug("Skipping review generation for topic progress {}: {}", topicProgressId, e.getMessage());
+                    return Mono.fromSupplier(this::buildFallbackReview);
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error calling Python AI service for review generation: {}", e.getMessage(), e);
+                    return Mono.fromSupplier(this::buildFallbackReview);
+                });
+    }
+
+    // flightKey names the generation target and its request body; concurrent calls with the same key share one request.
+    // The flight queues for a scheduler slot with the priority of the call that started it.
+    private <T> Mono<T> postForObject(String flightKey, Long userId, String endpoint, Object body, Class<T> responseType) {
+        GenerationPriority priority = AiPriorityContext.current();
+        // The body is encoded once per flight; the endpoint deadline covers every retry and hedge of the call, not the queue wait
+        return singleFlight.join(flightKey, () -> observed(endpoint, scheduler.schedule(priority, userKey(userId), () -> circuitBreakers.get(endpoint)
+                .protect(negotiated(endpoint, body, encoded -> callPolicies.get(endpoint).apply(() -> post(endpoint, encoded, responseTypes(encoded))
+                        .retrieve()
+                        .bodyToMono(responseType))), timeouts.get(endpoint)))));
+    }
+
+    private <T> Mono<List<T>> postForList(String flightKey, Long userId, String endpoint, Object body, Class<T> elementType) {
+        GenerationPriority priority = AiPriorityContext.current();
+        // Decoded as one value: the CBOR decoder does not split a top-level array into elements
+        ParameterizedTypeReference<List<T>> listType = ParameterizedTypeReference.forType(
+                ResolvableType.forClassWithGenerics(List.class, elementType).getType());
+        return singleFlight.join(flightKey, () -> observed(endpoint, scheduler.schedule(priority, userKey(userId), () -> circuitBreakers.get(endpoint)
+                .protect(negotiated(endpoint, body, encoded -> callPolicies.get(endpoint).apply(() -> post(endpoint, encoded, responseTypes(encoded))
+                        .retrieve()
+                        .bodyToMono(listType))), timeouts.get(endpoint)))));
+    }
+
+    // Reports each call, from queueing for a slot to its end, to admission control
+    private <T> Mono<T> observed(String endpoint, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            admissionControl.callStarted();
+            return call.doFinally(signal -> admissionControl.callFinished(endpoint, System.nanoTime() - start));
+        });
+    }
+
+    private <T> Flux<T> observedMany(String endpoint, Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            admissionControl.callStarted();
+            return call.doFinally(signal -> admissionControl.callFinished(endpoint, System.nanoTime() - start));
+        });
+    }
+
+    // Calls without a learner (catalogue paths) share one fair-queueing slot
+    private static String userKey(Long userId) {
+        return userId != null ? userId.toString() : "anonymous";
+    }
+
+    // CBOR while the AI service accepts it; a rejected CBOR body switches this client to JSON and repeats the call once
+    private <T> Mono<T> negotiated(String endpoint, Object body, Function<EncodedBody, Mono<T>> call) {
+        return Mono.fromCallable(() -> encode(endpoint, body, cborEnabled))
+                .flatMap(encoded -> call.apply(encoded)
+                        .onErrorResume(e -> encoded.cbor() && rejectsCbor(e), e -> {
+                            fallBackToJson(endpoint);
+                            return Mono.fromCallable(() -> encode(endpoint, body, false)).flatMap(call);
+                        }));
+    }
+
+    private <T> Flux<T> negotiatedMany(String endpoint, Object body, Function<EncodedBody, Flux<T>> call) {
+        return Mono.fromCallable(() -> encode(endpoint, body, cborEnabled))
+                .flatMapMany(encoded -> call.apply(encoded)
+                        .onErrorResume(e -> encoded.cbor() && rejectsCbor(e), e -> {
+                            fallBackToJson(endpoint);
+                            return Mono.fromCallable(() -> encode(endpoint, body, false)).flatMapMany(call);
+                        }));
+    }
+
+    // 415 from a service that checks the media type; 422 from a FastAPI service without CBOR support, which hands
+    // the undecoded bytes to body validation
+    private static boolean rejectsCbor(Throwable error) {
+        return error instanceof WebClientResponseException e
+                && (e.getStatusCode().value() == 415 || e.getStatusCode().value() == 422);
+    }
+
+    private void fallBackToJson(String endpoint) {
+        if (cborEnabled) {
+            cborEnabled = false;
+            logger.warn("Python AI service rejected a CBOR request to {}; using JSON for all AI calls from now on.", endpoint);
         }
     }
 
-    private <T> T postForObject(String endpoint, Object body, Class<T> responseType) {
-        return webClient.post()
-                .uri(endpoint)
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(responseType)
-                .block();
+    private static MediaType[] responseTypes(EncodedBody body) {
+        return body.cbor()
+                ? new MediaType[]{MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON}
+                : new MediaType[]{MediaType.APPLICATION_JSON};
     }
 
-    private <T> List<T> postForList(String endpoint, Object body, Class<T> elementType) {
+    private WebClient.RequestHeadersSpec<?> post(String uri, EncodedBody body, MediaType... accept) {
         return webClient.post()
-                .uri(endpoint)
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToFlux(elementType)
-                .collectList()
-                .block();
+                .uri(uri)
+                .contentType(body.cbor() ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .accept(accept)
+                .headers(headers -> {
+                    if (body.gzipped()) headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                })
+                .bodyValue(body.bytes());
+    }
+
+    // Target plus a SHA-256 of the request body with map keys sorted: only calls that would send the same answers and
+    // performance data share a flight. Catalogue paths have no user id, so the body is all that tells their profiles apart.
+    private String flightKey(String target, Object body) {
+        try {
+            byte[] canonical = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValueAsBytes(body);
+            return target + ":" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the request body for " + target, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record EncodedBody(byte[] bytes, boolean cbor, boolean gzipped) {
+    }
+
+    // Serializes (and above min-bytes gzips) a request body. ai.payload.size records the serialized size and, when
+    // compressed, the size on the wire; the mode and format tags separate compact/full and JSON/CBOR for comparison.
+    private EncodedBody encode(String endpoint, Object body, boolean cbor) {
+        String name = endpoint.substring(1);
+        String mode = compactPayload ? "compact" : "full";
+        String format = cbor ? "cbor" : "json";
+        long startedAt = System.nanoTime();
+        byte[] serialized;
+        try {
+            serialized = (cbor ? cborMapper : objectMapper).writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the request body for " + endpoint, e);
+        }
+        meterRegistry.summary("ai.payload.size", "endpoint", name, "mode", mode, "format", format, "encoding", "identity")
+                .record(serialized.length);
+        boolean gzip = compressRequests && serialized.length >= compressionMinBytes;
+        byte[] bytes = gzip ? gzip(serialized) : serialized;
+        if (gzip) {
+            meterRegistry.summary("ai.payload.size", "endpoint", name, "mode", mode, "format", format, "encoding", "gzip")
+                    .record(bytes.length);
+        }
+        Timer.builder("ai.payload.serialization")
+                .description("Time to serialize and compress an AI request body")
+                .tags("endpoint", name, "mode", mode, "format", format, "encoding", gzip ? "gzip" : "identity")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - startedAt));
+        return new EncodedBody(bytes, cbor, gzip);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // AI calls take seconds; a caller inside a transaction keeps a pooled connection checked out the whole time
+    private void warnIfTransactionActive(String endpoint) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            logger.warn("AI call to {} made inside an active transaction; the JDBC connection stays checked out until it returns.", endpoint);
+        }
     }
 
     private Map<String, Object> buildUserTopicPerformancePayload(TopicPerformanceDataDTO data) {
@@ -174,7 +504,11 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
         }
 
         payload.put("assessment_answers", convertAssessmentAnswers(data.getAssessmentAnswers()));
-        payload.put("insights_performance", convertInsightPerformance(data.getInsightsPerformance()));
+        if (compactPayload) {
+            payload.put("insights_summary", summarizeInsightPerformance(data.getInsightsPerformance()));
+        } else {
+            payload.put("insights_performance", convertInsightPerformance(data.getInsightsPerformance()));
+        }
         return payload;
     }
 
@@ -212,6 +546,44 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
                 .toList();
     }
 
+    // Compact form of convertInsightPerformance: aggregates per insight, missed questions by id and concept only
+    private List<Map<String, Object>> summarizeInsightPerformance(List<InsightPerformanceDataDTO> performances) {
+        if (performances == null || performances.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return performances.stream()
+                .map(performance -> {
+                    List<UserAnswerDetailDTO> answers = performance.getQuestionsAnswered() != null
+                            ? performance.getQuestionsAnswered() : Collections.emptyList();
+                    long correct = answers.stream().filter(UserAnswerDetailDTO::isCorrect).count();
+                    List<Long> times = answers.stream()
+                            .map(UserAnswerDetailDTO::getTimeTakenMs)
+                            .filter(Objects::nonNull)
+                            .sorted()
+                            .toList();
+                    List<UserAnswerDetailDTO> missed = answers.stream().filter(answer -> !answer.isCorrect()).toList();
+
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    map.put("insight_id", performance.getInsightId());
+                    map.put("insight_title", performance.getInsightTitle());
+                    map.put("times_shown", performance.getTimesShown());
+                    map.put("questions_answered", answers.size());
+                    map.put("correct_answers", correct);
+                    map.put("accuracy", answers.isEmpty() ? null : Math.round(100.0 * correct / answers.size()) / 100.0);
+                    map.put("median_time_taken_ms", times.isEmpty() ? null : times.get(times.size() / 2));
+                    map.put("missed_question_ids", missed.stream().map(UserAnswerDetailDTO::getQuestionId).distinct().toList());
+                    map.put("missed_concepts", missed.stream()
+                            .map(UserAnswerDetailDTO::getQuestionText)
+                            .filter(Objects::nonNull)
+                            .map(QuestionConcepts::of)
+                            .distinct()
+                            .toList());
+                    return map;
+                })
+                .toList();
+    }
+
     private List<Map<String, Object>> convertQuestionDetails(List<UserAnswerDetailDTO> details) {
         if (details == null || details.isEmpty()) {
             return Collections.emptyList();
@@ -242,6 +614,7 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
             topics.add(domainName + " Topic " + i);
         }
         fallbackPath.setTopics(topics);
+        fallbackPath.setFallback(true);
         return fallbackPath;
     }
 
@@ -251,6 +624,7 @@ public class AiIntegrationServiceImpl implements AiIntegrationService {
                 .strengths(List.of("Persistence"))
                 .weaknesses(List.of("Technical difficulties with AI review generation."))
                 .revisionQuestions(new ArrayList<>())
+                .fallback(true)
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+
+/**
+ * Priority of the AI calls made by the current thread. Work that runs in the background (job worker, fan-out
+ * siblings, catalogue batch) opens a scope around it; everything else, i.e. request handling, is interactive.
+ * Read when an AI call is assembled, so a call handed on to another thread keeps the priority it was made with.
+ */
+final class AiPriorityContext {
+
+    private static final ThreadLocal<GenerationPriority> CURRENT = new ThreadLocal<>();
+
+    private AiPriorityContext() {
+    }
+
+    static GenerationPriority current() {
+        GenerationPriority priority = CURRENT.get();
+        return priority != null ? priority : GenerationPriority.INTERACTIVE;
+    }
+
+    static Scope enter(GenerationPriority priority) {
+        GenerationPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        return () -> {
+            if (previous != null) CURRENT.set(previous);
+            else CURRENT.remove();
+        };
+    }
+
+    interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs AI-dependent request handling on bounded lanes of its own, so a burst of slow generation requests
+ * cannot occupy the servlet threads that cheap endpoints (domains, overview, login) need.
+ * A request that finds its lane's threads and queue full is rejected at once.
+ * <p>
+ * Admission is counted per lane: a request takes a slot when it is submitted and frees it when its task finishes.
+ * The second half of admitted work (persisting an AI result that has arrived) is resumed on the same lane without a
+ * slot, so it queues behind the lane's work but is never rejected.
+ */
+@Component
+public class AiRequestBulkhead {
+
+    public static final String GENERATION_LANE = "generation";
+    public static final String REVIEW_LANE = "review";
+
+    private final Map<String, ThreadPoolExecutor> lanes;
+    private final Map<String, Semaphore> admissions; // threads + queue slots for newly submitted requests
+    private final MeterRegistry meterRegistry;
+    private final long retryAfterSeconds;
+    private final boolean virtualThreads;
+
+    public AiRequestBulkhead(MeterRegistry meterRegistry,
+                             @Value("${bulkhead.ai.generation.threads:16}") int generationThreads,
+                             @Value("${bulkhead.ai.generation.queue:32}") int generationQueue,
+                             @Value("${bulkhead.ai.review.threads:8}") int reviewThreads,
+                             @Value("${bulkhead.ai.review.queue:16}") int reviewQueue,
+                             @Value("${bulkhead.ai.retry-after-seconds:5}") long retryAfterSeconds,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.virtualThreads = virtualThreads;
+        this.lanes = Map.of(
+                GENERATION_LANE, createLane(GENERATION_LANE, generationThreads),
+                REVIEW_LANE, createLane(REVIEW_LANE, reviewThreads));
+        this.admissions = Map.of(
+                GENERATION_LANE, new Semaphore(generationThreads + generationQueue),
+                REVIEW_LANE, new Semaphore(reviewThreads + reviewQueue));
+    }
+
+    public <T> CompletableFuture<T> submit(String lane, Supplier<T> task) {
+        Semaphore admission = admissions.get(lane);
+        if (!admission.tryAcquire()) {
+            meterRegistry.counter("bulkhead.rejected", "lane", lane).increment();
+            throw new BulkheadFullException(lane, retryAfterSeconds);
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, lanes.get(lane)).whenComplete((result, failure) -> admission.release());
+        } catch (RejectedExecutionException e) {
+            admission.release(); // Lane shut down
+            throw new BulkheadFullException(lane, retryAfterSeconds);
+        }
+    }
+
+    // Continues a request this lane already admitted, e.g. storing the AI result that arrived for it
+    public <T> CompletableFuture<T> resume(String lane, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, lanes.get(lane));
+    }
+
+    private ThreadPoolExecutor createLane(String name, int threads) {
+        // Unbounded queue: the admission semaphore bounds new requests, resumed work is bounded by what was admitted
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                WorkerThreads.factory("ai-" + name + "-", virtualThreads));
+        Gauge.builder("bulkhead.active", executor, ThreadPoolExecutor::getActiveCount).tag("lane", name).register(meterRegistry);
+        Gauge.builder("bulkhead.queued", executor, e -> e.getQueue().size()).tag("lane", name).register(meterRegistry);
+        Gauge.builder("bulkhead.saturation", executor, e -> (double) e.getActiveCount() / e.getMaximumPoolSize()).tag("lane", name).register(meterRegistry);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+}
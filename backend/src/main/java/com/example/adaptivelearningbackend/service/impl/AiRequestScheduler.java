@@ -0,0 +1,192 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Admits AI calls under a global concurrency cap sized to the LLM deployment's throughput.
+ * Waiting calls are served by priority class first (interactive, then prefetch, then batch); within a class,
+ * users take turns (round robin over users with waiting calls), so one user's burst cannot hold all the slots.
+ * A call waits at most {@code maxWait} for a slot and then fails with {@link QueueTimeoutException}.
+ * Queue wait per class is recorded in the {@code ai.scheduler.wait} histogram.
+ */
+class AiRequestScheduler {
+
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final Map<GenerationPriority, ClassQueue> queues = new EnumMap<>(GenerationPriority.class);
+    private final Map<GenerationPriority, Timer> waitTimers = new EnumMap<>(GenerationPriority.class);
+    private int inFlight; // guarded by this
+
+    AiRequestScheduler(int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        for (GenerationPriority priority : GenerationPriority.values()) {
+            ClassQueue queue = new ClassQueue();
+            queues.put(priority, queue);
+            waitTimers.put(priority, Timer.builder("ai.scheduler.wait")
+                    .description("Time an AI call waited for a slot")
+                    .tag("priority", priority.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            Gauge.builder("ai.scheduler.queued", this, scheduler -> scheduler.queued(priority))
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("ai.scheduler.in-flight", this, scheduler -> scheduler.inFlight()).register(meterRegistry);
+    }
+
+    // The call is assembled once a slot is granted and the slot is held until it terminates or is cancelled
+    <T> Mono<T> schedule(GenerationPriority priority, String userKey, Supplier<Mono<T>> call) {
+        return Mono.usingWhen(acquire(priority, userKey), permit -> call.get(),
+                this::releaseAsync, (permit, error) -> releaseAsync(permit), this::releaseAsync);
+    }
+
+    <T> Flux<T> scheduleMany(GenerationPriority priority, String userKey, Supplier<Flux<T>> call) {
+        return Flux.usingWhen(acquire(priority, userKey), permit -> call.get(),
+                this::releaseAsync, (permit, error) -> releaseAsync(permit), this::releaseAsync);
+    }
+
+    private Mono<Permit> acquire(GenerationPriority priority, String userKey) {
+        return Mono.<Permit>create(sink -> {
+                    Ticket ticket = new Ticket(priority, userKey, sink, System.nanoTime());
+                    sink.onCancel(() -> cancel(ticket));
+                    enqueue(ticket);
+                })
+                .timeout(maxWait, Mono.error(() -> new QueueTimeoutException(priority, maxWait)));
+    }
+
+    private void enqueue(Ticket ticket) {
+        synchronized (this) {
+            queues.get(ticket.priority).add(ticket);
+        }
+        dispatch();
+    }
+
+    private void cancel(Ticket ticket) {
+        boolean release;
+        synchronized (this) {
+            release = ticket.granted; // Granted but not yet delivered: the permit would be lost
+            if (!release) queues.get(ticket.priority).remove(ticket);
+        }
+        if (release) release(ticket.permit);
+    }
+
+    private Mono<Void> releaseAsync(Permit permit) {
+        return Mono.fromRunnable(() -> release(permit));
+    }
+
+    private void release(Permit permit) {
+        if (!permit.released.compareAndSet(false, true)) return;
+        synchronized (this) {
+            inFlight--;
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        List<Ticket> granted = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < maxConcurrent) {
+                Ticket next = next();
+                if (next == null) break;
+                inFlight++;
+                next.granted = true;
+                granted.add(next);
+            }
+        }
+        // Completing a sink can run the call's subscription inline, so it happens outside the lock
+        for (Ticket ticket : granted) {
+            waitTimers.get(ticket.priority).record(Duration.ofNanos(System.nanoTime() - ticket.enqueuedAt));
+            ticket.sink.success(ticket.permit);
+        }
+    }
+
+    private Ticket next() {
+        for (GenerationPriority priority : GenerationPriority.values()) {
+            Ticket ticket = queues.get(priority).poll();
+            if (ticket != null) return ticket;
+        }
+        return null;
+    }
+
+    private synchronized int queued(GenerationPriority priority) {
+        return queues.get(priority).size;
+    }
+
+    private synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private static final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+    }
+
+    private static final class Ticket {
+        private final GenerationPriority priority;
+        private final String userKey;
+        private final MonoSink<Permit> sink;
+        private final long enqueuedAt;
+        private final Permit permit = new Permit();
+        private boolean granted; // guarded by the scheduler
+
+        private Ticket(GenerationPriority priority, String userKey, MonoSink<Permit> sink, long enqueuedAt) {
+            this.priority = priority;
+            this.userKey = userKey;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    // One priority class: a FIFO per user and the rotation of users that have calls waiting
+    private static final class ClassQueue {
+        private final Map<String, ArrayDeque<Ticket>> byUser = new HashMap<>();
+        private final ArrayDeque<String> rotation = new ArrayDeque<>();
+        private int size;
+
+        void add(Ticket ticket) {
+            byUser.computeIfAbsent(ticket.userKey, key -> {
+                rotation.addLast(key);
+                return new ArrayDeque<>();
+            }).addLast(ticket);
+            size++;
+        }
+
+        Ticket poll() {
+            String user = rotation.pollFirst();
+            if (user == null) return null;
+            ArrayDeque<Ticket> tickets = byUser.get(user);
+            Ticket ticket = tickets.pollFirst();
+            if (tickets.isEmpty()) byUser.remove(user);
+            else rotation.addLast(user); // Back of the line until every other waiting user had a turn
+            size--;
+            return ticket;
+        }
+
+        void remove(Ticket ticket) {
+            ArrayDeque<Ticket> tickets = byUser.get(ticket.userKey);
+            if (tickets == null || !tickets.remove(ticket)) return;
+            size--;
+            if (tickets.isEmpty()) {
+                byUser.remove(ticket.userKey);
+                rotation.remove(ticket.userKey);
+            }
+        }
+    }
+
+    static class QueueTimeoutException extends RuntimeException {
+        QueueTimeoutException(GenerationPriority priority, Duration maxWait) {
+            super("No AI call slot for " + priority.name().toLowerCase() + " work within " + maxWait.toSeconds() + "s");
+        }
+    }
+}
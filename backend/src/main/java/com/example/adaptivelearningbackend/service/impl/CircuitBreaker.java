@@ -0,0 +1,125 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Per-endpoint circuit breaker for AI service calls.
+ * CLOSED: calls pass; after {@code failureThreshold} consecutive failures the circuit opens.
+ * OPEN: calls fail immediately with {@link CircuitOpenException} until {@code openDuration} has passed.
+ * HALF_OPEN: a single probe call is let through; success closes the circuit, failure opens it again.
+ */
+class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    static class CircuitOpenException extends RuntimeException {
+        CircuitOpenException(String name) {
+            super("Circuit '" + name + "' is open");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final MeterRegistry meterRegistry;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean probeInFlight;
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ai.circuit.state", this, breaker -> breaker.currentState().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .tag("endpoint", name)
+                .register(meterRegistry);
+    }
+
+    // Wraps one upstream call; the permission check happens when the call is subscribed
+    <T> Mono<T> protect(Mono<T> call, Duration timeout) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission()) {
+                meterRegistry.counter("ai.circuit.rejected", "endpoint", name).increment();
+                return Mono.error(new CircuitOpenException(name));
+            }
+            return call.timeout(timeout)
+                    .doOnSuccess(result -> onSuccess())
+                    .doOnError(error -> onFailure(error))
+                    .doOnCancel(this::onCancel);
+        });
+    }
+
+    // Streaming variant: the timeout applies between items, and the call counts as successful only once the stream completes
+    <T> Flux<T> protectStream(Flux<T> call, Duration itemTimeout) {
+        return Flux.defer(() -> {
+            if (!tryAcquirePermission()) {
+                meterRegistry.counter("ai.circuit.rejected", "endpoint", name).increment();
+                return Flux.error(new CircuitOpenException(name));
+            }
+            return call.timeout(itemTimeout)
+                    .doOnComplete(this::onSuccess)
+                    .doOnError(error -> onFailure(error))
+                    .doOnCancel(this::onCancel);
+        });
+    }
+
+    synchronized State currentState() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (Instant.now().isBefore(openedAt.plus(openDuration))) return false;
+                transition(State.HALF_OPEN);
+                probeInFlight = true;
+                return true;
+            default: // HALF_OPEN: only the probe passes
+                if (probeInFlight) return false;
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) transition(State.CLOSED);
+    }
+
+    private synchronized void onFailure(Throwable error) {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            logger.warn("Opening circuit '{}' after {} consecutive failure(s); last: {}", name, consecutiveFailures, error.toString());
+            openedAt = Instant.now();
+            if (state != State.OPEN) transition(State.OPEN);
+        }
+    }
+
+    private synchronized void onCancel() {
+        probeInFlight = false;
+    }
+
+    private void transition(State next) {
+        logger.info("Circuit '{}' {} -> {}", name, state, next);
+        meterRegistry.counter("ai.circuit.transitions", "endpoint", name, "to", next.name()).increment();
+        state = next;
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.AssessmentSubmissionDTO;
+import com.example.adaptivelearningbackend.dto.GenerationJobDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.entity.GenerationJob;
+import com.example.adaptivelearningbackend.enums.GenerationJobStatus;
+import com.example.adaptivelearningbackend.enums.GenerationJobType;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import com.example.adaptivelearningbackend.exception.NotFoundException;
+import com.example.adaptivelearningbackend.repository.GenerationJobRepository;
+import com.example.adaptivelearningbackend.service.GenerationJobService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class GenerationJobServiceImpl implements GenerationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationJobServiceImpl.class);
+
+    private final GenerationJobRepository generationJobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${generation.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${generation.jobs.visibility-timeout-seconds:300}")
+    private long visibilityTimeoutSeconds;
+
+    @Value("${generation.jobs.retry-backoff-seconds:10}")
+    private long retryBackoffSeconds;
+
+    @Override
+    public GenerationJobDTO enqueueInsights(Long userId, Long userDomainProgressId, String domainName, String topicName, int level,
+                                            TopicPerformanceDataDTO performanceData, GenerationPriority priority) {
+        return enqueue(GenerationJob.builder()
+                .jobType(GenerationJobType.INSIGHTS)
+                .priority(priority)
+                .dedupeKey(dedupeKey(GenerationJobType.INSIGHTS, userDomainProgressId, topicName, level))
+                .userId(userId)
+                .userDomainProgressId(userDomainProgressId)
+                .domainName(domainName)
+                .topicName(topicName)
+                .level(level)
+                .payloadJson(performanceData != null ? toJson(performanceData) : null)
+                .build());
+    }
+
+    @Override
+    public GenerationJobDTO enqueueLearningPath(Long userId, AssessmentSubmissionDTO submission) {
+        return enqueue(GenerationJob.builder()
+                .jobType(GenerationJobType.LEARNING_PATH)
+                .priority(GenerationPriority.INTERACTIVE) // Only ever queued for a learner who just finished the assessment
+                .dedupeKey(dedupeKey(GenerationJobType.LEARNING_PATH, userId, submission.getDomainId()))
+                .userId(userId)
+                .domainId(submission.getDomainId())
+                .payloadJson(toJson(submission))
+                .build());
+    }
+
+    @Override
+    public GenerationJobDTO enqueueReview(Long userId, Long domainId, Long userDomainProgressId, String topicName, int level,
+                                          GenerationPriority priority) {
+        return enqueue(GenerationJob.builder()
+                .jobType(GenerationJobType.REVIEW)
+                .priority(priority)
+                .dedupeKey(dedupeKey(GenerationJobType.REVIEW, userDomainProgressId, topicName, level))
+                .userId(userId)
+                .domainId(domainId)
+                .userDomainProgressId(userDomainProgressId)
+                .topicName(topicName)
+                .level(level)
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GenerationJobDTO getJob(Long userId, Long jobId) {
+        return generationJobRepository.findByIdAndUserId(jobId, userId)
+                .map(this::mapToDTO)
+                .orElseThrow(() -> new NotFoundException("Generation job not found with ID: " + jobId));
+    }
+
+    @Override
+    @Transactional
+    public void cancelInsights(Long userDomainProgressId, String topicName, int level) {
+        generationJobRepository.findByDedupeKey(dedupeKey(GenerationJobType.INSIGHTS, userDomainProgressId, topicName, level))
+                .filter(job -> job.getStatus() == GenerationJobStatus.PENDING)
+                .ifPresent(job -> {
+                    logger.info("Cancelling generation job {} for {}", job.getId(), job.getDedupeKey());
+                    finish(job, GenerationJobStatus.CANCELLED);
+                });
+    }
+
+    @Override
+    @Transactional
+    public List<GenerationJob> claimJobs(String workerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<GenerationJob> claimable = generationJobRepository.lockClaimableJobs(now, limit);
+        List<GenerationJob> claimed = new ArrayList<>();
+        for (GenerationJob job : claimable) {
+            if (job.getStatus() == GenerationJobStatus.RUNNING) {
+                logger.warn("Generation job {} held by {} passed its visibility timeout; reclaiming.", job.getId(), job.getLockedBy());
+            }
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                job.setLastError("Gave up after " + job.getAttempts() + " attempts");
+                finish(job, GenerationJobStatus.FAILED);
+                continue;
+            }
+            job.setStatus(GenerationJobStatus.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLockedBy(workerId);
+            job.setLockedUntil(now.plusSeconds(visibilityTimeoutSeconds));
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    @Override
+    @Transactional
+    public int renewLocks(String workerId, Collection<Long> jobIds) {
+        if (jobIds.isEmpty()) return 0;
+        return generationJobRepository.extendLocks(jobIds, workerId, LocalDateTime.now().plusSeconds(visibilityTimeoutSeconds));
+    }
+
+    @Override
+    @Transactional
+    public void markSucceeded(Long jobId, String workerId, Object result) {
+        ownedJob(jobId, workerId).ifPresent(job -> {
+            job.setResultJson(result != null ? toJson(result) : null);
+            job.setLastError(null);
+            finish(job, GenerationJobStatus.SUCCEEDED);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(Long jobId, String workerId, Throwable error) {
+        ownedJob(jobId, workerId).ifPresent(job -> {
+            job.setLastError(error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                logger.error("Generation job {} ({}) failed permanently after {} attempts", job.getId(), job.getJobType(), job.getAttempts(), error);
+                finish(job, GenerationJobStatus.FAILED);
+                return;
+            }
+            // Exponential backoff: base, 2x base, 4x base, ...
+            long delaySeconds = retryBackoffSeconds * (1L << Math.min(job.getAttempts() - 1, 10));
+            logger.warn("Generation job {} ({}) failed on attempt {}; retrying in {}s: {}", job.getId(), job.getJobType(), job.getAttempts(), delaySeconds, job.getLastError());
+            job.setStatus(GenerationJobStatus.PENDING);
+            job.setRunAfter(LocalDateTime.now().plusSeconds(delaySeconds));
+            job.setLockedBy(null);
+            job.setLockedUntil(null);
+        });
+    }
+
+    private Optional<GenerationJob> ownedJob(Long jobId, String workerId) {
+        return generationJobRepository.findByIdForUpdate(jobId).filter(job -> {
+            boolean owned = job.getStatus() == GenerationJobStatus.RUNNING && workerId.equals(job.getLockedBy());
+            if (!owned) {
+                logger.warn("Worker {} lost generation job {} (now {}, held by {}); not recording its outcome",
+                        workerId, jobId, job.getStatus(), job.getLockedBy());
+            }
+            return owned;
+        });
+    }
+
+    private GenerationJobDTO enqueue(GenerationJob candidate) {
+        candidate.setStatus(GenerationJobStatus.PENDING);
+        candidate.setAttempts(0);
+        candidate.setMaxAttempts(maxAttempts);
+        candidate.setRunAfter(LocalDateTime.now());
+        // Own transaction: enqueueing may happen from an afterCommit callback, where the caller's transaction is finished
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return newTransaction.execute(status -> generationJobRepository.findByDedupeKey(candidate.getDedupeKey())
+                    .map(existing -> {
+                        logger.debug("Generation job {} already queued for {}", existing.getId(), candidate.getDedupeKey());
+                        if (existing.getStatus() == GenerationJobStatus.PENDING
+                                && candidate.getPriority().compareTo(existing.getPriority()) < 0) {
+                            logger.info("Promoting generation job {} from {} to {}", existing.getId(), existing.getPriority(), candidate.getPriority());
+                            existing.setPriority(candidate.getPriority());
+                        }
+                        return mapToDTO(existing);
+                    })
+                    .orElseGet(() -> {
+                        GenerationJob saved = generationJobRepository.saveAndFlush(candidate);
+                        logger.info("Queued generation job {} ({}) for {}", saved.getId(), saved.getJobType(), saved.getDedupeKey());
+                        return mapToDTO(saved);
+                    }));
+        } catch (DataIntegrityViolationException e) {
+            // Another replica inserted the same dedupe key between our lookup and insert
+            return newTransaction.execute(status -> generationJobRepository.findByDedupeKey(candidate.getDedupeKey())
+                    .map(this::mapToDTO)
+                    .orElseThrow(() -> e));
+        }
+    }
+
+    private void finish(GenerationJob job, GenerationJobStatus status) {
+        job.setStatus(status);
+        job.setDedupeKey(null);
+        job.setLockedBy(null);
+        job.setLockedUntil(null);
+        job.setCompletedAt(LocalDateTime.now());
+    }
+
+    private static String dedupeKey(GenerationJobType type, Object... parts) {
+        StringBuilder key = new StringBuilder(type.name());
+        for (Object part : parts) {
+            key.append(':').append(part);
+        }
+        return key.toString();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize generation job data", e);
+        }
+    }
+
+    private GenerationJobDTO mapToDTO(GenerationJob job) {
+        JsonNode result = null;
+        if (job.getResultJson() != null) {
+            try {
+                result = objectMapper.readTree(job.getResultJson());
+            } catch (JsonProcessingException e) {
+                logger.error("Stored result of generation job {} is not valid JSON", job.getId(), e);
+            }
+        }
+        return GenerationJobDTO.builder()
+                .id(job.getId())
+                .type(job.getJobType())
+                .status(job.getStatus())
+                .attempts(job.getAttempts())
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .result(result)
+                .build();
+    }
+}
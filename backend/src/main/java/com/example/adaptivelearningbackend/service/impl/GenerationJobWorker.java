@@ -0,0 +1,156 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.AssessmentSubmissionDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.entity.GenerationJob;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import com.example.adaptivelearningbackend.service.GenerationJobService;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.example.adaptivelearningbackend.service.LearningService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Claims generation jobs from the shared {@code generation_jobs} table and runs them on a bounded pool.
+ * Every replica runs one worker; {@code FOR UPDATE SKIP LOCKED} keeps two replicas from claiming the same job,
+ * and a worker never claims more jobs than it has free threads, so generation is spread across the nodes.
+ * While a job runs, a heartbeat extends its visibility timeout; the outcome is only recorded while the worker
+ * still owns the job.
+ */
+@Component
+@ConditionalOnProperty(name = "generation.jobs.worker-enabled", havingValue = "true", matchIfMissing = true)
+public class GenerationJobWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationJobWorker.class);
+
+    private final GenerationJobService generationJobService;
+    private final LearningService learningService;
+    private final InsightGenerationService insightGenerationService;
+    private final ObjectMapper objectMapper;
+    private final int workerThreads;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+    private final String workerId;
+
+    public GenerationJobWorker(GenerationJobService generationJobService,
+                               LearningService learningService,
+                               InsightGenerationService insightGenerationService,
+                               ObjectMapper objectMapper,
+                               @Value("${generation.jobs.worker-threads:4}") int workerThreads,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.generationJobService = generationJobService;
+        this.learningService = learningService;
+        this.insightGenerationService = insightGenerationService;
+        this.objectMapper = objectMapper;
+        this.workerThreads = workerThreads;
+        this.executor = Executors.newFixedThreadPool(workerThreads, WorkerThreads.factory("generation-worker-", virtualThreads));
+        this.workerId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        logger.info("Generation job worker {} started with {} threads", workerId, workerThreads);
+    }
+
+    @Scheduled(fixedDelayString = "${generation.jobs.poll-interval-ms:1000}")
+    public void pollForJobs() {
+        int freeThreads = workerThreads - inFlight.get();
+        if (freeThreads <= 0) {
+            return;
+        }
+
+        List<GenerationJob> jobs;
+        try {
+            jobs = generationJobService.claimJobs(workerId, freeThreads);
+        } catch (Exception e) {
+            logger.error("Could not claim generation jobs: {}", e.getMessage(), e);
+            return;
+        }
+
+        for (GenerationJob job : jobs) {
+            inFlight.incrementAndGet();
+            runningJobs.add(job.getId());
+            executor.execute(() -> {
+                try {
+                    runJob(job);
+                } finally {
+                    runningJobs.remove(job.getId());
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void runJob(GenerationJob job) {
+        logger.info("Worker {} running generation job {} ({}) attempt {}", workerId, job.getId(), job.getJobType(), job.getAttempts());
+        try (AiPriorityContext.Scope ignored = AiPriorityContext.enter(job.getPriority())) {
+            Object result = switch (job.getJobType()) {
+                case INSIGHTS -> {
+                    insightGenerationService.ensureInsightsInBackground(job.getUserDomainProgressId(), job.getDomainName(),
+                            job.getTopicName(), job.getLevel(), readPayload(job, TopicPerformanceDataDTO.class));
+                    yield null;
+                }
+                case LEARNING_PATH -> learningService.generateAndStoreLearningPath(job.getUserId(),
+                        readPayload(job, AssessmentSubmissionDTO.class));
+                case REVIEW -> learningService.generateReview(job.getUserId(), job.getDomainId(), job.getTopicName(), job.getLevel());
+            };
+            generationJobService.markSucceeded(job.getId(), workerId, result);
+        } catch (Exception e) {
+            generationJobService.markFailed(job.getId(), workerId, e);
+        }
+    }
+
+    // Keeps the visibility timeout of running jobs ahead of the clock, so a slow AI call is not reclaimed by another replica
+    @Scheduled(fixedDelayString = "${generation.jobs.heartbeat-interval-ms:60000}")
+    public void renewLocks() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        List<Long> jobIds = List.copyOf(runningJobs);
+        try {
+            int renewed = generationJobService.renewLocks(workerId, jobIds);
+            if (renewed < jobIds.size()) {
+                logger.warn("Worker {} no longer owns {} of its {} running generation job(s)", workerId, jobIds.size() - renewed, jobIds.size());
+            }
+        } catch (Exception e) {
+            logger.error("Could not renew generation job locks: {}", e.getMessage(), e);
+        }
+    }
+
+    private <T> T readPayload(GenerationJob job, Class<T> type) throws JsonProcessingException {
+        return job.getPayloadJson() != null ? objectMapper.readValue(job.getPayloadJson(), type) : null;
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "backend";
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Jobs still running are picked up again by another replica once their visibility timeout expires
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.InsightGenerationRequestDTO;
+import com.example.adaptivelearningbackend.dto.InsightPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.PooledInsightsDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.UserAnswerDetailDTO;
+import com.example.adaptivelearningbackend.entity.InsightContentPoolEntry;
+import com.example.adaptivelearningbackend.repository.InsightContentPoolRepository;
+import com.example.adaptivelearningbackend.service.InsightContentPoolService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class InsightContentPoolServiceImpl implements InsightContentPoolService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightContentPoolServiceImpl.class);
+
+    private final InsightContentPoolRepository insightContentPoolRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${generation.content-pool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${generation.content-pool.max-variants:3}")
+    private long maxVariants;
+
+    // Average answer time (ms) above which a learner counts as slow, and below which as fast
+    @Value("${generation.content-pool.slow-answer-ms:30000}")
+    private long slowAnswerMs;
+
+    @Value("${generation.content-pool.fast-answer-ms:8000}")
+    private long fastAnswerMs;
+
+    @Override
+    public String performanceBucket(TopicPerformanceDataDTO performanceData) {
+        List<UserAnswerDetailDTO> answers = performanceData == null || performanceData.getInsightsPerformance() == null
+                ? List.of()
+                : performanceData.getInsightsPerformance().stream()
+                    .map(InsightPerformanceDataDTO::getQuestionsAnswered)
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .toList();
+        if (answers.isEmpty()) {
+            return "cold";
+        }
+
+        double accuracy = answers.stream().filter(UserAnswerDetailDTO::isCorrect).count() / (double) answers.size();
+        String accuracyBand = accuracy < 0.5 ? "acc-low" : accuracy < 0.8 ? "acc-mid" : "acc-high";
+
+        double averageMs = answers.stream()
+                .map(UserAnswerDetailDTO::getTimeTakenMs)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .average()
+                .orElse(-1);
+        String paceBand = averageMs < 0 ? "pace-unknown" : averageMs > slowAnswerMs ? "pace-slow" : averageMs < fastAnswerMs ? "pace-fast" : "pace-normal";
+        return accuracyBand + ":" + paceBand;
+    }
+
+    @Override
+    @Transactional
+    public Optional<PooledInsightsDTO> acquire(String domainName, String topicName, int level, String bucket, Long excludedEntryId) {
+        if (!enabled) return Optional.empty();
+
+        Optional<PooledInsightsDTO> pooled = insightContentPoolRepository
+                .findFirstByDomainNameAndTopicNameAndLevelAndPerformanceBucketAndIdNotOrderByUseCountAsc(
+                        domainName, topicName, level, bucket, excludedEntryId != null ? excludedEntryId : -1L)
+                .flatMap(this::use);
+        meterRegistry.counter("insights.content_pool.lookups", "outcome", pooled.isPresent() ? "hit" : "miss").increment();
+        return pooled;
+    }
+
+    @Override
+    @Transactional
+    public Optional<PooledInsightsDTO> findFallback(String domainName, String topicName, int level, Long excludedEntryId) {
+        Optional<PooledInsightsDTO> fallback = insightContentPoolRepository
+                .findFirstByDomainNameAndTopicNameAndLevelAndIdNotOrderByUseCountDesc(
+                        domainName, topicName, level, excludedEntryId != null ? excludedEntryId : -1L)
+                .flatMap(this::use);
+        meterRegistry.counter("insights.content_pool.fallbacks", "outcome", fallback.isPresent() ? "served" : "empty").increment();
+        return fallback;
+    }
+
+    private Optional<PooledInsightsDTO> use(InsightContentPoolEntry entry) {
+        try {
+            List<InsightGenerationRequestDTO.InsightDetailDTO> insights = objectMapper.readValue(
+                    entry.getInsightsJson(), new TypeReference<List<InsightGenerationRequestDTO.InsightDetailDTO>>() {});
+            insightContentPoolRepository.recordUse(entry.getId());
+            return Optional.of(new PooledInsightsDTO(entry.getId(), insights));
+        } catch (JsonProcessingException e) {
+            logger.error("Content pool entry {} is not valid JSON; ignoring it", entry.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    @Transactional
+    public Long contribute(String domainName, String topicName, int level, String bucket,
+                           List<InsightGenerationRequestDTO.InsightDetailDTO> insights) {
+        if (!enabled || insights.isEmpty()) return null;
+        if (insightContentPoolRepository.countByDomainNameAndTopicNameAndLevelAndPerformanceBucket(domainName, topicName, level, bucket) >= maxVariants) {
+            return null;
+        }
+        try {
+            InsightContentPoolEntry entry = insightContentPoolRepository.save(InsightContentPoolEntry.builder()
+                    .domainName(domainName)
+                    .topicName(topicName)
+                    .level(level)
+                    .performanceBucket(bucket)
+                    .insightsJson(objectMapper.writeValueAsString(insights))
+                    .useCount(1)
+                    .build());
+            logger.info("Pooled {} insights for {} / {} L{} [{}] as entry {}", insights.size(), domainName, topicName, level, bucket, entry.getId());
+            return entry.getId();
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize insights for the content pool", e);
+            return null;
+        }
+    }
+}
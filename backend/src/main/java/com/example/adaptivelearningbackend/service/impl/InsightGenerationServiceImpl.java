@@ -0,0 +1,591 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.GenerationTargetDTO;
+import com.example.adaptivelearningbackend.dto.InsightGenerationRequestDTO;
+import com.example.adaptivelearningbackend.dto.PooledInsightsDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.entity.InsightEntity;
+import com.example.adaptivelearningbackend.entity.QuestionEntity;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import com.example.adaptivelearningbackend.exception.NotFoundException;
+import com.example.adaptivelearningbackend.repository.GenerationJobRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.QuestionRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserAnswerRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.service.AiIntegrationService;
+import com.example.adaptivelearningbackend.service.InsightContentPoolService;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class InsightGenerationServiceImpl implements InsightGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsightGenerationServiceImpl.class);
+
+    static final int DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION = 6;
+
+    private final UserDomainProgressRepository userDomainProgressRepository;
+    private final TopicProgressRepository topicProgressRepository;
+    private final InsightRepository insightRepository;
+    private final QuestionRepository questionRepository;
+    private final UserAnswerRepository userAnswerRepository;
+    private final GenerationJobRepository generationJobRepository;
+    private final AiIntegrationService aiIntegrationService;
+    private final InsightContentPoolService insightContentPoolService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Identifies this instance in generation leases
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    // Renews the leases of generations running on this instance, so a slow AI call keeps its lease
+    private final ScheduledExecutorService leaseRenewer =
+            Executors.newSingleThreadScheduledExecutor(WorkerThreads.factory("generation-lease-", false));
+
+    @Value("${generation.lock.lease-seconds:180}")
+    private long leaseSeconds;
+
+    @Value("${generation.lock.poll-interval-ms:500}")
+    private long leasePollIntervalMs;
+
+    // The holder renews its lease while generating, so waiters are bounded by this instead of the lease length
+    @Value("${generation.lock.max-wait-seconds:300}")
+    private long leaseMaxWaitSeconds;
+
+    // When true, insights are read from the AI service as a stream and persisted one by one
+    @Value("${generation.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    private enum LeaseOutcome { ACQUIRED, HELD_ELSEWHERE, ALREADY_GENERATED }
+
+    // What a streamed generation left behind: the insights persisted so far, and the error that ended the stream early, if any
+    private record StreamedLevel(List<InsightGenerationRequestDTO.InsightDetailDTO> received, RuntimeException failure, boolean abandoned) {}
+
+    @Override
+    public GenerationTargetDTO reserveTopicLevel(Long userDomainProgressId, String domainName, String topicName, int level) {
+        return prepareTopicLevel(userDomainProgressId, domainName, topicName, level, false);
+    }
+
+    private GenerationTargetDTO prepareTopicLevel(Long userDomainProgressId, String domainName, String topicName, int level,
+                                                  boolean background) {
+        return transactionTemplate.execute(status -> {
+            // Two replicas must not both create the row for this level
+            topicProgressRepository.lockTopicLevel(topicLevelLockKey(userDomainProgressId, topicName, level));
+            UserDomainProgress userDomainProgress = userDomainProgressRepository.findById(userDomainProgressId)
+                    .orElseThrow(() -> new NotFoundException("User progress not found with ID: " + userDomainProgressId));
+            Long userId = userDomainProgress.getUser().getId();
+
+            Optional<TopicProgress> existing = topicProgressRepository
+                    .findByUserDomainProgressIdAndTopicNameAndLevel(userDomainProgressId, topicName, level);
+            TopicProgress topicProgress = existing.orElseGet(() -> {
+                logger.info("Creating new {}TopicProgress for user {}, topic {}, level {}.", background ? "staged " : "", userId, topicName, level);
+                // Only levels that pre-generation was queued for count as misses; the rest were never going to be staged
+                if (!background && generationJobRepository.existsByUserDomainProgressIdAndTopicNameAndLevelAndPriority(
+                        userDomainProgressId, topicName, level, GenerationPriority.PREFETCH)) {
+                    recordPregenerationLookup("miss");
+                }
+                return topicProgressRepository.save(TopicProgress.builder()
+                        .userDomainProgress(userDomainProgress)
+                        .topicName(topicName)
+                        .level(level)
+                        .staged(background)
+                        .insightsGenerated(false)
+                        .completedInsightsCount(0)
+                        .requiredInsightsForLevelCompletion(DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION)
+                        .startedAt(background ? null : LocalDateTime.now())
+                        .build());
+            });
+
+            if (!background && existing.isPresent() && topicProgress.isStaged()) {
+                // The learner reached a pre-generated level
+                recordPregenerationLookup(topicProgress.isInsightsGenerated() ? "hit" : "pending");
+                logger.info("Promoting staged TopicProgress for user {}, topic {}, level {} (insights ready: {}).",
+                        userId, topicName, level, topicProgress.isInsightsGenerated());
+                topicProgress.setStaged(false);
+                topicProgress.setStartedAt(LocalDateTime.now());
+                topicProgressRepository.save(topicProgress);
+            }
+
+            long insightsInDbForThisTopicLevel = insightRepository.countByTopicProgressId(topicProgress.getId());
+            boolean needsGeneration = insightsInDbForThisTopicLevel < topicProgress.getRequiredInsightsForLevelCompletion();
+            if (!needsGeneration) {
+                logger.info("Insights already generated and meet requirements for topic {}, level {}. Count: {}", topicName, level, insightsInDbForThisTopicLevel);
+                if (!topicProgress.isInsightsGenerated()) {
+                    topicProgress.setInsightsGenerated(true);
+                    topicProgressRepository.save(topicProgress);
+                }
+            }
+
+            return GenerationTargetDTO.builder()
+                    .topicProgressId(topicProgress.getId())
+                    .userDomainProgressId(userDomainProgressId)
+                    .userId(userId)
+                    .domainName(domainName)
+                    .topicName(topicName)
+                    .level(level)
+                    .needsGeneration(needsGeneration)
+                    .previousPoolEntryId(topicProgress.getContentPoolEntryId())
+                    .build();
+        });
+    }
+
+    @Override
+    public void generateAndPersist(GenerationTargetDTO target, TopicPerformanceDataDTO performanceData) {
+        generateAndPersist(target, performanceData, null);
+    }
+
+    @Override
+    public void generateAndPersist(GenerationTargetDTO target, TopicPerformanceDataDTO performanceData,
+                                   Consumer<Long> onInsightPersisted) {
+        if (!target.isNeedsGeneration()) {
+            return;
+        }
+
+        // Only the lease holder calls the AI service; other callers, on this or another replica, wait for its result
+        String leaseOwner = nodeId + ":" + UUID.randomUUID();
+        long waitStartedAt = System.nanoTime();
+        boolean contended = false;
+        Set<Long> relayed = new HashSet<>();
+        while (true) {
+            LeaseOutcome outcome = tryAcquireGenerationLease(target, leaseOwner);
+            if (outcome == LeaseOutcome.ACQUIRED) break;
+            // The lease holder may be streaming: pass on whatever it has persisted so far
+            relayPersistedInsights(target, relayed, onInsightPersisted);
+            if (outcome == LeaseOutcome.ALREADY_GENERATED) {
+                if (contended) recordLeaseWait(waitStartedAt);
+                logger.info("Insights for topic {}, level {} were generated by another request.", target.getTopicName(), target.getLevel());
+                return;
+            }
+            if (!contended) {
+                contended = true;
+                meterRegistry.counter("insights.generation.lock.contended").increment();
+                logger.info("Topic {}, level {} is being generated elsewhere; waiting for the result.", target.getTopicName(), target.getLevel());
+            }
+            if (Duration.ofNanos(System.nanoTime() - waitStartedAt).getSeconds() > leaseMaxWaitSeconds) {
+                throw new IllegalStateException("Timed out waiting for insights of " + target.getTopicName() + " level " + target.getLevel());
+            }
+            try {
+                Thread.sleep(leasePollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for insight generation", e);
+            }
+        }
+        if (contended) recordLeaseWait(waitStartedAt);
+
+        long renewEveryMs = Math.max(1, leaseSeconds * 1000 / 3);
+        ScheduledFuture<?> heartbeat = leaseRenewer.scheduleAtFixedRate(
+                () -> renewGenerationLease(target, leaseOwner), renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
+        try {
+            generateUnderLease(target, performanceData, onInsightPersisted, leaseOwner);
+        } finally {
+            heartbeat.cancel(false);
+            releaseGenerationLease(target, leaseOwner);
+        }
+    }
+
+    private void renewGenerationLease(GenerationTargetDTO target, String leaseOwner) {
+        try {
+            Integer renewed = transactionTemplate.execute(status -> topicProgressRepository.renewGenerationLease(
+                    target.getTopicProgressId(), leaseOwner, LocalDateTime.now().plusSeconds(leaseSeconds)));
+            if (renewed == null || renewed == 0) {
+                logger.warn("Generation lease for topic {}, level {} is no longer held by {}.", target.getTopicName(), target.getLevel(), leaseOwner);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew generation lease for topic {}, level {}: {}", target.getTopicName(), target.getLevel(), e.getMessage());
+        }
+    }
+
+    // Called first in the persisting transaction: renews the lease and keeps its row locked until commit, so the lease
+    // cannot pass to another generator between this check and the insert. Runs before the row is loaded, which then
+    // carries the renewed lease when it is saved.
+    private boolean confirmGenerationLease(GenerationTargetDTO target, String leaseOwner) {
+        if (topicProgressRepository.renewGenerationLease(target.getTopicProgressId(), leaseOwner,
+                LocalDateTime.now().plusSeconds(leaseSeconds)) == 1) {
+            return true;
+        }
+        if (!topicProgressRepository.existsById(target.getTopicProgressId())) {
+            return false; // Staged level discarded meanwhile; the caller's lookup reports it
+        }
+        meterRegistry.counter("insights.generation.lock.lost").increment();
+        logger.warn("Generation lease for topic {}, level {} passed to another generator. Discarding this AI result.",
+                target.getTopicName(), target.getLevel());
+        return false;
+    }
+
+    // A cancelled fan-out interrupts this thread, and Hikari fails a connection request that has to wait while the
+    // thread is interrupted; the flag is cleared for the release and restored afterwards
+    private void releaseGenerationLease(GenerationTargetDTO target, String leaseOwner) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    topicProgressRepository.releaseGenerationLease(target.getTopicProgressId(), leaseOwner));
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private LeaseOutcome tryAcquireGenerationLease(GenerationTargetDTO target, String leaseOwner) {
+        return transactionTemplate.execute(status -> {
+            Optional<TopicProgress> topicProgress = topicProgressRepository.findById(target.getTopicProgressId());
+            if (topicProgress.isEmpty()) {
+                return LeaseOutcome.ALREADY_GENERATED; // staged level discarded meanwhile; nothing left to generate
+            }
+            if (insightRepository.countByTopicProgressId(target.getTopicProgressId()) >= topicProgress.get().getRequiredInsightsForLevelCompletion()) {
+                return LeaseOutcome.ALREADY_GENERATED;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            int acquired = topicProgressRepository.acquireGenerationLease(
+                    target.getTopicProgressId(), leaseOwner, now, now.plusSeconds(leaseSeconds));
+            return acquired == 1 ? LeaseOutcome.ACQUIRED : LeaseOutcome.HELD_ELSEWHERE;
+        });
+    }
+
+    private void relayPersistedInsights(GenerationTargetDTO target, Set<Long> relayed, Consumer<Long> onInsightPersisted) {
+        if (onInsightPersisted == null) return;
+        for (Long insightId : insightRepository.findIdsByTopicProgressId(target.getTopicProgressId())) {
+            if (relayed.add(insightId)) {
+                onInsightPersisted.accept(insightId);
+            }
+        }
+    }
+
+    private void recordLeaseWait(long waitStartedAt) {
+        meterRegistry.timer("insights.generation.lock.wait").record(Duration.ofNanos(System.nanoTime() - waitStartedAt));
+    }
+
+    private static long topicLevelLockKey(Long userDomainProgressId, String topicName, int level) {
+        return (userDomainProgressId << 32) ^ (topicName + ":" + level).hashCode();
+    }
+
+    private void generateUnderLease(GenerationTargetDTO target, TopicPerformanceDataDTO performanceData,
+                                    Consumer<Long> onInsightPersisted, String leaseOwner) {
+        TopicPerformanceDataDTO performanceDataForAi = performanceData != null ? performanceData : defaultPerformanceData(target);
+
+        // Learners in the same performance bucket share generated content; only new cases reach the AI service
+        String bucket = insightContentPoolService.performanceBucket(performanceDataForAi);
+        Optional<PooledInsightsDTO> pooled = insightContentPoolService.acquire(
+                target.getDomainName(), target.getTopicName(), target.getLevel(), bucket, target.getPreviousPoolEntryId());
+
+        List<InsightGenerationRequestDTO.InsightDetailDTO> generatedInsightDetails;
+        Long poolEntryId;
+        if (pooled.isPresent()) {
+            logger.info("Reusing pooled insights (entry {}) for user {}, topic {}, level {} [{}].",
+                    pooled.get().getPoolEntryId(), target.getUserId(), target.getTopicName(), target.getLevel(), bucket);
+            generatedInsightDetails = pooled.get().getInsights();
+            poolEntryId = pooled.get().getPoolEntryId();
+        } else if (streamingEnabled) {
+            logger.info("Streaming AI insights for user {}, topic {}, level {}.", target.getUserId(), target.getTopicName(), target.getLevel());
+            StreamedLevel streamed = streamIntoLevel(target, performanceDataForAi, onInsightPersisted, leaseOwner);
+            if (streamed.abandoned()) {
+                return;
+            }
+            if (!streamed.received().isEmpty()) {
+                // A stream that broke off keeps what arrived: the level becomes shorter instead of being lost.
+                // Only complete batches are shared through the content pool.
+                Long contributedPoolEntryId = null;
+                if (streamed.failure() == null) {
+                    contributedPoolEntryId = insightContentPoolService.contribute(
+                            target.getDomainName(), target.getTopicName(), target.getLevel(), bucket, streamed.received());
+                } else {
+                    meterRegistry.counter("insights.stream.partial").increment();
+                    logger.warn("Insight stream for topic {}, level {} failed after {} insight(s); keeping them as the level's content. Cause: {}",
+                            target.getTopicName(), target.getLevel(), streamed.received().size(), streamed.failure().getMessage());
+                }
+                Long finishedPoolEntryId = contributedPoolEntryId;
+                transactionTemplate.executeWithoutResult(status -> finishStreamedLevel(target, finishedPoolEntryId, leaseOwner));
+                return;
+            }
+            if (streamed.failure() != null) {
+                logger.warn("Insight stream for topic {}, level {} failed before the first insight: {}",
+                        target.getTopicName(), target.getLevel(), streamed.failure().getMessage());
+            }
+            generatedInsightDetails = Collections.emptyList();
+            poolEntryId = null;
+        } else {
+            logger.info("Requesting AI to generate insights for user {}, topic {}, level {}.", target.getUserId(), target.getTopicName(), target.getLevel());
+            generatedInsightDetails = aiIntegrationService.generateInsightsForTopic(
+                    target.getDomainName(), target.getTopicName(), target.getLevel(), target.getUserId(),
+                    performanceDataForAi
+            );
+            poolEntryId = insightContentPoolService.contribute(
+                    target.getDomainName(), target.getTopicName(), target.getLevel(), bucket, generatedInsightDetails);
+        }
+
+        if (generatedInsightDetails.isEmpty()) {
+            // AI service failed or its circuit is open: serve previously generated content for this level instead
+            Optional<PooledInsightsDTO> fallback = insightContentPoolService.findFallback(
+                    target.getDomainName(), target.getTopicName(), target.getLevel(), target.getPreviousPoolEntryId());
+            if (fallback.isEmpty()) {
+                // Persisting nothing would mark the level complete with zero required insights
+                throw new IllegalStateException("No insights available for " + target.getTopicName() + " level " + target.getLevel()
+                        + ": the AI service returned none and the fallback library has no content for this level");
+            }
+            logger.warn("AI returned no insights for topic {}, level {}. Serving fallback library entry {}.",
+                    target.getTopicName(), target.getLevel(), fallback.get().getPoolEntryId());
+            generatedInsightDetails = fallback.get().getInsights();
+            poolEntryId = fallback.get().getPoolEntryId();
+        }
+
+        List<InsightGenerationRequestDTO.InsightDetailDTO> insightsToPersist = generatedInsightDetails;
+        Long persistedPoolEntryId = poolEntryId;
+        // Time to write one generated level (insights, questions, options, feedback) in batched inserts
+        List<Long> persistedIds = meterRegistry.timer("insights.persist.level").record(() ->
+                transactionTemplate.execute(status -> persistGeneratedInsights(target, insightsToPersist, persistedPoolEntryId, leaseOwner)));
+        if (onInsightPersisted != null && persistedIds != null) {
+            persistedIds.forEach(onInsightPersisted);
+        }
+    }
+
+    // Persists every streamed insight in a short transaction of its own, so readers see the level fill up item by item
+    private StreamedLevel streamIntoLevel(GenerationTargetDTO target, TopicPerformanceDataDTO performanceDataForAi,
+                                          Consumer<Long> onInsightPersisted, String leaseOwner) {
+        List<InsightGenerationRequestDTO.InsightDetailDTO> received = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        // Closing the stream cancels the upstream request when we stop early
+        try (Stream<InsightGenerationRequestDTO.InsightDetailDTO> stream = aiIntegrationService.streamInsightsForTopic(
+                target.getDomainName(), target.getTopicName(), target.getLevel(), target.getUserId(), performanceDataForAi).toStream()) {
+            Iterator<InsightGenerationRequestDTO.InsightDetailDTO> items = stream.iterator();
+            while (items.hasNext()) {
+                InsightGenerationRequestDTO.InsightDetailDTO detail = items.next();
+                boolean first = received.isEmpty();
+                Long insightId = transactionTemplate.execute(status -> persistStreamedInsight(target, detail, first, leaseOwner));
+                if (insightId == null) {
+                    return new StreamedLevel(received, null, true);
+                }
+                if (first) {
+                    meterRegistry.timer("insights.stream.first-item").record(Duration.ofNanos(System.nanoTime() - startedAt));
+                }
+                received.add(detail);
+                if (onInsightPersisted != null) {
+                    onInsightPersisted.accept(insightId);
+                }
+            }
+        } catch (RuntimeException e) {
+            return new StreamedLevel(received, e, false);
+        }
+        return new StreamedLevel(received, null, false);
+    }
+
+    // Returns the new insight's id, or null when the level is gone, was filled by someone else or the lease was lost,
+    // and the stream should stop
+    private Long persistStreamedInsight(GenerationTargetDTO target, InsightGenerationRequestDTO.InsightDetailDTO detailDTO, boolean first,
+                                        String leaseOwner) {
+        boolean leaseHeld = confirmGenerationLease(target, leaseOwner);
+        Optional<TopicProgress> topicProgressOpt = topicProgressRepository.findById(target.getTopicProgressId());
+        if (topicProgressOpt.isEmpty()) {
+            logger.info("Topic progress {} no longer exists. Abandoning insight stream for topic {}, level {}.",
+                    target.getTopicProgressId(), target.getTopicName(), target.getLevel());
+            return null;
+        }
+        if (!leaseHeld) {
+            return null;
+        }
+        TopicProgress topicProgress = topicProgressOpt.get();
+        if (first) {
+            long insightsInDbForThisTopicLevel = insightRepository.countByTopicProgressId(topicProgress.getId());
+            if (insightsInDbForThisTopicLevel >= topicProgress.getRequiredInsightsForLevelCompletion()) {
+                logger.info("Topic {}, level {} was filled by a concurrent request ({} insights). Abandoning this stream.",
+                        target.getTopicName(), target.getLevel(), insightsInDbForThisTopicLevel);
+                topicProgress.setInsightsGenerated(true);
+                topicProgressRepository.save(topicProgress);
+                return null;
+            }
+            clearStaleInsights(target, topicProgress, insightsInDbForThisTopicLevel);
+        }
+        return insightRepository.save(toInsightEntity(target, topicProgress, detailDTO)).getId();
+    }
+
+    private void finishStreamedLevel(GenerationTargetDTO target, Long poolEntryId, String leaseOwner) {
+        if (!confirmGenerationLease(target, leaseOwner)) {
+            return;
+        }
+        topicProgressRepository.findById(target.getTopicProgressId()).ifPresent(topicProgress -> {
+            // The level requires exactly what was persisted, which is less than planned after a partial stream
+            topicProgress.setRequiredInsightsForLevelCompletion((int) insightRepository.countByTopicProgressId(topicProgress.getId()));
+            topicProgress.setContentPoolEntryId(poolEntryId);
+            topicProgress.setInsightsGenerated(true);
+            topicProgressRepository.save(topicProgress);
+        });
+    }
+
+    @Override
+    public GenerationTargetDTO ensureInsights(Long userDomainProgressId, String domainName, String topicName, int level,
+                                              TopicPerformanceDataDTO performanceData) {
+        GenerationTargetDTO target = reserveTopicLevel(userDomainProgressId, domainName, topicName, level);
+        generateAndPersist(target, performanceData);
+        return target;
+    }
+
+    @Override
+    public GenerationTargetDTO ensureInsightsInBackground(Long userDomainProgressId, String domainName, String topicName, int level,
+                                                          TopicPerformanceDataDTO performanceData) {
+        GenerationTargetDTO target = prepareTopicLevel(userDomainProgressId, domainName, topicName, level, true);
+        generateAndPersist(target, performanceData);
+        return target;
+    }
+
+    @Override
+    public boolean discardStagedLevel(Long userDomainProgressId, String topicName, int level) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> topicProgressRepository
+                .findByUserDomainProgressIdAndTopicNameAndLevel(userDomainProgressId, topicName, level)
+                .filter(TopicProgress::isStaged)
+                .map(staged -> {
+                    logger.info("Discarding staged topic {}, level {} ({} insights) for progress {}.",
+                            topicName, level, staged.getInsights().size(), userDomainProgressId);
+                    // Orphan removal deletes the row together with its insights and questions
+                    staged.getUserDomainProgress().getTopicProgresses().remove(staged);
+                    meterRegistry.counter("insights.pregeneration.discarded").increment();
+                    return true;
+                })
+                .orElse(false)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    private void recordPregenerationLookup(String outcome) {
+        // hit = staged and ready, pending = staged but still generating, miss = queued for pre-generation but nothing was staged
+        meterRegistry.counter("insights.pregeneration.lookups", "outcome", outcome).increment();
+    }
+
+    private List<Long> persistGeneratedInsights(GenerationTargetDTO target,
+                                                List<InsightGenerationRequestDTO.InsightDetailDTO> generatedInsightDetails,
+                                                Long poolEntryId, String leaseOwner) {
+        boolean leaseHeld = confirmGenerationLease(target, leaseOwner);
+        Optional<TopicProgress> topicProgressOpt = topicProgressRepository.findById(target.getTopicProgressId());
+        if (topicProgressOpt.isEmpty()) {
+            // A staged level can be discarded while its content is being generated
+            logger.info("Topic progress {} no longer exists. Discarding AI result for topic {}, level {}.",
+                    target.getTopicProgressId(), target.getTopicName(), target.getLevel());
+            return Collections.emptyList();
+        }
+        if (!leaseHeld) {
+            return Collections.emptyList();
+        }
+        TopicProgress topicProgress = topicProgressOpt.get();
+
+        // Re-check: another request may have filled this level while the AI call was running
+        long insightsInDbForThisTopicLevel = insightRepository.countByTopicProgressId(topicProgress.getId());
+        if (insightsInDbForThisTopicLevel >= topicProgress.getRequiredInsightsForLevelCompletion()) {
+            logger.info("Topic {}, level {} was filled by a concurrent request ({} insights). Discarding this AI result.",
+                    target.getTopicName(), target.getLevel(), insightsInDbForThisTopicLevel);
+            topicProgress.setInsightsGenerated(true);
+            topicProgressRepository.save(topicProgress);
+            return Collections.emptyList();
+        }
+
+        clearStaleInsights(target, topicProgress, insightsInDbForThisTopicLevel);
+
+        List<InsightEntity> newInsights = new ArrayList<>();
+        for (InsightGenerationRequestDTO.InsightDetailDTO detailDTO : generatedInsightDetails) {
+            newInsights.add(toInsightEntity(target, topicProgress, detailDTO));
+        }
+        insightRepository.saveAll(newInsights); // Batch save
+
+        topicProgress.getInsights().addAll(newInsights);
+        if (newInsights.isEmpty() && DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION > 0) {
+            topicProgress.setRequiredInsightsForLevelCompletion(0);
+        } else {
+            topicProgress.setRequiredInsightsForLevelCompletion(newInsights.size());
+        }
+        topicProgress.setContentPoolEntryId(poolEntryId);
+        topicProgress.setInsightsGenerated(true);
+        topicProgressRepository.save(topicProgress);
+        return newInsights.stream().map(InsightEntity::getId).toList();
+    }
+
+    private void clearStaleInsights(GenerationTargetDTO target, TopicProgress topicProgress, long insightsInDbForThisTopicLevel) {
+        if (insightsInDbForThisTopicLevel == 0) return;
+        logger.info("Clearing {} existing insights for topic {}, level {} before adaptive regeneration.", insightsInDbForThisTopicLevel, target.getTopicName(), target.getLevel());
+        List<InsightEntity> oldInsights = insightRepository.findByTopicProgressId(topicProgress.getId());
+        if (!oldInsights.isEmpty()) {
+            for (InsightEntity oldInsight : oldInsights) {
+                userAnswerRepository.deleteByQuestionInsightId(oldInsight.getId());
+                questionRepository.deleteByInsightId(oldInsight.getId());
+            }
+            insightRepository.deleteAll(oldInsights);
+            topicProgress.getInsights().clear();
+            topicProgress.setCompletedInsightsCount(0);
+        }
+    }
+
+    private InsightEntity toInsightEntity(GenerationTargetDTO target, TopicProgress topicProgress,
+                                          InsightGenerationRequestDTO.InsightDetailDTO detailDTO) {
+        InsightEntity insight = InsightEntity.builder()
+                .topicProgress(topicProgress)
+                .title(detailDTO.getTitle())
+                .explanation(detailDTO.getExplanation())
+                .aiMetadata(convertMapToJson(detailDTO.getAiMetadata()))
+                .level(target.getLevel())
+                .completed(false)
+                .relevanceScore(0.5 + (Math.random() * 0.5))
+                .timesShown(0)
+                .build();
+
+        List<QuestionEntity> questions = new ArrayList<>();
+        if (detailDTO.getQuestions() != null) {
+            for (InsightGenerationRequestDTO.QuestionDetailDTO qDto : detailDTO.getQuestions()) {
+                questions.add(QuestionEntity.builder()
+                        .insight(insight)
+                        .questionType(qDto.getQuestionType())
+                        .questionText(qDto.getQuestionText())
+                        .options(qDto.getOptions() != null ? new ArrayList<>(qDto.getOptions()) : Collections.emptyList())
+                        .correctAnswer(qDto.getCorrectAnswer())
+                        .answerFeedbacks(qDto.getAnswerFeedbacks() != null ? new HashMap<>(qDto.getAnswerFeedbacks()) : Collections.emptyMap())
+                        .build());
+            }
+        }
+        insight.setQuestions(questions);
+        return insight;
+    }
+
+    private TopicPerformanceDataDTO defaultPerformanceData(GenerationTargetDTO target) {
+        logger.debug("Generating insights without explicit performance data for {} L{}. Using default adaptation planning.", target.getTopicName(), target.getLevel());
+        return TopicPerformanceDataDTO.builder()
+                .userId(target.getUserId())
+                .domainName(target.getDomainName())
+                .topicName(target.getTopicName())
+                .currentLevel(target.getLevel())
+                .insightsPerformance(Collections.emptyList())
+                .assessmentAnswers(Collections.emptyList()) // No specific assessment answers for this context
+                .build();
+    }
+
+    private String convertMapToJson(Map<String, Object> map) {
+        if (map == null || map.isEmpty()) return null;
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            logger.error("Error converting AI metadata map to JSON", e);
+            return "{}";
+        }
+    }
+}
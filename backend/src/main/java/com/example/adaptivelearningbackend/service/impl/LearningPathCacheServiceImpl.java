@@ -0,0 +1,207 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.entity.LearningPathCacheEntry;
+import com.example.adaptivelearningbackend.repository.LearningPathCacheRepository;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class LearningPathCacheServiceImpl implements LearningPathCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LearningPathCacheServiceImpl.class);
+
+    private final LearningPathCacheRepository learningPathCacheRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${generation.path-cache.enabled:true}")
+    private boolean enabled;
+
+    // Bump when the learning-path prompt or model changes; old entries then stop matching and age out
+    @Value("${generation.path-cache.prompt-version:v1}")
+    private String promptVersion;
+
+    @Value("${generation.path-cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${generation.path-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Override
+    @Transactional
+    public Optional<LearningPathDTO> lookup(Long domainId, Map<Long, String> answers) {
+        if (!enabled) return Optional.empty();
+
+        LocalDateTime now = LocalDateTime.now();
+        Optional<LearningPathDTO> cached = learningPathCacheRepository.findByCacheKey(cacheKey(domainId, answers))
+                .filter(entry -> entry.isPinned() || entry.getExpiresAt().isAfter(now))
+                .flatMap(entry -> {
+                    learningPathCacheRepository.recordHit(entry.getId(), now);
+                    return parse(entry);
+                });
+        meterRegistry.counter("learning.path.cache.lookups", "outcome", cached.isPresent() ? "hit" : "miss").increment();
+        return cached;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LearningPathDTO> findFallback(Long domainId) {
+        Optional<LearningPathDTO> fallback = learningPathCacheRepository.findFirstByDomainIdOrderByHitCountDesc(domainId)
+                .flatMap(this::parse);
+        meterRegistry.counter("learning.path.cache.fallbacks", "outcome", fallback.isPresent() ? "served" : "empty").increment();
+        return fallback;
+    }
+
+    @Override
+    public void store(Long domainId, Map<Long, String> answers, LearningPathDTO learningPath) {
+        store(domainId, answers, learningPath, false);
+    }
+
+    @Override
+    public void storePinned(Long domainId, Map<Long, String> answers, LearningPathDTO learningPath) {
+        store(domainId, answers, learningPath, true);
+    }
+
+    private void store(Long domainId, Map<Long, String> answers, LearningPathDTO learningPath, boolean pinned) {
+        if (!enabled) return;
+        if (learningPath.isFallback()) {
+            logger.debug("Not caching fallback learning path for domain {}", domainId);
+            return;
+        }
+
+        String key = cacheKey(domainId, answers);
+        String learningPathJson;
+        try {
+            learningPathJson = objectMapper.writeValueAsString(learningPath);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize learning path for the cache (domain {})", domainId, e);
+            return;
+        }
+
+        // Own transaction, so a unique-key violation rolls back only the insert and not the caller's work
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            newTransaction.executeWithoutResult(status -> upsert(key, domainId, learningPathJson, pinned));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request cached the same answers between our lookup and insert; the retry updates its row
+            logger.debug("Learning path for key {} was cached concurrently", key);
+            newTransaction.executeWithoutResult(status -> upsert(key, domainId, learningPathJson, pinned));
+        }
+
+        newTransaction.executeWithoutResult(status -> {
+            long overflow = learningPathCacheRepository.countByPinnedFalse() - maxEntries;
+            if (overflow > 0) {
+                int evicted = learningPathCacheRepository.deleteLeastRecentlyUsed(overflow);
+                meterRegistry.counter("learning.path.cache.evictions", "reason", "size").increment(evicted);
+            }
+        });
+    }
+
+    private void upsert(String key, Long domainId, String learningPathJson, boolean pinned) {
+        LocalDateTime now = LocalDateTime.now();
+        LearningPathCacheEntry entry = learningPathCacheRepository.findByCacheKey(key)
+                .orElseGet(() -> LearningPathCacheEntry.builder().cacheKey(key).domainId(domainId).build());
+        entry.setPromptVersion(promptVersion);
+        entry.setPinned(pinned || entry.isPinned());
+        entry.setLearningPathJson(learningPathJson);
+        entry.setLastHitAt(now);
+        entry.setExpiresAt(now.plusHours(ttlHours));
+        learningPathCacheRepository.saveAndFlush(entry);
+    }
+
+    @Override
+    @Transactional
+    public int invalidateDomain(Long domainId) {
+        int evicted = learningPathCacheRepository.deleteByDomainId(domainId);
+        meterRegistry.counter("learning.path.cache.evictions", "reason", "invalidated").increment(evicted);
+        logger.info("Invalidated {} cached learning paths for domain {}", evicted, domainId);
+        return evicted;
+    }
+
+    @Override
+    @Transactional
+    public boolean pinExisting(Long domainId, Map<Long, String> answers) {
+        return learningPathCacheRepository.findByCacheKey(cacheKey(domainId, answers))
+                .map(entry -> {
+                    entry.setPinned(true);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Map<Long, String>> findPinned(Long domainId, Collection<Map<Long, String>> answerProfiles) {
+        Map<String, Map<Long, String>> byKey = new HashMap<>();
+        answerProfiles.forEach(answers -> byKey.put(cacheKey(domainId, answers), answers));
+        if (byKey.isEmpty()) return Set.of();
+        Set<Map<Long, String>> pinned = new HashSet<>();
+        learningPathCacheRepository.findPinnedKeys(byKey.keySet()).forEach(key -> pinned.add(byKey.get(key)));
+        return pinned;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countPinned() {
+        return learningPathCacheRepository.countByPinnedTrue();
+    }
+
+    @Scheduled(fixedDelayString = "${generation.path-cache.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int evicted = learningPathCacheRepository.deleteExpired(LocalDateTime.now());
+        if (evicted > 0) {
+            meterRegistry.counter("learning.path.cache.evictions", "reason", "ttl").increment(evicted);
+            logger.info("Purged {} expired learning paths from the cache", evicted);
+        }
+        int stale = learningPathCacheRepository.deleteStalePinned(promptVersion);
+        if (stale > 0) {
+            meterRegistry.counter("learning.path.cache.evictions", "reason", "stale-catalogue").increment(stale);
+            logger.info("Purged {} catalogue learning paths generated with an older prompt version", stale);
+        }
+    }
+
+    // Canonical form: answers sorted by question id, so submission order never changes the key
+    private String cacheKey(Long domainId, Map<Long, String> answers) {
+        StringBuilder canonical = new StringBuilder("prompt=").append(promptVersion).append("|domain=").append(domainId);
+        new TreeMap<>(answers != null ? answers : Map.<Long, String>of())
+                .forEach((questionId, answer) -> canonical.append('|').append(questionId).append('=').append(answer));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Optional<LearningPathDTO> parse(LearningPathCacheEntry entry) {
+        try {
+            return Optional.of(objectMapper.readValue(entry.getLearningPathJson(), LearningPathDTO.class));
+        } catch (JsonProcessingException e) {
+            logger.error("Cached learning path {} is not valid JSON; ignoring it", entry.getId(), e);
+            return Optional.empty();
+        }
+    }
+}
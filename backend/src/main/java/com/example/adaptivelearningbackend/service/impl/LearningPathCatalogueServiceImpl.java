@@ -0,0 +1,316 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.LearningPathCatalogueCoverageDTO;
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.dto.RichAssessmentAnswerDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.entity.AssessmentQuestionEntity;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import com.example.adaptivelearningbackend.repository.AssessmentQuestionRepository;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.service.AiIntegrationService;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import com.example.adaptivelearningbackend.service.LearningPathCatalogueService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Off-peak batch that fills the learning-path cache with pinned entries for the most common assessment answer
+ * profiles, so that starting a domain with one of them is a database lookup.
+ * <p>
+ * Profiles are taken from the answers learners actually submitted: per domain, those seen at least
+ * {@code min-occurrences} times, most frequent first, up to {@code profiles-per-domain}. A profile already served
+ * by a cached path is pinned without an AI call. Runs are throttled and bounded by a time window; a run that stops
+ * early leaves the rest for the next one, which skips every profile already in the catalogue.
+ */
+@Service
+public class LearningPathCatalogueServiceImpl implements LearningPathCatalogueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LearningPathCatalogueServiceImpl.class);
+
+    private final UserDomainProgressRepository userDomainProgressRepository;
+    private final DomainRepository domainRepository;
+    private final AssessmentQuestionRepository assessmentQuestionRepository;
+    private final LearningPathCacheService learningPathCacheService;
+    private final AiIntegrationService aiIntegrationService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile LearningPathCatalogueCoverageDTO.LastRun lastRun;
+
+    @Value("${generation.path-catalogue.enabled:false}")
+    private boolean scheduledRunsEnabled;
+
+    @Value("${generation.path-catalogue.profiles-per-domain:20}")
+    private int profilesPerDomain;
+
+    @Value("${generation.path-catalogue.min-occurrences:2}")
+    private long minOccurrences;
+
+    @Value("${generation.path-catalogue.throttle-ms:2000}")
+    private long throttleMs;
+
+    @Value("${generation.path-catalogue.max-run-minutes:180}")
+    private long maxRunMinutes;
+
+    @Value("${generation.path-catalogue.max-consecutive-failures:5}")
+    private int maxConsecutiveFailures;
+
+    // One answer profile of a domain and how many learners submitted it
+    private record Profile(DomainEntity domain, Map<Long, String> answers, long occurrences) {}
+
+    public LearningPathCatalogueServiceImpl(UserDomainProgressRepository userDomainProgressRepository,
+                                            DomainRepository domainRepository,
+                                            AssessmentQuestionRepository assessmentQuestionRepository,
+                                            LearningPathCacheService learningPathCacheService,
+                                            AiIntegrationService aiIntegrationService,
+                                            ObjectMapper objectMapper,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.userDomainProgressRepository = userDomainProgressRepository;
+        this.domainRepository = domainRepository;
+        this.assessmentQuestionRepository = assessmentQuestionRepository;
+        this.learningPathCacheService = learningPathCacheService;
+        this.aiIntegrationService = aiIntegrationService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.executor = Executors.newSingleThreadExecutor(WorkerThreads.factory("path-catalogue-", virtualThreads));
+    }
+
+    // Enable on one instance only; concurrent runs on several replicas would generate the same profiles
+    @Scheduled(cron = "${generation.path-catalogue.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (scheduledRunsEnabled && !startRun()) {
+            logger.info("Learning-path catalogue run still in progress; skipping the scheduled start.");
+        }
+    }
+
+    @Override
+    public boolean startRun() {
+        if (!running.compareAndSet(false, true)) return false;
+        try {
+            executor.execute(() -> {
+                // Catalogue calls queue behind every learner-facing AI call
+                try (AiPriorityContext.Scope ignored = AiPriorityContext.enter(GenerationPriority.BATCH)) {
+                    run();
+                } catch (Exception e) {
+                    logger.error("Learning-path catalogue run failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    private void run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime deadline = startedAt.plusMinutes(maxRunMinutes);
+        List<Profile> candidates = uncataloguedProfiles();
+        logger.info("Learning-path catalogue run started: {} profile(s) to cover", candidates.size());
+
+        Map<Long, Map<Long, AssessmentQuestionEntity>> questionsByDomain = new HashMap<>();
+        int generated = 0, pinnedFromCache = 0, failed = 0, consecutiveFailures = 0, processed = 0;
+        String stopReason = null;
+        for (Profile profile : candidates) {
+            if (LocalDateTime.now().isAfter(deadline)) {
+                stopReason = "time window of " + maxRunMinutes + " min used up";
+                break;
+            }
+            if (consecutiveFailures >= maxConsecutiveFailures) {
+                stopReason = consecutiveFailures + " consecutive failures; AI service unavailable?";
+                break;
+            }
+            processed++;
+            Long domainId = profile.domain().getId();
+            if (learningPathCacheService.pinExisting(domainId, profile.answers())) {
+                pinnedFromCache++;
+                meterRegistry.counter("learning.path.catalogue.profiles", "outcome", "pinned").increment();
+                continue;
+            }
+
+            Map<Long, AssessmentQuestionEntity> questions = questionsByDomain.computeIfAbsent(domainId,
+                    id -> assessmentQuestionRepository.findByDomainId(id).stream()
+                            .collect(Collectors.toMap(AssessmentQuestionEntity::getId, Function.identity())));
+            if (!questions.keySet().containsAll(profile.answers().keySet())) {
+                // Answers to assessment questions that no longer exist; such starts can never hit this entry
+                continue;
+            }
+
+            LearningPathDTO path = aiIntegrationService.generateLearningPath(profile.domain().getName(), null,
+                    assessmentPerformance(profile, questions));
+            if (path.isFallback()) {
+                failed++;
+                consecutiveFailures++;
+                meterRegistry.counter("learning.path.catalogue.profiles", "outcome", "failed").increment();
+            } else {
+                learningPathCacheService.storePinned(domainId, profile.answers(), path);
+                generated++;
+                consecutiveFailures = 0;
+                meterRegistry.counter("learning.path.catalogue.profiles", "outcome", "generated").increment();
+            }
+            if (!pause()) {
+                stopReason = "interrupted";
+                break;
+            }
+        }
+
+        lastRun = LearningPathCatalogueCoverageDTO.LastRun.builder()
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .generated(generated)
+                .pinnedFromCache(pinnedFromCache)
+                .failed(failed)
+                .remaining(candidates.size() - processed + failed)
+                .stopReason(stopReason)
+                .build();
+        logger.info("Learning-path catalogue run finished in {} min: {} generated, {} pinned from cache, {} failed, {} remaining{}",
+                Duration.between(startedAt, LocalDateTime.now()).toMinutes(), generated, pinnedFromCache, failed,
+                lastRun.getRemaining(), stopReason != null ? " (stopped: " + stopReason + ")" : "");
+    }
+
+    // Throttle between AI calls so the batch never competes with interactive generation for long
+    private boolean pause() {
+        try {
+            Thread.sleep(throttleMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<Profile> uncataloguedProfiles() {
+        Map<DomainEntity, List<Profile>> candidates = commonProfiles();
+        List<Profile> open = new ArrayList<>();
+        candidates.forEach((domain, profiles) -> {
+            Set<Map<Long, String>> pinned = learningPathCacheService.findPinned(domain.getId(),
+                    profiles.stream().map(Profile::answers).toList());
+            profiles.stream().filter(profile -> !pinned.contains(profile.answers())).forEach(open::add);
+        });
+        // Most frequent profiles first, so a run cut short still covers the most domain starts
+        open.sort(Comparator.comparingLong(Profile::occurrences).reversed());
+        return open;
+    }
+
+    // Per domain: profiles seen at least min-occurrences times, most frequent first, capped at profiles-per-domain
+    private Map<DomainEntity, List<Profile>> commonProfiles() {
+        Map<DomainEntity, List<Profile>> common = new LinkedHashMap<>();
+        observedProfiles().forEach((domain, counts) -> {
+            List<Profile> profiles = counts.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= minOccurrences)
+                    .sorted(Map.Entry.<Map<Long, String>, Long>comparingByValue().reversed())
+                    .limit(profilesPerDomain)
+                    .map(entry -> new Profile(domain, entry.getKey(), entry.getValue()))
+                    .toList();
+            if (!profiles.isEmpty()) common.put(domain, profiles);
+        });
+        return common;
+    }
+
+    // Every submitted answer profile with the number of learners who submitted it, per domain
+    private Map<DomainEntity, Map<Map<Long, String>, Long>> observedProfiles() {
+        Map<Long, Map<Map<Long, String>, Long>> countsByDomainId = new HashMap<>();
+        for (Object[] row : userDomainProgressRepository.findAssessmentAnswerProfiles()) {
+            Map<Long, String> answers = parseAnswers((String) row[1]);
+            if (answers == null || answers.isEmpty()) continue;
+            countsByDomainId.computeIfAbsent((Long) row[0], id -> new HashMap<>()).merge(answers, 1L, Long::sum);
+        }
+        Map<DomainEntity, Map<Map<Long, String>, Long>> byDomain = new LinkedHashMap<>();
+        domainRepository.findAllById(countsByDomainId.keySet()).stream()
+                .sorted(Comparator.comparing(DomainEntity::getName))
+                .forEach(domain -> byDomain.put(domain, countsByDomainId.get(domain.getId())));
+        return byDomain;
+    }
+
+    private Map<Long, String> parseAnswers(String json) {
+        try {
+            return new TreeMap<>(objectMapper.readValue(json, new TypeReference<Map<Long, String>>() {}));
+        } catch (JsonProcessingException e) {
+            logger.debug("Skipping unreadable assessment answers: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private TopicPerformanceDataDTO assessmentPerformance(Profile profile, Map<Long, AssessmentQuestionEntity> questions) {
+        List<RichAssessmentAnswerDTO> answers = profile.answers().entrySet().stream()
+                .map(entry -> RichAssessmentAnswerDTO.builder()
+                        .questionId(entry.getKey())
+                        .questionText(questions.get(entry.getKey()).getQuestionText())
+                        .options(new ArrayList<>(questions.get(entry.getKey()).getOptions()))
+                        .selectedAnswer(entry.getValue())
+                        .build())
+                .toList();
+        return TopicPerformanceDataDTO.builder()
+                .domainName(profile.domain().getName())
+                .assessmentAnswers(answers)
+                .insightsPerformance(Collections.emptyList())
+                .build();
+    }
+
+    @Override
+    public LearningPathCatalogueCoverageDTO getCoverage() {
+        List<LearningPathCatalogueCoverageDTO.DomainCoverage> domains = new ArrayList<>();
+        long domainStarts = 0, coveredDomainStarts = 0;
+        for (Map.Entry<DomainEntity, Map<Map<Long, String>, Long>> entry : observedProfiles().entrySet()) {
+            Map<Map<Long, String>, Long> counts = entry.getValue();
+            Set<Map<Long, String>> pinned = learningPathCacheService.findPinned(entry.getKey().getId(), counts.keySet());
+            long starts = counts.values().stream().mapToLong(Long::longValue).sum();
+            long covered = pinned.stream().mapToLong(counts::get).sum();
+            domains.add(LearningPathCatalogueCoverageDTO.DomainCoverage.builder()
+                    .domainId(entry.getKey().getId())
+                    .domainName(entry.getKey().getName())
+                    .observedProfiles(counts.size())
+                    .cataloguedProfiles(pinned.size())
+                    .domainStarts(starts)
+                    .coveredDomainStarts(covered)
+                    .build());
+            domainStarts += starts;
+            coveredDomainStarts += covered;
+        }
+        return LearningPathCatalogueCoverageDTO.builder()
+                .running(running.get())
+                .pinnedPaths(learningPathCacheService.countPinned())
+                .domainStarts(domainStarts)
+                .coveredDomainStarts(coveredDomainStarts)
+                .coverage(domainStarts == 0 ? 0.0 : (double) coveredDomainStarts / domainStarts)
+                .domains(domains)
+                .lastRun(lastRun)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // An interrupted run resumes with the next one; finished profiles are already pinned
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
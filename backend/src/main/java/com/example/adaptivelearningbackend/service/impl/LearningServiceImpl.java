@@ -2,10 +2,15 @@ package com.example.adaptivelearningbackend.service.impl;
 
 import com.example.adaptivelearningbackend.dto.*;
 import com.example.adaptivelearningbackend.entity.*;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
 import com.example.adaptivelearningbackend.enums.QuestionType;
+import com.example.adaptivelearningbackend.exception.GenerationPendingException;
 import com.example.adaptivelearningbackend.exception.NotFoundException;
 import com.example.adaptivelearningbackend.repository.*;
 import com.example.adaptivelearningbackend.service.AiIntegrationService;
+import com.example.adaptivelearningbackend.service.GenerationJobService;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
 import com.example.adaptivelearningbackend.service.LearningService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -13,11 +18,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -36,10 +50,45 @@ public class LearningServiceImpl implements LearningService {
     private final UserAnswerRepository userAnswerRepository;
     private final UserRepository userRepository;
     private final AiIntegrationService aiIntegrationService;
+    private final InsightGenerationService insightGenerationService;
+    private final GenerationJobService generationJobService;
+    private final TopicInsightFanOut topicInsightFanOut;
+    private final LearningPathCacheService learningPathCacheService;
+    private final AiRequestBulkhead aiRequestBulkhead; // Runs the database steps around non-blocking AI calls
+    private final AiAdmissionControl aiAdmissionControl; // Queues generation instead of waiting while the AI service is over budget
+    private final TransactionTemplate transactionTemplate; // Keeps AI calls outside of transaction boundaries
     private final ObjectMapper objectMapper; // For JSON processing
 
+    // When true, requests that need the LLM enqueue a generation job and answer 202 instead of blocking
+    @Value("${generation.jobs.enqueue-requests:false}")
+    private boolean enqueueGenerationRequests;
 
-    private static final int DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION = 6;
+    // Number of topics whose first level is generated concurrently when a domain is started
+    @Value("${generation.fanout.topics:1}")
+    private int fanOutTopics;
+
+    // Pre-generation of the next level and the next topics once the learner is far enough into the current level
+    @Value("${generation.prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+
+    @Value("${generation.prefetch.trigger-ratio:0.66}")
+    private double prefetchTriggerRatio;
+
+    @Value("${generation.prefetch.lookahead-topics:1}")
+    private int prefetchLookaheadTopics;
+
+    // Queue the review as a generation job as soon as the last insight of a level is completed
+    @Value("${generation.review.precompute-enabled:true}")
+    private boolean precomputeReviews;
+
+    // Values carried from a short transaction to the AI call that follows it
+    private record DomainStart(String domainName, LearningPathDTO existingLearningPath, List<RichAssessmentAnswerDTO> richAssessmentAnswers) {}
+    private record CurrentTopic(Long userDomainProgressId, String domainName, String topicName, int level, boolean insightsGenerated) {}
+    private record PendingGeneration(Long userDomainProgressId, String domainName, String topicName, int level, TopicPerformanceDataDTO performanceData) {}
+    // storedReview is set when the answers still match the stored review; nothing else is gathered then
+    private record PendingReview(Long userDomainProgressId, String topicName, int level, Long topicProgressId,
+                                 Map<String, Object> performanceData, List<QuestionDTO> revisionQuestions,
+                                 String answersFingerprint, ReviewDTO storedReview) {}
 
 
 
@@ -63,96 +112,208 @@ public class LearningServiceImpl implements LearningService {
     }
 
     @Override
-    @Transactional
     public LearningPathDTO startDomainAndGetLearningPath(Long userId, AssessmentSubmissionDTO submission) {
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found with ID: " + userId));
-        DomainEntity domain = domainRepository.findById(submission.getDomainId())
-                .orElseThrow(() -> new NotFoundException("Domain not found with ID: " + submission.getDomainId()));
+        DomainStart start = loadDomainStart(userId, submission);
+        if (start.existingLearningPath() != null) {
+            logger.info("User {} already has a learning path for domain {}. Returning existing one.", userId, start.domainName());
+            return start.existingLearningPath();
+        }
+        // A cache hit needs no LLM call, so it is answered directly even when generation is queued
+        LearningPathDTO cachedPath = learningPathCacheService.lookup(submission.getDomainId(), submission.getAnswers()).orElse(null);
+        if (cachedPath == null && deferGeneration("/generate-learning-path")) {
+            throw new GenerationPendingException(generationJobService.enqueueLearningPath(userId, submission));
+        }
+        return createLearningPath(userId, submission, start, cachedPath);
+    }
 
-        Optional<UserDomainProgress> existingProgressOpt = userDomainProgressRepository.findByUserIdAndDomainId(userId, submission.getDomainId());
+    @Override
+    public CompletableFuture<LearningPathDTO> startDomainAsync(Long userId, AssessmentSubmissionDTO submission) {
+        record PathRequest(DomainStart start, LearningPathDTO readyPath) {}
+        return aiRequestBulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> {
+            DomainStart start = loadDomainStart(userId, submission);
+            if (start.existingLearningPath() != null) {
+                logger.info("User {} already has a learning path for domain {}. Returning existing one.", userId, start.domainName());
+                return new PathRequest(start, start.existingLearningPath());
+            }
+            LearningPathDTO cachedPath = learningPathCacheService.lookup(submission.getDomainId(), submission.getAnswers()).orElse(null);
+            if (cachedPath == null && deferGeneration("/generate-learning-path")) {
+                throw new GenerationPendingException(generationJobService.enqueueLearningPath(userId, submission));
+            }
+            if (cachedPath != null) {
+                logger.info("Using cached learning path for user {} in domain {}.", userId, start.domainName());
+                return new PathRequest(start, storeLearningPath(userId, submission, start, cachedPath));
+            }
+            return new PathRequest(start, null);
+        }).thenCompose(request -> {
+            if (request.readyPath() != null) {
+                return CompletableFuture.completedFuture(request.readyPath());
+            }
+            // No thread waits for the AI service; storing the path and the first insights resumes on the lane, where a
+            // path that has arrived is never rejected
+            return aiIntegrationService.generateLearningPathAsync(request.start().domainName(), userId, assessmentPerformance(userId, request.start()))
+                    .toFuture()
+                    .thenCompose(generatedPath -> aiRequestBulkhead.resume(AiRequestBulkhead.GENERATION_LANE, () ->
+                            storeLearningPath(userId, submission, request.start(), acceptGeneratedPath(submission, generatedPath))));
+        });
+    }
 
-        if (existingProgressOpt.isPresent() && existingProgressOpt.get().getLearningPathJson() != null) {
-            logger.info("User {} already has a learning path for domain {}. Returning existing one.", userId, domain.getName());
-            return parseLearningPathJson(existingProgressOpt.get().getLearningPathJson());
+    @Override
+    public LearningPathDTO generateAndStoreLearningPath(Long userId, AssessmentSubmissionDTO submission) {
+        DomainStart start = loadDomainStart(userId, submission);
+        if (start.existingLearningPath() != null) {
+            return start.existingLearningPath();
         }
+        return createLearningPath(userId, submission, start,
+                learningPathCacheService.lookup(submission.getDomainId(), submission.getAnswers()).orElse(null));
+    }
 
-        List<RichAssessmentAnswerDTO> richAssessmentAnswers = mapAssessmentSubmissionToRichDTOs(submission.getAnswers());
+    private DomainStart loadDomainStart(Long userId, AssessmentSubmissionDTO submission) {
+        // Short read transaction; the learning path and insight generation that follow run without a connection
+        return transactionTemplate.execute(status -> {
+            userRepository.findById(userId)
+                    .orElseThrow(() -> new NotFoundException("User not found with ID: " + userId));
+            DomainEntity domain = domainRepository.findById(submission.getDomainId())
+                    .orElseThrow(() -> new NotFoundException("Domain not found with ID: " + submission.getDomainId()));
+
+            Optional<UserDomainProgress> existingProgressOpt = userDomainProgressRepository.findByUserIdAndDomainId(userId, submission.getDomainId());
+            if (existingProgressOpt.isPresent() && existingProgressOpt.get().getLearningPathJson() != null) {
+                return new DomainStart(domain.getName(), parseLearningPathJson(existingProgressOpt.get().getLearningPathJson()), Collections.emptyList());
+            }
+            return new DomainStart(domain.getName(), null, mapAssessmentSubmissionToRichDTOs(submission.getAnswers()));
+        });
+    }
+
+    private LearningPathDTO createLearningPath(Long userId, AssessmentSubmissionDTO submission, DomainStart start,
+                                               LearningPathDTO cachedPath) {
+        if (cachedPath != null) {
+            logger.info("Using cached learning path for user {} in domain {}.", userId, start.domainName());
+            return storeLearningPath(userId, submission, start, cachedPath);
+        }
+        LearningPathDTO generatedPath = aiIntegrationService.generateLearningPath(
+                start.domainName(),
+                userId,
+                assessmentPerformance(userId, start)
+        );
+        return storeLearningPath(userId, submission, start, acceptGeneratedPath(submission, generatedPath));
+    }
 
-        TopicPerformanceDataDTO assessmentPerformanceForAi = TopicPerformanceDataDTO.builder()
+    private TopicPerformanceDataDTO assessmentPerformance(Long userId, DomainStart start) {
+        return TopicPerformanceDataDTO.builder()
                 .userId(userId)
-                .domainName(domain.getName())
-                .assessmentAnswers(richAssessmentAnswers)
+                .domainName(start.domainName())
+                .assessmentAnswers(start.richAssessmentAnswers())
                 .insightsPerformance(Collections.emptyList())
                 .build();
+    }
 
-        LearningPathDTO learningPathDTO = aiIntegrationService.generateLearningPath(
-                domain.getName(),
-                userId,
-                assessmentPerformanceForAi
-        );
+    private LearningPathDTO acceptGeneratedPath(AssessmentSubmissionDTO submission, LearningPathDTO generatedPath) {
+        if (generatedPath.isFallback()) {
+            // AI service unavailable: a path generated earlier for this domain beats the generic placeholder
+            return learningPathCacheService.findFallback(submission.getDomainId()).orElse(generatedPath);
+        }
+        learningPathCacheService.store(submission.getDomainId(), submission.getAnswers(), generatedPath);
+        return generatedPath;
+    }
 
-        UserDomainProgress progress = existingProgressOpt.orElseGet(() -> UserDomainProgress.builder()
-                .user(user)
-                .domain(domain)
-                .startedAt(LocalDateTime.now())
-                .build());
+    // Persists the path and generates the first topic level(s)
+    private LearningPathDTO storeLearningPath(Long userId, AssessmentSubmissionDTO submission, DomainStart start,
+                                              LearningPathDTO learningPathDTO) {
+        List<RichAssessmentAnswerDTO> richAssessmentAnswers = start.richAssessmentAnswers();
 
-        try {
-            progress.setAssessmentAnswersJson(objectMapper.writeValueAsString(submission.getAnswers()));
-            progress.setLearningPathJson(objectMapper.writeValueAsString(learningPathDTO));
-        } catch (JsonProcessingException e) {
-            logger.error("Error serializing learning path or assessment answers to JSON for user {} domain {}", userId, domain.getName(), e);
-            throw new RuntimeException("Failed to save learning path due to JSON processing error.");
-        }
-        progress.setCurrentTopicIndex(0);
-        userDomainProgressRepository.save(progress);
+        Long userDomainProgressId = transactionTemplate.execute(status -> {
+            UserDomainProgress progress = userDomainProgressRepository.findByUserIdAndDomainId(userId, submission.getDomainId())
+                    .orElseGet(() -> UserDomainProgress.builder()
+                            .user(userRepository.getReferenceById(userId))
+                            .domain(domainRepository.getReferenceById(submission.getDomainId()))
+                            .startedAt(LocalDateTime.now())
+                            .build());
+
+            try {
+                progress.setAssessmentAnswersJson(objectMapper.writeValueAsString(submission.getAnswers()));
+                progress.setLearningPathJson(objectMapper.writeValueAsString(learningPathDTO));
+            } catch (JsonProcessingException e) {
+                logger.error("Error serializing learning path or assessment answers to JSON for user {} domain {}", userId, start.domainName(), e);
+                throw new RuntimeException("Failed to save learning path due to JSON processing error.");
+            }
+            progress.setCurrentTopicIndex(0);
+            return userDomainProgressRepository.save(progress).getId();
+        });
 
         if (learningPathDTO.getTopics() != null && !learningPathDTO.getTopics().isEmpty()) {
-            String firstTopicName = learningPathDTO.getTopics().get(0);
-            TopicPerformanceDataDTO initialTopicPerformanceForAi = TopicPerformanceDataDTO.builder()
-                    .userId(userId)
-                    .domainName(learningPathDTO.getDomainName())
-                    .topicName(firstTopicName)
-                    .currentLevel(1)
-                    .assessmentAnswers(richAssessmentAnswers)
-                    .insightsPerformance(Collections.emptyList())
-                    .build();
-            ensureTopicProgressExistsAndGenerateInsights(progress, learningPathDTO.getDomainName(), firstTopicName, 1, initialTopicPerformanceForAi);
+            List<TopicPerformanceDataDTO> firstTopics = learningPathDTO.getTopics().stream()
+                    .limit(Math.max(1, fanOutTopics))
+                    .map(topicName -> TopicPerformanceDataDTO.builder()
+                            .userId(userId)
+                            .domainName(learningPathDTO.getDomainName())
+                            .topicName(topicName)
+                            .currentLevel(1)
+                            .assessmentAnswers(richAssessmentAnswers)
+                            .insightsPerformance(Collections.emptyList())
+                            .build())
+                    .collect(Collectors.toList());
+
+            if (firstTopics.size() > 1 && !enqueueGenerationRequests) {
+                topicInsightFanOut.generateFirstLevels(userDomainProgressId, learningPathDTO.getDomainName(), firstTopics);
+            } else {
+                TopicPerformanceDataDTO firstTopic = firstTopics.get(0);
+                requestInsights(userId, userDomainProgressId, learningPathDTO.getDomainName(), firstTopic.getTopicName(), 1, firstTopic);
+                // Queued mode: the remaining topics become staged jobs spread over the workers, behind interactive work
+                for (TopicPerformanceDataDTO sibling : firstTopics.subList(1, firstTopics.size())) {
+                    generationJobService.enqueueInsights(userId, userDomainProgressId, learningPathDTO.getDomainName(),
+                            sibling.getTopicName(), 1, sibling, GenerationPriority.PREFETCH);
+                }
+            }
         }
         return learningPathDTO;
     }
 
+    // Generates the level inline, or queues it when requests are enqueued or the AI service is over budget.
+    // Returns the queued job, if any.
+    private GenerationJobDTO requestInsights(Long userId, Long userDomainProgressId, String domainName, String topicName,
+                                             int level, TopicPerformanceDataDTO performanceData) {
+        if (!deferGeneration("/generate-insights")) {
+            insightGenerationService.ensureInsights(userDomainProgressId, domainName, topicName, level, performanceData);
+            return null;
+        }
+        GenerationTargetDTO target = insightGenerationService.reserveTopicLevel(userDomainProgressId, domainName, topicName, level);
+        if (!target.isNeedsGeneration()) {
+            return null;
+        }
+        return generationJobService.enqueueInsights(userId, userDomainProgressId, domainName, topicName, level, performanceData,
+                GenerationPriority.INTERACTIVE);
+    }
+
     private TopicPerformanceDataDTO gatherInsightPerformanceData(Long userId, String domainName, String topicName, int level, TopicProgress relevantTopicProgress) {
-        List<InsightPerformanceDataDTO> insightPerformances = new ArrayList<>();
-        List<InsightEntity> insightsOfTopicLevel = insightRepository.findByTopicProgressId(relevantTopicProgress.getId());
-
-        for (InsightEntity insight : insightsOfTopicLevel) {
-            List<UserAnswerDetailDTO> userAnswerDetails = new ArrayList<>();
-            // Fetch answers specifically for this insight and user
-            List<UserAnswer> userAnswersForInsight = userAnswerRepository.findByUserIdAndQuestionInsightId(userId, insight.getId());
-
-            for (UserAnswer userAnswer : userAnswersForInsight) {
-                QuestionEntity question = userAnswer.getQuestion();
-                if (question == null) continue;
-
-                userAnswerDetails.add(UserAnswerDetailDTO.builder()
-                        .questionId(question.getId())
-                        .questionText(question.getQuestionText())
-                        .options(new ArrayList<>(question.getOptions()))
-                        .selectedAnswer(userAnswer.getSelectedAnswer())
-                        .correctAnswer(question.getCorrectAnswer())
-                        .isCorrect(userAnswer.isCorrect())
-                        .timeTakenMs(userAnswer.getTimeTakenMs())
-                        .build());
-            }
+        Long topicProgressId = relevantTopicProgress.getId();
+        // Three projection queries for the whole topic level, whatever its number of insights, questions and attempts
+        Map<Long, List<String>> optionsByQuestion = new HashMap<>();
+        for (Object[] option : questionRepository.findOptionsByTopicProgressId(topicProgressId)) {
+            optionsByQuestion.computeIfAbsent((Long) option[0], id -> new ArrayList<>()).add((String) option[1]);
+        }
+        Map<Long, List<UserAnswerDetailDTO>> answersByInsight = new HashMap<>();
+        for (TopicAnswerDetailDTO answer : userAnswerRepository.findAnswerDetailsByUserIdAndTopicProgressId(userId, topicProgressId)) {
+            answersByInsight.computeIfAbsent(answer.getInsightId(), id -> new ArrayList<>()).add(UserAnswerDetailDTO.builder()
+                    .questionId(answer.getQuestionId())
+                    .questionText(answer.getQuestionText())
+                    .options(new ArrayList<>(optionsByQuestion.getOrDefault(answer.getQuestionId(), Collections.emptyList())))
+                    .selectedAnswer(answer.getSelectedAnswer())
+                    .correctAnswer(answer.getCorrectAnswer())
+                    .isCorrect(answer.isCorrect())
+                    .timeTakenMs(answer.getTimeTakenMs())
+                    .build());
+        }
 
-            if (!userAnswerDetails.isEmpty() || insight.getTimesShown() > 0) {
+        List<InsightPerformanceDataDTO> insightPerformances = new ArrayList<>();
+        for (Object[] insight : insightRepository.findSummariesByTopicProgressId(topicProgressId)) {
+            Long insightId = (Long) insight[0];
+            int timesShown = (Integer) insight[2];
+            List<UserAnswerDetailDTO> userAnswerDetails = answersByInsight.getOrDefault(insightId, Collections.emptyList());
+            if (!userAnswerDetails.isEmpty() || timesShown > 0) {
                 insightPerformances.add(InsightPerformanceDataDTO.builder()
-                        .insightId(insight.getId())
-                        .insightTitle(insight.getTitle())
+                        .insightId(insightId)
+                        .insightTitle((String) insight[1])
                         .questionsAnswered(userAnswerDetails)
-                        .timesShown(insight.getTimesShown())
+                        .timesShown(timesShown)
                         .build());
             }
         }
@@ -167,142 +328,92 @@ public class LearningServiceImpl implements LearningService {
                 .build();
     }
 
-    private TopicProgress ensureTopicProgressExistsAndGenerateInsights(UserDomainProgress userDomainProgress,
-                                                                       String domainName, String topicName, int level,
-                                                                       TopicPerformanceDataDTO performanceDataForAi) {
-        TopicProgress topicProgress = topicProgressRepository
-                .findByUserDomainProgressIdAndTopicNameAndLevel(userDomainProgress.getId(), topicName, level)
-                .orElseGet(() -> {
-                    logger.info("Creating new TopicProgress for user {}, topic {}, level {}.", userDomainProgress.getUser().getId(), topicName, level);
-                    return topicProgressRepository.save(TopicProgress.builder()
-                            .userDomainProgress(userDomainProgress)
-                            .topicName(topicName)
-                            .level(level)
-                            .insightsGenerated(false)
-                            .completedInsightsCount(0)
-                            .requiredInsightsForLevelCompletion(DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION)
-                            .startedAt(LocalDateTime.now())
-                            .build());
-                });
-
-        long insightsInDbForThisTopicLevel = insightRepository.countByTopicProgressId(topicProgress.getId());
-        boolean needsGeneration = insightsInDbForThisTopicLevel < topicProgress.getRequiredInsightsForLevelCompletion()/* || performanceDataForAi != null*/;
-
-        if (needsGeneration) {
-            if (insightsInDbForThisTopicLevel > 0) {
-                logger.info("Clearing {} existing insights for topic {}, level {} before adaptive regeneration.", insightsInDbForThisTopicLevel, topicName, level);
-                List<InsightEntity> oldInsights = insightRepository.findByTopicProgressId(topicProgress.getId());
-                if (!oldInsights.isEmpty()) {
-                    for (InsightEntity oldInsight : oldInsights) {
-                        userAnswerRepository.deleteByQuestionInsightId(oldInsight.getId());
-                        questionRepository.deleteByInsightId(oldInsight.getId());
-                    }
-                    insightRepository.deleteAll(oldInsights);
-                    topicProgress.getInsights().clear();
-                    topicProgress.setCompletedInsightsCount(0);
-                }
-            }
-
-            logger.info("Requesting AI to generate insights for user {}, topic {}, level {}.", userDomainProgress.getUser().getId(), topicName, level);
-            List<InsightGenerationRequestDTO.InsightDetailDTO> generatedInsightDetails =
-                    aiIntegrationService.generateInsightsForTopic(
-                            domainName, topicName, level, userDomainProgress.getUser().getId(),
-                            performanceDataForAi
-                    );
-
-            if (generatedInsightDetails.isEmpty() && DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION > 0) {
-                logger.warn("AI returned no insights for topic {}, level {}. This might be an issue.", topicName, level);
-            }
-
-            List<InsightEntity> newInsights = new ArrayList<>();
-            for (InsightGenerationRequestDTO.InsightDetailDTO detailDTO : generatedInsightDetails) {
-                InsightEntity insight = InsightEntity.builder()
-                        .topicProgress(topicProgress)
-                        .title(detailDTO.getTitle())
-                        .explanation(detailDTO.getExplanation())
-                        .aiMetadata(convertMapToJson(detailDTO.getAiMetadata()))
-                        .level(level)
-                        .completed(false)
-                        .relevanceScore(0.5 + (Math.random() * 0.5))
-                        .timesShown(0)
-                        .build();
-
-                List<QuestionEntity> questions = new ArrayList<>();
-                if (detailDTO.getQuestions() != null) {
-                    for (InsightGenerationRequestDTO.QuestionDetailDTO qDto : detailDTO.getQuestions()) {
-                        questions.add(QuestionEntity.builder()
-                                .insight(insight)
-                                .questionType(qDto.getQuestionType())
-                                .questionText(qDto.getQuestionText())
-                                .options(qDto.getOptions() != null ? new ArrayList<>(qDto.getOptions()) : Collections.emptyList())
-                                .correctAnswer(qDto.getCorrectAnswer())
-                                .answerFeedbacks(qDto.getAnswerFeedbacks() != null ? new HashMap<>(qDto.getAnswerFeedbacks()) : Collections.emptyMap())
-                                .build());
-                    }
-                }
-                insight.setQuestions(questions);
-                newInsights.add(insight);
-            }
-            insightRepository.saveAll(newInsights); // Batch save
+    @Override
+    public InsightDTO getNextInsight(Long userId, Long domainId) {
+        CurrentTopic current = loadCurrentTopic(userId, domainId);
 
-            topicProgress.getInsights().addAll(newInsights);
-            topicProgress.setRequiredInsightsForLevelCompletion(Math.max(newInsights.size(), DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION));
-            if (newInsights.isEmpty() && DEFAULT_INSIGHTS_PER_LEVEL_COMPLETION > 0) {
-                topicProgress.setRequiredInsightsForLevelCompletion(0);
-            } else {
-                topicProgress.setRequiredInsightsForLevelCompletion(newInsights.size());
+        if (!current.insightsGenerated()) {
+            // Creates the progress row if missing, or regenerates if somehow missed
+            GenerationJobDTO job = requestInsights(userId, current.userDomainProgressId(), current.domainName(), current.topicName(), current.level(), null);
+            if (job != null) {
+                throw new GenerationPendingException(job);
             }
-        } else {
-            logger.info("Insights already generated and meet requirements for topic {}, level {}. Count: {}", topicName, level, insightsInDbForThisTopicLevel);
         }
-        topicProgress.setInsightsGenerated(true);
-        return topicProgressRepository.save(topicProgress);
-    }
-
-
 
+        return transactionTemplate.execute(status -> {
+            TopicProgress currentTopicProgress = topicProgressRepository
+                    .findByUserDomainProgressIdAndTopicNameAndLevel(current.userDomainProgressId(), current.topicName(), current.level())
+                    .orElseThrow(() -> new NotFoundException("Topic progress not found for " + current.topicName() + " level " + current.level()));
+            return pickNextInsight(userId, current.topicName(), currentTopicProgress);
+        });
+    }
 
     @Override
-    @Transactional
-    public InsightDTO getNextInsight(Long userId, Long domainId) {
-        UserDomainProgress userDomainProgress = userDomainProgressRepository.findByUserIdAndDomainId(userId, domainId)
-                .orElseThrow(() -> new NotFoundException("User progress not found for domain. Please start the domain first."));
-
-        LearningPathDTO learningPath = parseLearningPathJson(userDomainProgress.getLearningPathJson());
-        if (learningPath == null || learningPath.getTopics() == null || learningPath.getTopics().isEmpty()) {
-            throw new NotFoundException("Learning path not defined or empty for this domain.");
+    public void streamInsights(Long userId, Long domainId, Consumer<InsightDTO> onInsightReady) {
+        CurrentTopic current = loadCurrentTopic(userId, domainId);
+        // Generates inline even when requests are queued: the client already waits on an open stream, and if a queued
+        // job got to the level first, the generation lease makes this call relay that job's insights instead
+        GenerationTargetDTO target = insightGenerationService.reserveTopicLevel(
+                current.userDomainProgressId(), current.domainName(), current.topicName(), current.level());
+
+        Set<Long> relayed = new HashSet<>();
+        Consumer<Long> relay = insightId -> {
+            if (!relayed.add(insightId)) return;
+            InsightDTO insight = transactionTemplate.execute(status -> insightRepository.findWithQuestionsById(insightId)
+                    .filter(entity -> !entity.isCompleted())
+                    .map(this::mapToInsightDTO)
+                    .orElse(null));
+            if (insight != null) {
+                onInsightReady.accept(insight);
+            }
+        };
+        if (target.isNeedsGeneration()) {
+            insightGenerationService.generateAndPersist(target, null, relay);
         }
+        // Whatever was already in place, or arrived without being reported, is sent last
+        List<Long> uncompletedIds = insightRepository.findSelectionCandidatesForTopic(target.getTopicProgressId()).stream()
+                .map(SimpleInsightInfoDTO::getInsightId)
+                .toList();
+        uncompletedIds.forEach(relay);
+    }
 
-        String currentTopicName = learningPath.getTopics().get(userDomainProgress.getCurrentTopicIndex());
-        TopicProgress currentTopicProgress = topicProgressRepository
-                .findByUserDomainProgressIdAndTopicNameAndLevel(userDomainProgress.getId(), currentTopicName, getCurrentLevelForTopic(userDomainProgress, currentTopicName))
-                .orElseGet(() -> ensureTopicProgressExistsAndGenerateInsights(userDomainProgress, learningPath.getDomainName(), currentTopicName, getCurrentLevelForTopic(userDomainProgress, currentTopicName)));
+    private CurrentTopic loadCurrentTopic(Long userId, Long domainId) {
+        return transactionTemplate.execute(status -> {
+            UserDomainProgress userDomainProgress = userDomainProgressRepository.findByUserIdAndDomainId(userId, domainId)
+                    .orElseThrow(() -> new NotFoundException("User progress not found for domain. Please start the domain first."));
 
+            LearningPathDTO learningPath = parseLearningPathJson(userDomainProgress.getLearningPathJson());
+            if (learningPath == null || learningPath.getTopics() == null || learningPath.getTopics().isEmpty()) {
+                throw new NotFoundException("Learning path not defined or empty for this domain.");
+            }
 
-        if (!currentTopicProgress.isInsightsGenerated()) {
-            ensureTopicProgressExistsAndGenerateInsights(userDomainProgress,learningPath.getDomainName(),currentTopicName,currentTopicProgress.getLevel()); // regenerate if somehow missed
-        }
+            String currentTopicName = learningPath.getTopics().get(userDomainProgress.getCurrentTopicIndex());
+            int currentLevel = getCurrentLevelForTopic(userDomainProgress, currentTopicName);
+            boolean insightsGenerated = topicProgressRepository
+                    .findCounters(userDomainProgress.getId(), currentTopicName, currentLevel)
+                    .map(tp -> tp.isInsightsGenerated() && !tp.isStaged())
+                    .orElse(false);
+            return new CurrentTopic(userDomainProgress.getId(), learningPath.getDomainName(), currentTopicName, currentLevel, insightsGenerated);
+        });
+    }
 
-        List<InsightEntity> uncompletedInsights = insightRepository.findUncompletedInsightsForTopic(currentTopicProgress.getId());
+    private InsightDTO pickNextInsight(Long userId, String currentTopicName, TopicProgress currentTopicProgress) {
+        List<SimpleInsightInfoDTO> simpleInsights = insightRepository.findSelectionCandidatesForTopic(currentTopicProgress.getId());
 
 
-        if (uncompletedInsights.isEmpty()) {
+        if (simpleInsights.isEmpty()) {
 
             logger.info("No uncompleted insights found for user {}, topic {}, level {}. Review might be available.", userId, currentTopicName, currentTopicProgress.getLevel());
             return null;
         }
 
-        List<SimpleInsightInfoDTO> simpleInsights = uncompletedInsights.stream()
-                .map(insight -> new SimpleInsightInfoDTO(insight.getId(), insight.getTitle(), insight.getRelevanceScore(), insight.getTimesShown()))
-                .collect(Collectors.toList());
-
         //Note: use this when you make further additions to python agents, this time we will use insight in order
         //NextInsightDTO nextInsightChoice = aiIntegrationService.getNextInsight(userId, currentTopicProgress.getId(), simpleInsights);
         NextInsightDTO nextInsightChoice = null;
         if (nextInsightChoice == null || nextInsightChoice.getInsightId() == null) {
             logger.error("AI service did not return a next insight for user {}, topic {}", userId, currentTopicName);
-            if(!uncompletedInsights.isEmpty()){
-                nextInsightChoice = new NextInsightDTO(uncompletedInsights.get(0).getId());
+            if(!simpleInsights.isEmpty()){
+                nextInsightChoice = new NextInsightDTO(simpleInsights.get(0).getInsightId());
                 logger.warn("Falling back to first uncompleted insight ID: {}", nextInsightChoice.getInsightId());
             } else {
                 throw new NotFoundException("No next insight could be determined, and no uncompleted insights available.");
@@ -310,7 +421,7 @@ public class LearningServiceImpl implements LearningService {
         }
 
         NextInsightDTO finalNextInsightChoice = nextInsightChoice;
-        InsightEntity chosenInsight = insightRepository.findById(nextInsightChoice.getInsightId())
+        InsightEntity chosenInsight = insightRepository.findWithQuestionsById(nextInsightChoice.getInsightId())
                 .orElseThrow(() -> new NotFoundException("Chosen insight not found with ID: " + finalNextInsightChoice.getInsightId()));
 
         chosenInsight.setTimesShown(chosenInsight.getTimesShown() + 1);
@@ -345,12 +456,10 @@ public class LearningServiceImpl implements LearningService {
 
         InsightEntity insight = question.getInsight();
         if (!insight.isCompleted()) {
-            long answersForThisInsight = userAnswerRepository.findByUserIdAndQuestionInsightId(userId, insight.getId()).stream()
-                    .map(UserAnswer::getQuestion)
-                    .distinct() // count distinct questions answered for this insight
-                    .count();
+            // Distinct questions answered for this insight, counted without loading answers or questions
+            long answersForThisInsight = userAnswerRepository.countAnsweredQuestionsByUserIdAndInsightId(userId, insight.getId());
 
-            if (answersForThisInsight >= insight.getQuestions().size()) {
+            if (answersForThisInsight >= questionRepository.countByInsightId(insight.getId())) {
                 insight.setCompleted(true);
                 insightRepository.save(insight);
                 logger.info("Insight {} marked as completed for user {}", insight.getId(), userId);
@@ -360,6 +469,13 @@ public class LearningServiceImpl implements LearningService {
                 topicProgressRepository.save(topicProgress);
                 logger.info("Topic {} progress updated: {} insights completed for user {}",
                         topicProgress.getTopicName(), topicProgress.getCompletedInsightsCount(), userId);
+
+                if (prefetchEnabled && reachedPrefetchThreshold(topicProgress)) {
+                    schedulePregeneration(userId, topicProgress);
+                }
+                if (precomputeReviews && topicProgress.getCompletedInsightsCount() == topicProgress.getRequiredInsightsForLevelCompletion()) {
+                    scheduleReviewPrecompute(userId, topicProgress);
+                }
             }
         }
 
@@ -367,6 +483,73 @@ public class LearningServiceImpl implements LearningService {
         return new AnswerFeedbackDTO(question.getId(), submission.getSelectedAnswer(), isCorrect, question.getCorrectAnswer(), feedbackText);
     }
 
+    // True exactly once per level: when the completed count first reaches the trigger ratio
+    private boolean reachedPrefetchThreshold(TopicProgress topicProgress) {
+        int required = topicProgress.getRequiredInsightsForLevelCompletion();
+        if (required <= 0) return false;
+        int threshold = Math.max(1, Math.min(required, (int) Math.ceil(prefetchTriggerRatio * required)));
+        return topicProgress.getCompletedInsightsCount() == threshold;
+    }
+
+    private void schedulePregeneration(Long userId, TopicProgress topicProgress) {
+        UserDomainProgress udp = topicProgress.getUserDomainProgress();
+        LearningPathDTO learningPath = parseLearningPathJson(udp.getLearningPathJson());
+        if (learningPath == null || learningPath.getTopics() == null) return;
+
+        List<PendingGeneration> targets = new ArrayList<>();
+        String topicName = topicProgress.getTopicName();
+        if (getCurrentLevelForTopic(udp, topicName) == topicProgress.getLevel()) {
+            // Next level, adapted to the answers given so far in this level
+            targets.add(new PendingGeneration(udp.getId(), learningPath.getDomainName(), topicName, topicProgress.getLevel() + 1,
+                    gatherInsightPerformanceData(userId, learningPath.getDomainName(), topicName, topicProgress.getLevel(), topicProgress)));
+        }
+        int topicIndex = learningPath.getTopics().indexOf(topicName);
+        for (int ahead = 1; topicIndex >= 0 && ahead <= prefetchLookaheadTopics && topicIndex + ahead < learningPath.getTopics().size(); ahead++) {
+            String nextTopic = learningPath.getTopics().get(topicIndex + ahead);
+            boolean untouched = udp.getTopicProgresses().stream().noneMatch(tp -> tp.getTopicName().equals(nextTopic));
+            if (untouched) {
+                targets.add(new PendingGeneration(udp.getId(), learningPath.getDomainName(), nextTopic, 1, null));
+            }
+        }
+        if (targets.isEmpty()) return;
+
+        // Queue only once the answer is committed; the worker stages the levels so they stay invisible until reached
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (PendingGeneration target : targets) {
+                    try {
+                        generationJobService.enqueueInsights(userId, target.userDomainProgressId(), target.domainName(),
+                                target.topicName(), target.level(), target.performanceData(), GenerationPriority.PREFETCH);
+                    } catch (Exception e) {
+                        logger.warn("Could not queue pre-generation of topic {} level {} for user {}: {}",
+                                target.topicName(), target.level(), userId, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void scheduleReviewPrecompute(Long userId, TopicProgress topicProgress) {
+        UserDomainProgress udp = topicProgress.getUserDomainProgress();
+        if (getCurrentLevelForTopic(udp, topicProgress.getTopicName()) != topicProgress.getLevel()) return;
+        Long domainId = udp.getDomain().getId();
+
+        // The job reads the completed level, so it is queued only after this transaction commits
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    generationJobService.enqueueReview(userId, domainId, udp.getId(), topicProgress.getTopicName(), topicProgress.getLevel(),
+                            GenerationPriority.PREFETCH);
+                } catch (Exception e) {
+                    logger.warn("Could not queue review precompute for topic {} level {} for user {}: {}",
+                            topicProgress.getTopicName(), topicProgress.getLevel(), userId, e.getMessage());
+                }
+            }
+        });
+    }
+
     @Override
     @Transactional(readOnly = true)
     public TopicProgressDTO getTopicProgress(Long userId, Long domainId) {
@@ -380,8 +563,8 @@ public class LearningServiceImpl implements LearningService {
         String currentTopicName = learningPath.getTopics().get(udp.getCurrentTopicIndex());
         int currentLevel = getCurrentLevelForTopic(udp, currentTopicName);
 
-        TopicProgress topicProgress = topicProgressRepository
-                .findByUserDomainProgressIdAndTopicNameAndLevel(udp.getId(), currentTopicName, currentLevel)
+        TopicProgressCountersDTO topicProgress = topicProgressRepository
+                .findCounters(udp.getId(), currentTopicName, currentLevel)
                 .orElseThrow(() -> new NotFoundException("Topic progress not found for " + currentTopicName + " level " + currentLevel));
 
         boolean reviewAvailable = topicProgress.getCompletedInsightsCount() >= topicProgress.getRequiredInsightsForLevelCompletion();
@@ -391,21 +574,106 @@ public class LearningServiceImpl implements LearningService {
                 .level(topicProgress.getLevel())
                 .completedInsightsCount(topicProgress.getCompletedInsightsCount())
                 .totalInsightsInLevel(topicProgress.getRequiredInsightsForLevelCompletion())
-                .totalGeneratedInsightsForTopic((int) insightRepository.findByTopicProgressId(topicProgress.getId()).stream().count())
+                .totalGeneratedInsightsForTopic((int) insightRepository.countByTopicProgressId(topicProgress.getId()))
                 .reviewAvailable(reviewAvailable)
                 .build();
     }
 
 
     @Override
-    @Transactional(readOnly = true)
     public ReviewDTO getReview(Long userId, Long domainId) {
+        // Availability is validated before anything is queued, so an unfinished level is still refused synchronously (403)
+        PendingReview pending = transactionTemplate.execute(status -> preparePendingReview(userId, domainId));
+        if (pending.storedReview() != null) {
+            return pending.storedReview();
+        }
+        if (deferGeneration("/generate-review")) {
+            throw new GenerationPendingException(enqueueReview(userId, domainId, pending));
+        }
+        return finishReview(pending, aiIntegrationService.generateReview(userId, pending.topicProgressId(), pending.performanceData()));
+    }
+
+    @Override
+    public CompletableFuture<ReviewDTO> getReviewAsync(Long userId, Long domainId) {
+        // The two short transactions run on the review lane; the AI call between them holds no thread
+        return aiRequestBulkhead.submit(AiRequestBulkhead.REVIEW_LANE,
+                        () -> transactionTemplate.execute(status -> preparePendingReview(userId, domainId)))
+                .thenCompose(pending -> {
+                    if (pending.storedReview() != null) {
+                        return CompletableFuture.completedFuture(pending.storedReview());
+                    }
+                    if (deferGeneration("/generate-review")) {
+                        return CompletableFuture.failedFuture(new GenerationPendingException(enqueueReview(userId, domainId, pending)));
+                    }
+                    return aiIntegrationService
+                            .generateReviewAsync(userId, pending.topicProgressId(), pending.performanceData())
+                            .toFuture()
+                            .thenCompose(reviewDTO -> aiRequestBulkhead.resume(AiRequestBulkhead.REVIEW_LANE,
+                                    () -> finishReview(pending, reviewDTO)));
+                });
+    }
+
+    private GenerationJobDTO enqueueReview(Long userId, Long domainId, PendingReview pending) {
+        return generationJobService.enqueueReview(userId, domainId, pending.userDomainProgressId(), pending.topicName(),
+                pending.level(), GenerationPriority.INTERACTIVE);
+    }
+
+    // True when the request should answer 202 with a generation job: always in queued mode, otherwise while the
+    // AI service is over its latency or in-flight budget (the caller would only wait for a timeout and retry)
+    private boolean deferGeneration(String endpoint) {
+        return enqueueGenerationRequests || !aiAdmissionControl.tryAdmit(endpoint);
+    }
+
+    @Override
+    public ReviewDTO generateReview(Long userId, Long domainId, String topicName, Integer level) {
+        PendingReview pending = transactionTemplate.execute(status -> preparePendingReview(userId, domainId, topicName, level));
+        if (pending == null) {
+            logger.info("Skipping queued review of topic {} level {} for user {}: the learner has moved on", topicName, level, userId);
+            return null;
+        }
+        if (pending.storedReview() != null) {
+            return pending.storedReview();
+        }
+
+        ReviewDTO reviewDTO = aiIntegrationService.generateReview(
+                userId, pending.topicProgressId(), pending.performanceData());
+        return finishReview(pending, reviewDTO);
+    }
+
+    private ReviewDTO finishReview(PendingReview pending, ReviewDTO reviewDTO) {
+        reviewDTO.setRevisionQuestions(pending.revisionQuestions());
+        String reviewJson = reviewDTO.isFallback() ? null : toReviewJson(reviewDTO);
+
+        // Stored with the fingerprint taken before the AI call; answers given meanwhile make the next GET regenerate
+        transactionTemplate.executeWithoutResult(status -> topicProgressRepository.findById(pending.topicProgressId())
+                .ifPresent(topicProgress -> {
+                    topicProgress.setLastReviewedAt(LocalDateTime.now());
+                    if (reviewJson != null) {
+                        topicProgress.setReviewJson(reviewJson);
+                        topicProgress.setReviewAnswersFingerprint(pending.answersFingerprint());
+                    }
+                    topicProgressRepository.save(topicProgress);
+                }));
+
+        return reviewDTO;
+    }
+
+    private PendingReview preparePendingReview(Long userId, Long domainId) {
+        return preparePendingReview(userId, domainId, null, null);
+    }
+
+    // With an expected topic level (a queued review), returns null when the learner's current level is another one
+    private PendingReview preparePendingReview(Long userId, Long domainId, String expectedTopicName, Integer expectedLevel) {
         UserDomainProgress udp = userDomainProgressRepository
                 .findByUserIdAndDomainId(userId, domainId)
                 .orElseThrow(() -> new NotFoundException("User progress not found for this domain."));
         LearningPathDTO learningPath = parseLearningPathJson(udp.getLearningPathJson());
         String currentTopicName = learningPath.getTopics().get(udp.getCurrentTopicIndex());
         int currentLevel       = getCurrentLevelForTopic(udp, currentTopicName);
+        if (expectedTopicName != null && (!expectedTopicName.equals(currentTopicName)
+                || (expectedLevel != null && expectedLevel != currentLevel))) {
+            return null;
+        }
 
         TopicProgress topicProgress = topicProgressRepository
                 .findByUserDomainProgressIdAndTopicNameAndLevel(
@@ -415,6 +683,16 @@ public class LearningServiceImpl implements LearningService {
         if (topicProgress.getCompletedInsightsCount() < topicProgress.getRequiredInsightsForLevelCompletion()) {
             throw new IllegalStateException("Review is not yet available. Not enough insights completed.");
         }
+
+        // Same answers as when the stored review was generated: serve it without another AI call
+        String answersFingerprint = answersFingerprint(userId, topicProgress.getId());
+        ReviewDTO storedReview = readStoredReview(topicProgress, answersFingerprint);
+        if (storedReview != null) {
+            logger.debug("Serving stored review for topic progress {}", topicProgress.getId());
+            return new PendingReview(udp.getId(), currentTopicName, currentLevel, topicProgress.getId(),
+                    null, null, answersFingerprint, storedReview);
+        }
+
         TopicPerformanceDataDTO performanceDto =
                 gatherInsightPerformanceData(userId, learningPath.getDomainName(),
                         currentTopicName, currentLevel, topicProgress);
@@ -460,32 +738,53 @@ public class LearningServiceImpl implements LearningService {
         performanceDataForReview.put("totalCorrectAnswers",    totalCorrectAnswers);
         performanceDataForReview.put("answeredQuestions",      answeredQuestions);
 
-        ReviewDTO reviewDTO = aiIntegrationService.generateReview(
-                userId, topicProgress.getId(), performanceDataForReview);
-
-        List<QuestionDTO> completedQuestions = userAnswerRepository.findByUserId(userId).stream()
-                .filter(ans -> ans.getQuestion().getInsight()
-                        .getTopicProgress().getId().equals(topicProgress.getId()))
-                .map(UserAnswer::getQuestion)
-                .distinct()
+        // Sampled in the database: three random questions of this level the user has answered
+        List<Long> revisionQuestionIds = userAnswerRepository.sampleAnsweredQuestionIds(userId, topicProgress.getId(), 3);
+        Map<Long, QuestionEntity> revisionQuestions = questionRepository.findAllById(revisionQuestionIds).stream()
+                .collect(Collectors.toMap(QuestionEntity::getId, question -> question));
+        List<QuestionDTO> completedQuestions = revisionQuestionIds.stream()
+                .map(revisionQuestions::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToQuestionDTO)
                 .collect(Collectors.toList());
-        Collections.shuffle(completedQuestions);
-        reviewDTO.setRevisionQuestions(
-                completedQuestions.stream().limit(3).collect(Collectors.toList()));
 
-        topicProgress.setLastReviewedAt(LocalDateTime.now());
-        topicProgressRepository.save(topicProgress);
+        return new PendingReview(udp.getId(), currentTopicName, currentLevel, topicProgress.getId(), performanceDataForReview,
+                completedQuestions, answersFingerprint, null);
+    }
 
-        return reviewDTO;
+    // SHA-256 over the level's answers (id, question, selected answer); any new or removed answer changes it
+    private String answersFingerprint(Long userId, Long topicProgressId) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object[] answer : userAnswerRepository.findAnswerKeysByUserIdAndTopicProgressId(userId, topicProgressId)) {
+            canonical.append(answer[0]).append(':').append(answer[1]).append('=').append(answer[2]).append('|');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
-    private String questionTextToConcept(String questionText) {
-        if (questionText.toLowerCase().contains("what is")) {
-            return questionText.substring(questionText.toLowerCase().indexOf("what is") + "what is".length()).replace("?", "").trim();
+    private ReviewDTO readStoredReview(TopicProgress topicProgress, String answersFingerprint) {
+        if (topicProgress.getReviewJson() == null || !answersFingerprint.equals(topicProgress.getReviewAnswersFingerprint())) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(topicProgress.getReviewJson(), ReviewDTO.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Discarding unreadable stored review for topic progress {}", topicProgress.getId(), e);
+            return null;
+        }
+    }
+
+    private String toReviewJson(ReviewDTO reviewDTO) {
+        try {
+            return objectMapper.writeValueAsString(reviewDTO);
+        } catch (JsonProcessingException e) {
+            logger.error("Error converting review to JSON; it will not be stored", e);
+            return null;
         }
-        if (questionText.length() > 30) return questionText.substring(0, 30) + "...";
-        return questionText;
     }
 
     private InsightGenerationRequestDTO.QuestionDetailDTO mapToQuestionDetailDTO(QuestionEntity q) {
@@ -500,53 +799,49 @@ public class LearningServiceImpl implements LearningService {
 
 
     @Override
-    @Transactional
     public void completeReviewAndAdvance(Long userId, Long domainId, boolean satisfactoryPerformance) {
-        UserDomainProgress udp = userDomainProgressRepository.findByUserIdAndDomainId(userId, domainId)
-                .orElseThrow(() -> new NotFoundException("User progress not found."));
-        LearningPathDTO learningPath = parseLearningPathJson(udp.getLearningPathJson());
-        String currentTopicName = learningPath.getTopics().get(udp.getCurrentTopicIndex());
-        int currentLevel = getCurrentLevelForTopic(udp, currentTopicName);
-        TopicProgress currentTopicProgress = topicProgressRepository
-                .findByUserDomainProgressIdAndTopicNameAndLevel(udp.getId(), currentTopicName, currentLevel)
-                .orElseThrow(() -> new NotFoundException("Current topic progress not found."));
-
-        // Gather performance data for the level just completed/reviewed
-        TopicPerformanceDataDTO performanceDataFromCompletedLevel = gatherInsightPerformanceData(userId, learningPath.getDomainName(), currentTopicName, currentLevel, currentTopicProgress);
+        PendingGeneration pending = transactionTemplate.execute(status -> {
+            UserDomainProgress udp = userDomainProgressRepository.findByUserIdAndDomainId(userId, domainId)
+                    .orElseThrow(() -> new NotFoundException("User progress not found."));
+            LearningPathDTO learningPath = parseLearningPathJson(udp.getLearningPathJson());
+            String currentTopicName = learningPath.getTopics().get(udp.getCurrentTopicIndex());
+            int currentLevel = getCurrentLevelForTopic(udp, currentTopicName);
+            TopicProgress currentTopicProgress = topicProgressRepository
+                    .findByUserDomainProgressIdAndTopicNameAndLevel(udp.getId(), currentTopicName, currentLevel)
+                    .orElseThrow(() -> new NotFoundException("Current topic progress not found."));
+
+            // Gather performance data for the level just completed/reviewed
+            TopicPerformanceDataDTO performanceDataFromCompletedLevel = gatherInsightPerformanceData(userId, learningPath.getDomainName(), currentTopicName, currentLevel, currentTopicProgress);
+
+            if (!satisfactoryPerformance) {
+                logger.info("User {} performance unsatisfactory for topic {} level {}. Will regenerate insights for reinforcement.", userId, currentTopicName, currentLevel);
+                currentTopicProgress.setCompletedInsightsCount(0); // Reset count for this level
+                currentTopicProgress.setCompletedAt(null); // Not completed
+                currentTopicProgress.setLastReviewedAt(LocalDateTime.now()); // Mark review time
+                topicProgressRepository.save(currentTopicProgress);
+                // Level-up content pre-generated during this attempt no longer applies
+                insightGenerationService.discardStagedLevel(udp.getId(), currentTopicName, currentLevel + 1);
+                // Insights will be regenerated with adaptation based on performanceDataFromCompletedLevel
+                return new PendingGeneration(udp.getId(), learningPath.getDomainName(), currentTopicName, currentLevel, performanceDataFromCompletedLevel);
+            }
 
-        if (!satisfactoryPerformance) {
-            logger.info("User {} performance unsatisfactory for topic {} level {}. Will regenerate insights for reinforcement.", userId, currentTopicName, currentLevel);
-            // Insights themselves are cleared and regenerated by ensureTopicProgress... if logic is correct
-            currentTopicProgress.setCompletedInsightsCount(0); // Reset count for this level
-            currentTopicProgress.setCompletedAt(null); // Not completed
-            currentTopicProgress.setLastReviewedAt(LocalDateTime.now()); // Mark review time
-            // Insights will be regenerated with adaptation based on performanceDataFromCompletedLevel
-            ensureTopicProgressExistsAndGenerateInsights(udp, learningPath.getDomainName(), currentTopicName, currentLevel, performanceDataFromCompletedLevel);
+            // Satisfactory performance: Mark current level complete and advance
+            currentTopicProgress.setCompletedAt(LocalDateTime.now());
             topicProgressRepository.save(currentTopicProgress);
-            return;
-        }
-
-        // Satisfactory performance: Mark current level complete and advance
-        currentTopicProgress.setCompletedAt(LocalDateTime.now());
-        topicProgressRepository.save(currentTopicProgress);
-
-        int nextLevel = currentLevel + 1;
-        logger.info("User {} advancing to level {} for topic {}.", userId, nextLevel, currentTopicName);
-        ensureTopicProgressExistsAndGenerateInsights(udp, learningPath.getDomainName(), currentTopicName, nextLevel, performanceDataFromCompletedLevel);
 
-    }
+            int nextLevel = currentLevel + 1;
+            logger.info("User {} advancing to level {} for topic {}.", userId, nextLevel, currentTopicName);
+            return new PendingGeneration(udp.getId(), learningPath.getDomainName(), currentTopicName, nextLevel, performanceDataFromCompletedLevel);
+        });
 
-    private TopicProgress ensureTopicProgressExistsAndGenerateInsights(UserDomainProgress userDomainProgress, String domainName, String topicName, int level) {
-        logger.debug("ensureTopicProgressExistsAndGenerateInsights called without explicit performance data for {} L{}. Generating insights with default adaptation planning.", topicName, level);
-        TopicPerformanceDataDTO defaultPerformanceData = TopicPerformanceDataDTO.builder()
-                .userId(userDomainProgress.getUser().getId())
-                .domainName(domainName)
-                .topicName(topicName)
-                .currentLevel(level)
-                .insightsPerformance(Collections.emptyList())
-                .assessmentAnswers(Collections.emptyList()) // No specific assessment answers for this context
-                .build();
-        return ensureTopicProgressExistsAndGenerateInsights(userDomainProgress, domainName, topicName, level, defaultPerformanceData);
+        if (!satisfactoryPerformance) {
+            generationJobService.cancelInsights(pending.userDomainProgressId(), pending.topicName(), pending.level() + 1);
+        }
+        GenerationJobDTO job = requestInsights(userId, pending.userDomainProgressId(), pending.domainName(),
+                pending.topicName(), pending.level(), pending.performanceData());
+        if (job != null) {
+            throw new GenerationPendingException(job);
+        }
     }
 
     // --- Helper Methods ---
@@ -584,33 +879,12 @@ public class LearningServiceImpl implements LearningService {
 
     private int getCurrentLevelForTopic(UserDomainProgress udp, String topicName) {
         return udp.getTopicProgresses().stream()
-                .filter(tp -> tp.getTopicName().equals(topicName))
+                .filter(tp -> tp.getTopicName().equals(topicName) && !tp.isStaged())
                 .mapToInt(TopicProgress::getLevel)
                 .max()
                 .orElse(1);
     }
 
-    private double calculateAccuracyForTopic(Long userId, Long topicProgressId) {
-        List<InsightEntity> insightsInTopic = insightRepository.findByTopicProgressId(topicProgressId);
-        if (insightsInTopic.isEmpty()) return 0.0;
-
-        List<Long> questionIdsInTopic = insightsInTopic.stream()
-                .flatMap(i -> i.getQuestions().stream())
-                .map(QuestionEntity::getId)
-                .collect(Collectors.toList());
-
-        if (questionIdsInTopic.isEmpty()) return 0.0;
-
-        List<UserAnswer> answers = userAnswerRepository.findByUserId(userId).stream()
-                .filter(ua -> questionIdsInTopic.contains(ua.getQuestion().getId()))
-                .toList();
-
-        if (answers.isEmpty()) return 0.0; // No answers yet for this topic
-
-        long correctAnswers = answers.stream().filter(UserAnswer::isCorrect).count();
-        return (double) correctAnswers / answers.size();
-    }
-
 
     private DomainDTO mapToDomainDTO(DomainEntity entity) {
         DomainDTO dto = new DomainDTO();
@@ -658,42 +932,35 @@ public class LearningServiceImpl implements LearningService {
 
         LearningPathDTO lp = parseLearningPathJson(udp.getLearningPathJson());
 
-        int currentIdx = udp.getCurrentTopicIndex();
-        TopicProgress currentTp = topicProgressRepository.findByUserDomainProgressIdAndTopicNameAndLevel(
-                udp.getId(),
-                lp.getTopics().get(currentIdx),
-                getCurrentLevelForTopic(udp, lp.getTopics().get(currentIdx))).orElse(null);
-        boolean currentReviewDone = currentTp != null && currentTp.getCompletedInsightsCount() >= currentTp.getRequiredInsightsForLevelCompletion();
+        // Built from one aggregate query; topics without progress rows are at level 1 with nothing completed
+        Map<String, TopicLevelSummaryDTO> summaries = topicProgressRepository.findCurrentLevelSummaries(udp.getId()).stream()
+                .collect(Collectors.toMap(TopicLevelSummaryDTO::getTopicName, summary -> summary, (first, second) -> first));
 
         List<String> topicsList = lp.getTopics();
         List<TopicOverviewDTO> topics = new ArrayList<>();
         for(int idx=0; idx<topicsList.size(); idx++){
-            String name = lp.getTopics().get(idx);
-            int level = getCurrentLevelForTopic(udp, name);
+            String name = topicsList.get(idx);
+            TopicLevelSummaryDTO summary = summaries.get(name);
+            int level = summary == null ? 1 : summary.getLevel();
 
             boolean current   = idx == udp.getCurrentTopicIndex();
 
-            TopicProgress tp = topicProgressRepository
-                    .findByUserDomainProgressIdAndTopicNameAndLevel(udp.getId(), name, level)
-                    .orElse(null);
-
-            boolean reviewAvailable = tp != null &&
-                    tp.getCompletedInsightsCount() >= tp.getRequiredInsightsForLevelCompletion();
+            boolean reviewAvailable = summary != null &&
+                    summary.getCompletedInsights() >= summary.getRequiredInsights();
             boolean unlocked;
             if (level >= 2) {
                 unlocked = true;
             } else if (idx == 0) {
                 unlocked = true;
             } else {
-                String prevTopic = topicsList.get(idx - 1);
-                int prevLevel = getCurrentLevelForTopic(udp, prevTopic);
-                unlocked = prevLevel >= 2;
+                TopicLevelSummaryDTO prev = summaries.get(topicsList.get(idx - 1));
+                unlocked = prev != null && prev.getLevel() >= 2;
             }
             topics.add(TopicOverviewDTO.builder()
                     .topicName(name)
                     .level(level)
-                    .completedInsights(tp==null?0:tp.getCompletedInsightsCount())
-                    .requiredInsights(tp==null?6:tp.getRequiredInsightsForLevelCompletion())
+                    .completedInsights(summary==null?0:summary.getCompletedInsights())
+                    .requiredInsights(summary==null?6:summary.getRequiredInsights())
                     .reviewAvailable(reviewAvailable)
                     .unlocked(unlocked)
                     .current(current)
@@ -707,18 +974,23 @@ public class LearningServiceImpl implements LearningService {
     }
 
     @Override
-    @Transactional
     public void selectTopic(Long userId, Long domainId, int topicIndex){
-        UserDomainProgress udp = userDomainProgressRepository.findByUserIdAndDomainId(userId, domainId)
-                .orElseThrow(() -> new NotFoundException("Progress not found"));
-        LearningPathDTO lp = parseLearningPathJson(udp.getLearningPathJson());
-        if(topicIndex<0 || topicIndex>=lp.getTopics().size()) throw new IllegalArgumentException("Bad topic index");
-
-        udp.setCurrentTopicIndex(topicIndex);
-        userDomainProgressRepository.save(udp);
+        PendingGeneration pending = transactionTemplate.execute(status -> {
+            UserDomainProgress udp = userDomainProgressRepository.findByUserIdAndDomainId(userId, domainId)
+                    .orElseThrow(() -> new NotFoundException("Progress not found"));
+            LearningPathDTO lp = parseLearningPathJson(udp.getLearningPathJson());
+            if(topicIndex<0 || topicIndex>=lp.getTopics().size()) throw new IllegalArgumentException("Bad topic index");
+
+            udp.setCurrentTopicIndex(topicIndex);
+            userDomainProgressRepository.save(udp);
+            String currentTopicName = lp.getTopics().get(topicIndex);
+            return new PendingGeneration(udp.getId(), lp.getDomainName(), currentTopicName, getCurrentLevelForTopic(udp, currentTopicName), null);
+        });
         // ensure progress rows & first insights exist
-        String currentTopicName = lp.getTopics().get(topicIndex);
-        ensureTopicProgressExistsAndGenerateInsights(udp, lp.getDomainName(), lp.getTopics().get(topicIndex), getCurrentLevelForTopic(udp, currentTopicName));
+        GenerationJobDTO job = requestInsights(userId, pending.userDomainProgressId(), pending.domainName(), pending.topicName(), pending.level(), null);
+        if (job != null) {
+            throw new GenerationPendingException(job);
+        }
     }
 
     @Override
@@ -764,10 +1036,6 @@ public class LearningServiceImpl implements LearningService {
     @Transactional(readOnly = true)
     public int countCompletedInsights(Long userId) {
         // Sum the completed insight counters on every TopicProgress
-        return userDomainProgressRepository.findByUserId(userId)
-                .stream()
-                .flatMap(udp -> udp.getTopicProgresses().stream())
-                .mapToInt(TopicProgress::getCompletedInsightsCount)
-                .sum();
+        return (int) topicProgressRepository.sumCompletedInsightsByUserId(userId);
     }
 }
\ No newline at end of file
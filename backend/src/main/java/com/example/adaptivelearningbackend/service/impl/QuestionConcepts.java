@@ -0,0 +1,19 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+/**
+ * Short concept labels derived from question text, used where a question is referred to by what it asks about
+ * (review weaknesses, missed concepts in the compact performance payload) instead of its full text.
+ */
+final class QuestionConcepts {
+
+    private QuestionConcepts() {
+    }
+
+    static String of(String questionText) {
+        if (questionText.toLowerCase().contains("what is")) {
+            return questionText.substring(questionText.toLowerCase().indexOf("what is") + "what is".length()).replace("?", "").trim();
+        }
+        if (questionText.length() > 30) return questionText.substring(0, 30) + "...";
+        return questionText;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one upstream call. The first caller starts the call;
+ * callers arriving while it is in flight join it and receive the same result (or error).
+ * Each caller waits with its own timeout; a caller giving up does not cancel the shared call.
+ */
+class SingleFlight {
+
+    private final ConcurrentHashMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Duration joinTimeout;
+    private final MeterRegistry meterRegistry;
+
+    SingleFlight(Duration joinTimeout, MeterRegistry meterRegistry) {
+        this.joinTimeout = joinTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    <T> T execute(String key, Supplier<Mono<T>> call) {
+        return join(key, call).block();
+    }
+
+    // Non-blocking variant: the returned Mono completes with the shared result, or fails after the join timeout
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> join(String key, Supplier<Mono<T>> call) {
+        AtomicBoolean leader = new AtomicBoolean(false);
+        Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+            leader.set(true);
+            AtomicReference<Mono<T>> self = new AtomicReference<>();
+            // cache() replays the outcome to every joiner and keeps running when one of them cancels
+            Mono<T> flight = Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(k, self.get()))
+                    .cache();
+            self.set(flight);
+            return flight;
+        });
+        meterRegistry.counter("ai.singleflight.calls", "role", leader.get() ? "leader" : "joiner").increment();
+        return shared.timeout(joinTimeout);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Generates level 1 of several topics at once. The first topic is generated for the learner and awaited;
+ * the others are staged alongside it and finish in the background.
+ * <p>
+ * The siblings share a deadline with the first topic: when the first topic fails, or the deadline passes, the
+ * unfinished siblings are cancelled. A failing sibling cancels nothing; its topic is generated when the learner
+ * selects it.
+ * <p>
+ * Cancelling interrupts the task's thread, which may be inside a JDBC or AI call. Nothing is left half written:
+ * every write is a short transaction of its own, the generation lease is released with the interrupt flag cleared
+ * (and expires after generation.lock.lease-seconds regardless), and an interrupted level stays as a staged row
+ * without insights, which is generated again when the learner reaches it.
+ */
+@Component
+public class TopicInsightFanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicInsightFanOut.class);
+    private static final String LANE = "topic fan-out";
+
+    private final InsightGenerationService insightGenerationService;
+    private final long deadlineSeconds;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+
+    public TopicInsightFanOut(InsightGenerationService insightGenerationService,
+                              @Value("${generation.fanout.threads:8}") int threads,
+                              @Value("${generation.fanout.deadline-seconds:120}") long deadlineSeconds,
+                              @Value("${bulkhead.ai.retry-after-seconds:5}") long retryAfterSeconds,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.insightGenerationService = insightGenerationService;
+        this.deadlineSeconds = deadlineSeconds;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(threads * 8),
+                WorkerThreads.factory("topic-fanout-", virtualThreads));
+    }
+
+    /**
+     * Generates the first entry of {@code topics} and stages the rest concurrently. Returns once the first topic is
+     * stored; throws when it fails or misses the deadline, after cancelling the siblings, and throws
+     * {@link BulkheadFullException} when the pool cannot take the first topic.
+     */
+    public void generateFirstLevels(Long userDomainProgressId, String domainName, List<TopicPerformanceDataDTO> topics) {
+        if (topics.isEmpty()) return;
+        String firstTopic = topics.get(0).getTopicName();
+
+        Future<?> first;
+        try {
+            first = executor.submit(() -> insightGenerationService.ensureInsights(
+                    userDomainProgressId, domainName, firstTopic, 1, topics.get(0)));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Fan-out pool is full; rejecting generation of topic {}.", firstTopic);
+            throw new BulkheadFullException(LANE, retryAfterSeconds);
+        }
+
+        List<Future<?>> siblings = new ArrayList<>();
+        for (TopicPerformanceDataDTO sibling : topics.subList(1, topics.size())) {
+            try {
+                siblings.add(executor.submit(() -> generateSibling(userDomainProgressId, domainName, sibling)));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Fan-out pool is full; topic {} will be generated when the learner selects it.", sibling.getTopicName());
+            }
+        }
+        // Deadline for the siblings, including those still running after the first topic returned
+        CompletableFuture.delayedExecutor(deadlineSeconds, TimeUnit.SECONDS).execute(() -> cancelUnfinished(siblings));
+
+        try {
+            first.get(deadlineSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            first.cancel(true);
+            cancelUnfinished(siblings);
+            throw new IllegalStateException("Generating insights for " + firstTopic + " exceeded " + deadlineSeconds + "s", e);
+        } catch (ExecutionException e) {
+            cancelUnfinished(siblings);
+            throw new IllegalStateException("Generating insights for " + firstTopic + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (CancellationException e) {
+            cancelUnfinished(siblings);
+            throw new IllegalStateException("Generating insights for " + firstTopic + " was cancelled", e);
+        } catch (InterruptedException e) {
+            first.cancel(true);
+            cancelUnfinished(siblings);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating insights", e);
+        }
+    }
+
+    private void generateSibling(Long userDomainProgressId, String domainName, TopicPerformanceDataDTO sibling) {
+        // The learner only waits for the first topic; siblings yield AI capacity to interactive calls
+        try (AiPriorityContext.Scope ignored = AiPriorityContext.enter(GenerationPriority.PREFETCH)) {
+            insightGenerationService.ensureInsightsInBackground(userDomainProgressId, domainName, sibling.getTopicName(), 1, sibling);
+        } catch (RuntimeException e) {
+            logger.warn("Staging topic {} failed; it will be generated when the learner selects it: {}", sibling.getTopicName(), e.getMessage());
+        }
+    }
+
+    private static void cancelUnfinished(List<Future<?>> futures) {
+        futures.stream().filter(future -> !future.isDone()).forEach(future -> future.cancel(true));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the executors this application owns (bulkhead lanes, job worker, topic fan-out).
+ * With {@code spring.threads.virtual.enabled=true} they create virtual threads, like Tomcat and the Spring
+ * task executors do; the pool sizes then only bound concurrency and no longer cost a platform thread each.
+ */
+final class WorkerThreads {
+
+    private WorkerThreads() {
+    }
+
+    static ThreadFactory factory(String namePrefix, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(namePrefix, 0).factory();
+        }
+        return Thread.ofPlatform().name(namePrefix, 0).daemon(true).factory();
+    }
+}
@@ -0,0 +1,14 @@
+-- Entities allocate ids in blocks of 50 (pooled optimizer); the sequences must advance by the same step.
+-- IF EXISTS: on a new database Hibernate creates the sequences afterwards, already with INCREMENT BY 50.
+-- Ids handed out so far stay below the next value, so existing rows keep their ids.
+ALTER SEQUENCE IF EXISTS assessment_question_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS domain_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS generation_job_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS insight_content_pool_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS insight_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS learning_path_cache_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS question_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS topic_progress_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS user_answer_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS user_domain_progress_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS user_id_seq INCREMENT BY 50;
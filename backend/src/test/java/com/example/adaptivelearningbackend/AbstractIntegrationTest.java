@@ -0,0 +1,109 @@
+package com.example.adaptivelearningbackend;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Base for tests against the whole application: a Postgres container and a WireMock server standing in for the
+ * Python AI service, started once and shared by every subclass (and so by Spring's cached context).
+ * Skipped where no Docker daemon is available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class AbstractIntegrationTest {
+
+    protected static final String AI_PATH = "/api/ai";
+
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+    protected static final AiCallGate aiCallGate = new AiCallGate();
+    // More request threads than the AI call scheduler lets through, so delayed stubs never queue inside WireMock
+    protected static final WireMockServer aiService = new WireMockServer(options().dynamicPort().containerThreads(100)
+            .extensions(aiCallGate));
+
+    @DynamicPropertySource
+    static void integrationProperties(DynamicPropertyRegistry registry) {
+        // Started here rather than by @Container so they outlive a single test class, like the cached context
+        postgres.start();
+        if (!aiService.isRunning()) aiService.start();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        registry.add("python.service.baseurl", () -> aiService.baseUrl() + AI_PATH);
+        registry.add("python.service.wire-format", () -> "json");
+        registry.add("generation.streaming.enabled", () -> "false");
+        registry.add("generation.content-pool.enabled", () -> "false");
+        // No background claims or prefetches competing with what a test measures
+        registry.add("generation.jobs.worker-enabled", () -> "false");
+        registry.add("generation.prefetch.enabled", () -> "false");
+    }
+
+    @BeforeEach
+    void resetAiService() {
+        aiService.resetAll();
+        aiCallGate.close();
+    }
+
+    /**
+     * Holds the responses of stubs that name it ({@code .withTransformers(AiCallGate.NAME)}) until the test opens it,
+     * so a test can look at the application while an AI call is pending.
+     */
+    protected static final class AiCallGate implements ResponseDefinitionTransformerV2 {
+        public static final String NAME = "ai-call-gate";
+
+        private final Semaphore pending = new Semaphore(0);
+        private volatile CountDownLatch open = new CountDownLatch(1);
+
+        @Override
+        public ResponseDefinition transform(ServeEvent serveEvent) {
+            pending.release();
+            try {
+                open.await(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return serveEvent.getResponseDefinition();
+        }
+
+        // True once a gated call has reached the AI service
+        public boolean awaitPendingCall(Duration timeout) throws InterruptedException {
+            return pending.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        public void open() {
+            open.countDown();
+        }
+
+        void close() {
+            open.countDown();
+            pending.drainPermits();
+            open = new CountDownLatch(1);
+        }
+
+        @Override
+        public boolean applyGlobally() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+    }
+}
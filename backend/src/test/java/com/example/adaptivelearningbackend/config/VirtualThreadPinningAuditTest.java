@@ -0,0 +1,61 @@
+package com.example.adaptivelearningbackend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningAuditTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VirtualThreadPinningAudit audit = new VirtualThreadPinningAudit(meterRegistry, 10, 0);
+    private final Object monitor = new Object();
+
+    @AfterEach
+    void stopAudit() {
+        audit.stop();
+    }
+
+    @Test
+    void countsVirtualThreadsThatBlockWhileHoldingAMonitor() throws Exception {
+        audit.start();
+
+        Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pinnedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(pinnedCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void ignoresVirtualThreadsThatBlockWithoutPinning() throws Exception {
+        audit.start();
+
+        Thread.ofVirtual().start(() -> sleep(100)).join();
+        Thread.sleep(2_000); // JFR streams flush about once a second
+
+        assertThat(pinnedCount()).isZero();
+    }
+
+    // Blocking inside synchronized keeps the virtual thread mounted on its carrier (JDK 21)
+    private void sleepHoldingMonitor() {
+        synchronized (monitor) {
+            sleep(100);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double pinnedCount() {
+        return meterRegistry.counter("jvm.threads.virtual.pinned").count();
+    }
+}
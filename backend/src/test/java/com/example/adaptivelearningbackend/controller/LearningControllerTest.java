@@ -0,0 +1,74 @@
+package com.example.adaptivelearningbackend.controller;
+
+import com.example.adaptivelearningbackend.dto.UserDTO;
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import com.example.adaptivelearningbackend.exception.GlobalExceptionHandler;
+import com.example.adaptivelearningbackend.service.GenerationJobService;
+import com.example.adaptivelearningbackend.service.LearningService;
+import com.example.adaptivelearningbackend.service.UserService;
+import com.example.adaptivelearningbackend.service.impl.AiRequestBulkhead;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LearningControllerTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final AiRequestBulkhead aiRequestBulkhead = mock(AiRequestBulkhead.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        LearningController controller = new LearningController(mock(LearningService.class), userService,
+                mock(GenerationJobService.class), aiRequestBulkhead);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+
+        UserDTO user = new UserDTO();
+        user.setId(7L);
+        when(userService.getUserByUsernameOrEmail("learner")).thenReturn(user);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "learner", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void insightStreamReportsAFullLaneAsAnEvent() throws Exception {
+        when(aiRequestBulkhead.submit(eq(AiRequestBulkhead.GENERATION_LANE), any()))
+                .thenThrow(new BulkheadFullException(AiRequestBulkhead.GENERATION_LANE, 5));
+
+        MvcResult result = mockMvc.perform(get("/api/learning/domains/3/insights/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:generation-failed")))
+                .andExpect(content().string(containsString("retry:5000")))
+                .andExpect(content().string(containsString("\"retryAfterSeconds\":5")));
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.adaptivelearningbackend.controller;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.RoleEntity;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.RoleRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.security.CustomUserDetailsService;
+import com.example.adaptivelearningbackend.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * POST /domains/start and GET /review over HTTP against an AI service that takes {@value #AI_LATENCY_MS} ms per call,
+ * with {@value #LEARNERS} learners at once. Run once per thread mode (the subclasses); each run records request latency
+ * and the peak number of platform threads, and the last run logs both modes side by side. Virtual threads do not count
+ * as platform threads, which is the difference being measured.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"generation.admission.enabled=false", "generation.path-cache.enabled=false"})
+abstract class ThreadModeBenchmark extends AbstractIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadModeBenchmark.class);
+    private static final int LEARNERS = 200;
+    private static final int AI_LATENCY_MS = 500;
+    private static final String START_DOMAIN = "Negotiation Skills";
+    private static final String REVIEW_DOMAIN = "Philosophy";
+    private static final Map<String, Map<String, Result>> results = new ConcurrentHashMap<>();
+
+    @LocalServerPort
+    private int port;
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    record Result(int requests, long p50Ms, long p95Ms, long maxMs, int peakPlatformThreads, int baselinePlatformThreads) {
+    }
+
+    @Test
+    void domainStartAndReviewUnderLoad() throws Exception {
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-learning-path"))
+                .willReturn(okJson("{\"domainName\": \"" + START_DOMAIN + "\", \"topics\": [\"Anchoring\", \"BATNA\"]}")
+                        .withFixedDelay(AI_LATENCY_MS)));
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-insights")).willReturn(okJson("""
+                [{"title": "Anchoring", "explanation": "The first number frames the talks.",
+                  "questions": [{"questionType": "TRUE_FALSE", "questionText": "Anchors matter?", "options": [],
+                                 "correctAnswer": "true", "answerFeedbacks": {"true": "Right", "false": "They do"}}]}]
+                """).withFixedDelay(AI_LATENCY_MS)));
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-review")).willReturn(okJson("""
+                {"summary": "Sound grasp of ethics", "strengths": ["Utilitarianism"], "weaknesses": [], "revisionQuestions": []}
+                """).withFixedDelay(AI_LATENCY_MS)));
+        String mode = virtualThreads ? "virtual" : "platform";
+        List<String> tokens = learners(mode);
+        Long startDomainId = domainRepository.findByName(START_DOMAIN).orElseThrow().getId();
+        Long reviewDomainId = domainRepository.findByName(REVIEW_DOMAIN).orElseThrow().getId();
+
+        Result start = measure(tokens, token -> HttpRequest.newBuilder(uri("/api/learning/domains/start"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"domainId\": " + startDomainId + ", \"answers\": {}}"))
+                .build());
+        Result review = measure(tokens, token -> HttpRequest.newBuilder(uri("/api/learning/domains/" + reviewDomainId + "/review"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build());
+
+        results.put(mode, Map.of("/domains/start", start, "/review", review));
+        logger.info("{} threads: /domains/start {}, /review {}", mode, start, review);
+        if (virtualThreads) {
+            // Requests waiting on the AI service must not each hold a platform thread
+            assertThat(start.peakPlatformThreads() - start.baselinePlatformThreads()).isLessThan(LEARNERS / 2);
+            assertThat(review.peakPlatformThreads() - review.baselinePlatformThreads()).isLessThan(LEARNERS / 2);
+        }
+    }
+
+    @AfterAll
+    static void compareModes() {
+        if (results.size() < 2) return;
+        logger.info("Thread mode comparison, {} learners, AI latency {} ms:", LEARNERS, AI_LATENCY_MS);
+        results.forEach((mode, endpoints) -> endpoints.forEach((endpoint, result) ->
+                logger.info("  {} {}: p50 {} ms, p95 {} ms, max {} ms, peak platform threads {} (baseline {})", mode, endpoint,
+                        result.p50Ms(), result.p95Ms(), result.maxMs(), result.peakPlatformThreads(), result.baselinePlatformThreads())));
+    }
+
+    // Sends one request per learner at once; a 503 from a full bulkhead is retried, as clients do after Retry-After
+    private Result measure(List<String> tokens, Function<String, HttpRequest> request) throws Exception {
+        int baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        AtomicInteger peakThreads = new AtomicInteger(baselineThreads);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakThreads.accumulateAndGet(ManagementFactory.getThreadMXBean().getThreadCount(), Math::max),
+                0, 10, TimeUnit.MILLISECONDS);
+        try {
+            List<CompletableFuture<Long>> latencies = new ArrayList<>();
+            for (String token : tokens) {
+                long startedAt = System.nanoTime();
+                latencies.add(send(request.apply(token)).thenApply(status -> {
+                    assertThat(status).isEqualTo(200);
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                }));
+            }
+            CompletableFuture.allOf(latencies.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+            List<Long> sorted = latencies.stream().map(CompletableFuture::join).sorted().toList();
+            return new Result(sorted.size(), percentile(sorted, 0.5), percentile(sorted, 0.95), sorted.get(sorted.size() - 1),
+                    peakThreads.get(), baselineThreads);
+        } finally {
+            sampler.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenCompose(response -> response.statusCode() != 503
+                        ? CompletableFuture.completedFuture(response.statusCode())
+                        : CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS))
+                                .thenCompose(ignored -> send(request)));
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    // One learner per request, each with a finished level of the review domain; returns their bearer tokens
+    private List<String> learners(String mode) {
+        DomainEntity reviewDomain = domainRepository.findByName(REVIEW_DOMAIN).orElseThrow();
+        Set<RoleEntity> roles = new HashSet<>(
+                Set.of(roleRepository.findByName("ROLE_USER").orElseThrow()));
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < LEARNERS; i++) {
+            String username = "bench-" + mode + "-" + i;
+            UserEntity user = userRepository.save(UserEntity.builder()
+                    .username(username)
+                    .email(username + "@example.com")
+                    .password("not-used")
+                    .roles(roles)
+                    .domainProgresses(new ArrayList<>())
+                    .build());
+            UserDomainProgress progress = userDomainProgressRepository.save(UserDomainProgress.builder()
+                    .user(user)
+                    .domain(reviewDomain)
+                    .learningPathJson("{\"domainName\": \"" + REVIEW_DOMAIN + "\", \"topics\": [\"Ethics\"]}")
+                    .topicProgresses(new ArrayList<>())
+                    .startedAt(LocalDateTime.now())
+                    .build());
+            topicProgressRepository.save(TopicProgress.builder()
+                    .userDomainProgress(progress)
+                    .topicName("Ethics")
+                    .level(1)
+                    .insightsGenerated(true)
+                    .completedInsightsCount(6)
+                    .requiredInsightsForLevelCompletion(6)
+                    .startedAt(LocalDateTime.now())
+                    .build());
+            tokens.add(jwtTokenProvider.generateToken(userDetailsService.loadUserByUsername(username)));
+        }
+        return tokens;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
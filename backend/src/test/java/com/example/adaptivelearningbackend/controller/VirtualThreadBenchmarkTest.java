@@ -0,0 +1,7 @@
+package com.example.adaptivelearningbackend.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadBenchmarkTest extends ThreadModeBenchmark {
+}
@@ -0,0 +1,94 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiAdmissionControlTest {
+
+    private static final String REVIEW = "/generate-review";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("generation.admission.latency-budget-ms.generate-review", "1000");
+
+    @Test
+    void admitsAnEndpointWithoutSamples() {
+        assertThat(admissionControl(true, 60).tryAdmit(REVIEW)).isTrue();
+    }
+
+    @Test
+    void admitsWhileTheAverageLatencyIsUnderBudget() {
+        AiAdmissionControl admissionControl = admissionControl(true, 60);
+
+        calls(admissionControl, REVIEW, Duration.ofMillis(800), 5);
+
+        assertThat(admissionControl.tryAdmit(REVIEW)).isTrue();
+    }
+
+    @Test
+    void defersAnEndpointOverItsLatencyBudget() {
+        AiAdmissionControl admissionControl = admissionControl(true, 60);
+
+        calls(admissionControl, REVIEW, Duration.ofSeconds(3), 5);
+
+        assertThat(admissionControl.tryAdmit(REVIEW)).isFalse();
+        assertThat(admissionControl.tryAdmit("/generate-insights")).isTrue(); // budgets are per endpoint
+        assertThat(meterRegistry.get("ai.admission.deferred").tag("reason", "latency").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void admitsAgainOnceFastCallsBringTheAverageDown() {
+        AiAdmissionControl admissionControl = admissionControl(true, 60);
+        calls(admissionControl, REVIEW, Duration.ofSeconds(3), 5);
+
+        calls(admissionControl, REVIEW, Duration.ofMillis(100), 10);
+
+        assertThat(admissionControl.tryAdmit(REVIEW)).isTrue();
+    }
+
+    @Test
+    void ignoresAnAverageWithoutRecentSamples() {
+        AiAdmissionControl admissionControl = admissionControl(true, 0);
+
+        calls(admissionControl, REVIEW, Duration.ofSeconds(3), 5);
+
+        assertThat(admissionControl.tryAdmit(REVIEW)).isTrue();
+    }
+
+    @Test
+    void defersEveryEndpointWhileTooManyCallsArePending() {
+        AiAdmissionControl admissionControl = admissionControl(true, 60);
+        for (int i = 0; i < 4; i++) admissionControl.callStarted();
+
+        assertThat(admissionControl.tryAdmit(REVIEW)).isFalse();
+        assertThat(admissionControl.tryAdmit("/generate-insights")).isFalse();
+
+        admissionControl.callFinished(REVIEW, Duration.ofMillis(100).toNanos());
+        assertThat(admissionControl.tryAdmit(REVIEW)).isTrue();
+    }
+
+    @Test
+    void disabledAdmissionAdmitsEverything() {
+        AiAdmissionControl admissionControl = admissionControl(false, 60);
+        for (int i = 0; i < 4; i++) admissionControl.callStarted();
+        calls(admissionControl, REVIEW, Duration.ofSeconds(3), 5);
+
+        assertThat(admissionControl.tryAdmit(REVIEW)).isTrue();
+    }
+
+    private AiAdmissionControl admissionControl(boolean enabled, long sampleTtlSeconds) {
+        return new AiAdmissionControl(enabled, 4, sampleTtlSeconds, environment, meterRegistry);
+    }
+
+    private static void calls(AiAdmissionControl admissionControl, String endpoint, Duration latency, int count) {
+        for (int i = 0; i < count; i++) {
+            admissionControl.callStarted();
+            admissionControl.callFinished(endpoint, latency.toNanos());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.AssessmentSubmissionDTO;
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.LearningService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The learning path and insight calls run outside any transaction: no pooled connection waits on the AI service
+class AiCallConnectionReleaseTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Negotiation Skills";
+
+    @Autowired
+    private LearningService learningService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void noConnectionIsActiveWhileTheLearningPathCallIsPending() throws Exception {
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-learning-path"))
+                .willReturn(okJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"Anchoring\", \"BATNA\"]}")
+                        .withTransformers(AiCallGate.NAME)));
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-insights")).willReturn(okJson("""
+                [{"title": "Anchoring", "explanation": "The first number frames the talks.",
+                  "questions": [{"questionType": "TRUE_FALSE", "questionText": "Anchors matter?", "options": [],
+                                 "correctAnswer": "true", "answerFeedbacks": {"true": "Right", "false": "They do"}}]}]
+                """)));
+        Long userId = userRepository.findByUsername("admin").orElseThrow().getId();
+        AssessmentSubmissionDTO submission = new AssessmentSubmissionDTO();
+        submission.setDomainId(domainRepository.findByName(DOMAIN).orElseThrow().getId());
+        submission.setAnswers(Map.of());
+
+        CompletableFuture<LearningPathDTO> start = CompletableFuture.supplyAsync(
+                () -> learningService.startDomainAndGetLearningPath(userId, submission));
+        assertThat(aiCallGate.awaitPendingCall(Duration.ofSeconds(10))).isTrue();
+
+        HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+        assertThat(activeConnectionsDropToZero(pool, Duration.ofSeconds(5))).isTrue();
+        assertThat(start).isNotDone(); // still waiting for the AI service
+
+        aiCallGate.open();
+        assertThat(start.get(30, TimeUnit.SECONDS).getTopics()).containsExactly("Anchoring", "BATNA");
+    }
+
+    private static boolean activeConnectionsDropToZero(HikariPoolMXBean pool, Duration timeout) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < giveUpAt) {
+            if (pool.getActiveConnections() == 0) return true;
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.dto.RichAssessmentAnswerDTO;
+import com.example.adaptivelearningbackend.dto.ReviewDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Concurrent AI calls share one request only when they would send the same body
+class AiCallDeduplicationTest {
+
+    private static final String PATH_PATH = "/api/ai/generate-learning-path";
+    private static final String REVIEW_PATH = "/api/ai/generate-review";
+    private static final Duration AI_LATENCY = Duration.ofMillis(300);
+
+    private final WireMockServer aiService = new WireMockServer(options().dynamicPort());
+    private AiIntegrationServiceImpl client;
+
+    @BeforeEach
+    void setUp() {
+        aiService.start();
+        aiService.stubFor(post(urlPathEqualTo(PATH_PATH)).willReturn(
+                okJson("{\"domainName\": \"Philosophy\", \"topics\": [\"Ethics\", \"Logic\"]}")
+                        .withFixedDelay((int) AI_LATENCY.toMillis())));
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(
+                okJson("{\"summary\": \"Sound grasp of ethics\", \"strengths\": [], \"weaknesses\": [], \"revisionQuestions\": []}")
+                        .withFixedDelay((int) AI_LATENCY.toMillis())));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StandardEnvironment environment = new StandardEnvironment();
+        client = new AiIntegrationServiceImpl(aiService.baseUrl() + "/api/ai",
+                10, 10, 10, 10, 5, 30, "ndjson", 2000,
+                10, 100, 5000, 30, 300,
+                "compact", true, Integer.MAX_VALUE, "json", 4, 10,
+                environment, WebClient.builder(), Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json(),
+                new AiAdmissionControl(false, 48, 60, environment, meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.disposeConnectionPool();
+        aiService.stop();
+    }
+
+    @Test
+    void concurrentCataloguePathsForTheSameProfileShareOneCall() {
+        List<LearningPathDTO> paths = Mono.zip(
+                client.generateLearningPathAsync("Philosophy", null, profile("Beginner")),
+                client.generateLearningPathAsync("Philosophy", null, profile("Beginner")),
+                List::of).block();
+
+        assertThat(paths).hasSize(2).allSatisfy(path -> assertThat(path.getTopics()).containsExactly("Ethics", "Logic"));
+        aiService.verify(1, postRequestedFor(urlPathEqualTo(PATH_PATH)));
+    }
+
+    @Test
+    void concurrentCataloguePathsForDifferentProfilesAreNotMerged() {
+        Mono.zip(client.generateLearningPathAsync("Philosophy", null, profile("Beginner")),
+                client.generateLearningPathAsync("Philosophy", null, profile("Advanced")),
+                List::of).block();
+
+        aiService.verify(2, postRequestedFor(urlPathEqualTo(PATH_PATH)));
+    }
+
+    @Test
+    void concurrentReviewsOfTheSameLevelWithDifferentAnswersAreNotMerged() {
+        List<ReviewDTO> reviews = Mono.zip(
+                client.generateReviewAsync(7L, 42L, Map.of("accuracy", 50.0)),
+                client.generateReviewAsync(7L, 42L, Map.of("accuracy", 83.3)),
+                client.generateReviewAsync(7L, 42L, Map.of("accuracy", 83.3)))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2(), tuple.getT3())).block();
+
+        assertThat(reviews).extracting(ReviewDTO::getSummary).containsOnly("Sound grasp of ethics");
+        aiService.verify(2, postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+    }
+
+    private static TopicPerformanceDataDTO profile(String experience) {
+        return TopicPerformanceDataDTO.builder()
+                .domainName("Philosophy")
+                .assessmentAnswers(List.of(RichAssessmentAnswerDTO.builder()
+                        .questionId(1L)
+                        .questionText("How familiar are you with philosophy?")
+                        .options(List.of("Beginner", "Advanced"))
+                        .selectedAnswer(experience)
+                        .build()))
+                .build();
+    }
+}
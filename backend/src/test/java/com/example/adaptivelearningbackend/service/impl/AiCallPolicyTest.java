@@ -0,0 +1,176 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiCallPolicyTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(200);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Integer> cancelled = new CopyOnWriteArrayList<>();
+
+    @ParameterizedTest
+    @ValueSource(ints = {500, 502, 503, 429})
+    void retriesTransientStatusesUpToMaxRetries(int status) {
+        AiCallPolicy policy = retrying(2, Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> policy.apply(failing(() -> response(status))).block())
+                .isInstanceOf(WebClientResponseException.class);
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.counter("ai.call.retries", "endpoint", "test").count()).isEqualTo(2);
+    }
+
+    @Test
+    void retriesConnectionErrors() {
+        AiCallPolicy policy = retrying(2, Duration.ofMillis(10));
+        AtomicInteger attempt = new AtomicInteger();
+
+        String result = policy.apply(() -> {
+            calls.incrementAndGet();
+            return attempt.getAndIncrement() == 0 ? Mono.error(connectFailure()) : Mono.just("path");
+        }).block();
+
+        assertThat(result).isEqualTo("path");
+        assertThat(calls).hasValue(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 404, 415, 422})
+    void doesNotRetryClientErrors(int status) {
+        AiCallPolicy policy = retrying(2, Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> policy.apply(failing(() -> response(status))).block())
+                .isInstanceOfSatisfying(WebClientResponseException.class, e -> assertThat(e.getStatusCode().value()).isEqualTo(status));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void backsOffExponentiallyBetweenRetries() {
+        AiCallPolicy policy = retrying(2, Duration.ofMillis(100));
+        long startedAt = System.nanoTime();
+
+        assertThatThrownBy(() -> policy.apply(failing(() -> response(503))).block()).isInstanceOf(WebClientResponseException.class);
+
+        // 100 ms, then 200 ms; no jitter
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void sendsAHedgeOnlyAfterTheDelayAndCancelsTheSlowRequest() {
+        AiCallPolicy policy = hedging();
+        long startedAt = System.nanoTime();
+
+        String result = policy.apply(() -> {
+            int call = calls.incrementAndGet();
+            return call == 1 ? Mono.<String>never().doOnCancel(() -> cancelled.add(call)) : Mono.just("hedge");
+        }).block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(HEDGE_DELAY);
+        assertThat(calls).hasValue(2);
+        assertThat(cancelled).containsExactly(1);
+        assertThat(meterRegistry.counter("ai.call.hedges", "endpoint", "test").count()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelsTheHedgeWhenTheFirstRequestAnswersFirst() {
+        AiCallPolicy policy = hedging();
+
+        String result = policy.apply(() -> {
+            int call = calls.incrementAndGet();
+            return call == 1
+                    ? Mono.delay(HEDGE_DELAY.multipliedBy(2)).thenReturn("first")
+                    : Mono.<String>never().doOnCancel(() -> cancelled.add(call));
+        }).block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo("first");
+        assertThat(cancelled).containsExactly(2);
+    }
+
+    @Test
+    void sendsNoHedgeForAQuickAnswer() throws InterruptedException {
+        AiCallPolicy policy = hedging();
+
+        assertThat(policy.apply(counted(() -> Mono.just("path"))).block()).isEqualTo("path");
+        Thread.sleep(HEDGE_DELAY.multipliedBy(2).toMillis());
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void sendsNoHedgeAfterAFastNonTransientFailure() throws InterruptedException {
+        AiCallPolicy policy = new AiCallPolicy("test", 2, Duration.ofMillis(10), 0, true, HEDGE_DELAY, meterRegistry);
+        long startedAt = System.nanoTime();
+
+        assertThatThrownBy(() -> policy.apply(failing(() -> response(400))).block()).isInstanceOf(WebClientResponseException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(HEDGE_DELAY);
+        Thread.sleep(HEDGE_DELAY.multipliedBy(2).toMillis());
+
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.find("ai.call.hedges").counter()).isNull();
+    }
+
+    @Test
+    void waitsForAHedgeInFlightWhenTheFirstRequestFailsTransiently() {
+        AiCallPolicy policy = hedging();
+
+        String result = policy.apply(() -> {
+            int call = calls.incrementAndGet();
+            return call == 1
+                    ? Mono.delay(HEDGE_DELAY.multipliedBy(2)).then(Mono.error(response(503)))
+                    : Mono.delay(HEDGE_DELAY.multipliedBy(3)).thenReturn("hedge");
+        }).block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(calls).hasValue(2);
+    }
+
+    private AiCallPolicy retrying(int maxRetries, Duration backoff) {
+        return new AiCallPolicy("test", maxRetries, backoff, 0, false, HEDGE_DELAY, meterRegistry);
+    }
+
+    private AiCallPolicy hedging() {
+        return new AiCallPolicy("test", 0, Duration.ofMillis(10), 0, true, HEDGE_DELAY, meterRegistry);
+    }
+
+    private Supplier<Mono<String>> counted(Supplier<Mono<String>> call) {
+        return () -> {
+            calls.incrementAndGet();
+            return call.get();
+        };
+    }
+
+    private Supplier<Mono<String>> failing(Supplier<Throwable> error) {
+        return counted(() -> Mono.error(error.get()));
+    }
+
+    private static WebClientResponseException response(int status) {
+        return WebClientResponseException.create(status, "status " + status, HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    private static WebClientRequestException connectFailure() {
+        return new WebClientRequestException(new IOException("Connection refused"), HttpMethod.POST,
+                URI.create("http://llm/api/ai/generate-review"), HttpHeaders.EMPTY);
+    }
+}
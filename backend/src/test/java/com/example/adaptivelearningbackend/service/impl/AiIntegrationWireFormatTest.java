@@ -0,0 +1,334 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.InsightGenerationRequestDTO;
+import com.example.adaptivelearningbackend.dto.InsightPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.ReviewDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.UserAnswerDetailDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// What AiIntegrationServiceImpl puts on the wire, decoded the way the Python service decodes it
+class AiIntegrationWireFormatTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiIntegrationWireFormatTest.class);
+    private static final int TIMED_ROUNDS = 5_000;
+
+    private static final String REVIEW_PATH = "/api/ai/generate-review";
+    private static final String INSIGHTS_PATH = "/api/ai/generate-insights";
+    private static final String REVIEW_JSON = """
+            {"summary": "Solid on loops", "strengths": ["for loops"], "weaknesses": ["off-by-one"], "revisionQuestions": []}
+            """;
+
+    private final WireMockServer aiService = new WireMockServer(options().dynamicPort());
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<AiIntegrationServiceImpl> clients = new ArrayList<>();
+
+    @BeforeEach
+    void startAiService() {
+        aiService.start();
+    }
+
+    @AfterEach
+    void stopAiService() {
+        clients.forEach(AiIntegrationServiceImpl::disposeConnectionPool);
+        aiService.stop();
+    }
+
+    @Test
+    void cborRequestDecodesToTheSameBodyAndCborResponseToTheSameReview() throws IOException {
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(aResponse()
+                .withHeader("Content-Type", "application/cbor")
+                .withBody(cborMapper.writeValueAsBytes(objectMapper.readTree(REVIEW_JSON)))));
+        Map<String, Object> performanceData = Map.of("accuracy", 0.75, "weak_questions", List.of(3, 5), "level", 2);
+
+        ReviewDTO review = client("cbor", Integer.MAX_VALUE).generateReview(7L, 42L, performanceData);
+
+        assertThat(review.isFallback()).isFalse();
+        assertThat(review.getSummary()).isEqualTo("Solid on loops");
+        assertThat(review.getStrengths()).containsExactly("for loops");
+        assertThat(review.getWeaknesses()).containsExactly("off-by-one");
+        LoggedRequest request = singleRequest();
+        assertThat(request.getHeader("Content-Type")).startsWith("application/cbor");
+        assertThat(request.getHeader("Accept")).contains("application/cbor");
+        Map<String, Object> sent = cborMapper.readValue(request.getBody(), new TypeReference<>() { });
+        assertThat(sent).containsEntry("user_id", 7).containsEntry("topic_progress_id", 42)
+                .containsEntry("performance_data", performanceData);
+    }
+
+    @Test
+    void jsonResponseToACborRequestIsStillDecodedAsJson() {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson(REVIEW_JSON)));
+
+        ReviewDTO review = client("cbor", Integer.MAX_VALUE).generateReview(7L, 42L, Map.of("accuracy", 0.5));
+
+        assertThat(review.getSummary()).isEqualTo("Solid on loops");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {415, 422})
+    void serviceRejectingCborSwitchesTheClientToJsonForGood(int status) {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).withHeader("Content-Type", containing("application/cbor"))
+                .willReturn(aResponse().withStatus(status)));
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).withHeader("Content-Type", containing("application/json"))
+                .willReturn(okJson(REVIEW_JSON)));
+        AiIntegrationServiceImpl client = client("cbor", Integer.MAX_VALUE);
+
+        ReviewDTO first = client.generateReview(7L, 42L, Map.of("accuracy", 0.5));
+        ReviewDTO second = client.generateReview(7L, 43L, Map.of("accuracy", 0.5));
+
+        assertThat(first.getSummary()).isEqualTo("Solid on loops");
+        assertThat(second.getSummary()).isEqualTo("Solid on loops");
+        assertThat(aiService.findAll(postRequestedFor(urlPathEqualTo(REVIEW_PATH)))).extracting(request -> request.getHeader("Content-Type"))
+                .satisfiesExactly(
+                        contentType -> assertThat(contentType).startsWith("application/cbor"),
+                        contentType -> assertThat(contentType).startsWith("application/json"),
+                        contentType -> assertThat(contentType).startsWith("application/json"));
+    }
+
+    @Test
+    void jsonWireFormatSendsAndReadsJson() throws IOException {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson(REVIEW_JSON)));
+
+        ReviewDTO review = client("json", Integer.MAX_VALUE).generateReview(7L, 42L, Map.of("accuracy", 0.5));
+
+        assertThat(review.getSummary()).isEqualTo("Solid on loops");
+        LoggedRequest request = singleRequest();
+        assertThat(request.getHeader("Content-Type")).startsWith("application/json");
+        assertThat(objectMapper.readTree(request.getBody()).at("/performance_data/accuracy").asDouble()).isEqualTo(0.5);
+    }
+
+    @Test
+    void performanceDataAboveMinBytesIsSentGzippedAndDecodesToTheSameBody() throws IOException {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson(REVIEW_JSON)));
+        Map<String, Object> performanceData = largePerformanceData();
+
+        ReviewDTO review = client("json", 1024).generateReview(7L, 42L, performanceData);
+
+        assertThat(review.getSummary()).isEqualTo("Solid on loops");
+        LoggedRequest request = singleRequest();
+        assertThat(request.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(request.getHeader("Content-Type")).startsWith("application/json");
+        Map<String, Object> sent = objectMapper.readValue(decompressed(request.getBody()), new TypeReference<>() { });
+        assertThat(sent).containsEntry("user_id", 7).containsEntry("topic_progress_id", 42);
+        assertThat(objectMapper.convertValue(sent.get("performance_data"), new TypeReference<Map<String, Object>>() { }))
+                .isEqualTo(objectMapper.convertValue(performanceData, new TypeReference<Map<String, Object>>() { }));
+    }
+
+    @Test
+    void performanceDataBelowMinBytesIsSentUncompressed() throws IOException {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson(REVIEW_JSON)));
+
+        assertThat(client("json", 1024).generateReview(7L, 42L, Map.of("accuracy", 0.5)).getSummary()).isEqualTo("Solid on loops");
+
+        LoggedRequest request = singleRequest();
+        assertThat(request.containsHeader("Content-Encoding")).isFalse();
+        assertThat(objectMapper.readTree(request.getBody()).at("/performance_data/accuracy").asDouble()).isEqualTo(0.5);
+    }
+
+    // CBOR is only worth its fallback path if it is smaller than JSON; encode/decode time is reported next to the sizes
+    @Test
+    void cborIsSmallerThanJsonOnTheWireForTheSamePayloads() throws IOException {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson(REVIEW_JSON)));
+        Map<String, Object> performanceData = largePerformanceData();
+        client("json", Integer.MAX_VALUE).generateReview(7L, 42L, performanceData);
+        client("cbor", Integer.MAX_VALUE).generateReview(7L, 42L, performanceData);
+        List<LoggedRequest> requests = aiService.findAll(postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+        byte[] jsonRequest = requests.get(0).getBody();
+        byte[] cborRequest = requests.get(1).getBody();
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        List<InsightGenerationRequestDTO.InsightDetailDTO> level = objectMapper.readValue(generatedLevelJson(),
+                new TypeReference<>() { });
+        byte[] jsonResponse = objectMapper.writeValueAsBytes(level);
+        byte[] cborResponse = cborMapper.writeValueAsBytes(level);
+
+        assertThat(cborMapper.readTree(cborRequest)).isEqualTo(objectMapper.readTree(jsonRequest));
+        assertThat(cborRequest.length).isLessThan(jsonRequest.length);
+        assertThat(cborResponse.length).isLessThan(jsonResponse.length);
+        report("review request", jsonRequest, cborRequest, Map.class, cborMapper);
+        report("insights response", jsonResponse, cborResponse, InsightGenerationRequestDTO.InsightDetailDTO[].class, cborMapper);
+    }
+
+    private void report(String payload, byte[] json, byte[] cbor, Class<?> type, ObjectMapper cborMapper) throws IOException {
+        Object value = objectMapper.readValue(json, type);
+        logger.info("{}: {} bytes JSON / {} bytes CBOR ({} / {} gzipped); encode {} / {} us, decode {} / {} us", payload,
+                json.length, cbor.length, gzip(json).length, gzip(cbor).length,
+                micros(() -> objectMapper.writeValueAsBytes(value)), micros(() -> cborMapper.writeValueAsBytes(value)),
+                micros(() -> objectMapper.readValue(json, type)), micros(() -> cborMapper.readValue(cbor, type)));
+    }
+
+    // The same learner history in the full insights_performance form and the compact insights_summary form
+    @Test
+    void compactPerformancePayloadIsMuchSmallerThanTheFullForm() throws IOException {
+        aiService.stubFor(post(urlPathEqualTo(INSIGHTS_PATH)).willReturn(okJson(generatedLevelJson())));
+        TopicPerformanceDataDTO performance = answeredLevel();
+        SimpleMeterRegistry fullMeters = new SimpleMeterRegistry();
+        SimpleMeterRegistry compactMeters = new SimpleMeterRegistry();
+        AiIntegrationServiceImpl full = client("json", Integer.MAX_VALUE, "full", fullMeters);
+        AiIntegrationServiceImpl compact = client("json", Integer.MAX_VALUE, "compact", compactMeters);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(full.generateInsightsForTopic("Python Programming", "Loops", 2, 7L, performance)).hasSize(6);
+            assertThat(compact.generateInsightsForTopic("Python Programming", "Loops", 2, 7L, performance)).hasSize(6);
+        }
+
+        List<LoggedRequest> requests = aiService.findAll(postRequestedFor(urlPathEqualTo(INSIGHTS_PATH)));
+        byte[] fullBody = requests.get(0).getBody();
+        byte[] compactBody = requests.get(1).getBody();
+        assertThat(objectMapper.readTree(fullBody).at("/user_topic_performance_data/insights_performance").size()).isEqualTo(6);
+        assertThat(objectMapper.readTree(compactBody).at("/user_topic_performance_data/insights_summary").size()).isEqualTo(6);
+        assertThat(compactBody.length).isLessThan(fullBody.length / 2);
+        logger.info("Insight request for 6 insights x 4 answers: {} bytes full / {} bytes compact ({}% smaller); "
+                        + "serialization {} / {} us per request",
+                fullBody.length, compactBody.length, 100 - 100 * compactBody.length / fullBody.length,
+                serializationMicros(fullMeters), serializationMicros(compactMeters));
+    }
+
+    private static String serializationMicros(SimpleMeterRegistry meterRegistry) {
+        Timer timer = meterRegistry.get("ai.payload.serialization").timer();
+        return String.format("%.1f", timer.mean(TimeUnit.MICROSECONDS));
+    }
+
+    private interface Codec {
+        Object run() throws IOException;
+    }
+
+    // Mean microseconds per call after as many warm-up calls as timed ones
+    private static String micros(Codec codec) throws IOException {
+        for (int i = 0; i < TIMED_ROUNDS; i++) codec.run();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < TIMED_ROUNDS; i++) codec.run();
+        return String.format("%.1f", (System.nanoTime() - startedAt) / 1000.0 / TIMED_ROUNDS);
+    }
+
+    private AiIntegrationServiceImpl client(String wireFormat, int compressionMinBytes) {
+        return client(wireFormat, compressionMinBytes, "compact", new SimpleMeterRegistry());
+    }
+
+    private AiIntegrationServiceImpl client(String wireFormat, int compressionMinBytes, String payloadMode,
+                                            SimpleMeterRegistry meterRegistry) {
+        StandardEnvironment environment = new StandardEnvironment();
+        AiIntegrationServiceImpl client = new AiIntegrationServiceImpl(aiService.baseUrl() + "/api/ai",
+                10, 10, 10, 10, 5, 30, "ndjson", 2000,
+                10, 100, 5000, 30, 300,
+                payloadMode, true, compressionMinBytes, wireFormat, 4, 10,
+                environment, WebClient.builder(), objectMapper, Jackson2ObjectMapperBuilder.json(),
+                new AiAdmissionControl(false, 48, 60, environment, meterRegistry), meterRegistry);
+        clients.add(client);
+        return client;
+    }
+
+    private LoggedRequest singleRequest() {
+        List<LoggedRequest> requests = aiService.findAll(postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+        assertThat(requests).hasSize(1);
+        return requests.get(0);
+    }
+
+    // Twenty answered questions, well above the compression threshold
+    private static Map<String, Object> largePerformanceData() {
+        List<Map<String, Object>> answers = IntStream.range(0, 20)
+                .<Map<String, Object>>mapToObj(i -> Map.of(
+                        "question_id", i,
+                        "question_text", "Which loop runs the body at least once? (variant " + i + ")",
+                        "selected_answer", i % 3 == 0 ? "while" : "do-while",
+                        "is_correct", i % 3 != 0,
+                        "time_taken_ms", 1200 + i))
+                .toList();
+        return Map.of("topic_name", "Loops", "level", 2, "answers", answers);
+    }
+
+    // A finished level: six insights, four answers each, one in four missed
+    private static TopicPerformanceDataDTO answeredLevel() {
+        List<InsightPerformanceDataDTO> insights = IntStream.range(0, 6)
+                .mapToObj(insight -> InsightPerformanceDataDTO.builder()
+                        .insightId((long) insight)
+                        .insightTitle("Loop pattern " + insight)
+                        .timesShown(2)
+                        .questionsAnswered(IntStream.range(0, 4)
+                                .mapToObj(answer -> UserAnswerDetailDTO.builder()
+                                        .questionId(insight * 10L + answer)
+                                        .questionText("When is the condition of loop pattern " + insight + " checked (attempt " + answer + ")?")
+                                        .options(List.of("Before the body", "After the body", "Never"))
+                                        .selectedAnswer(answer == 3 ? "After the body" : "Before the body")
+                                        .correctAnswer("Before the body")
+                                        .isCorrect(answer != 3)
+                                        .timeTakenMs(1500L + 100L * answer)
+                                        .build())
+                                .toList())
+                        .build())
+                .toList();
+        return TopicPerformanceDataDTO.builder()
+                .userId(7L)
+                .domainName("Python Programming")
+                .topicName("Loops")
+                .currentLevel(2)
+                .assessmentAnswers(List.of())
+                .insightsPerformance(insights)
+                .build();
+    }
+
+    // Six insights of two questions each, the shape of one generated level
+    private static String generatedLevelJson() {
+        return IntStream.range(0, 6).mapToObj(i -> """
+                {"title": "Loop pattern %1$d", "explanation": "A loop repeats its body while the condition holds; pattern %1$d shows when the check runs.",
+                 "questions": [
+                   {"questionType": "MULTIPLE_CHOICE", "questionText": "When is the condition of pattern %1$d checked?",
+                    "options": ["Before the body", "After the body", "Never"], "correctAnswer": "Before the body",
+                    "answerFeedbacks": {"Before the body": "Right", "After the body": "That is do-while", "Never": "It is checked"}},
+                   {"questionType": "TRUE_FALSE", "questionText": "Pattern %1$d can run zero times.", "options": [],
+                    "correctAnswer": "true", "answerFeedbacks": {"true": "Right", "false": "An initially false condition skips it"}}]}
+                """.formatted(i)).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    // WireMock may hand over the body as received or already inflated; the Python service inflates it itself
+    private static byte[] decompressed(byte[] body) throws IOException {
+        if (body.length < 2 || (body[0] & 0xff) != 0x1f || (body[1] & 0xff) != 0x8b) return body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.dto.PooledInsightsDTO;
+import com.example.adaptivelearningbackend.entity.InsightContentPoolEntry;
+import com.example.adaptivelearningbackend.entity.LearningPathCacheEntry;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightContentPoolRepository;
+import com.example.adaptivelearningbackend.repository.LearningPathCacheRepository;
+import com.example.adaptivelearningbackend.service.InsightContentPoolService;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// What an open circuit serves instead of AI output: the most used pooled content and the most hit cached path
+class AiOutageFallbackTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Chess Strategy & Tactics";
+    private static final String INSIGHTS_JSON = """
+            [{"title": "Control the centre", "explanation": "Central pawns give pieces room.", "questions": []}]
+            """;
+
+    @Autowired
+    private InsightContentPoolService insightContentPoolService;
+    @Autowired
+    private InsightContentPoolRepository insightContentPoolRepository;
+    @Autowired
+    private LearningPathCacheService learningPathCacheService;
+    @Autowired
+    private LearningPathCacheRepository learningPathCacheRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+
+    @Test
+    void contentFallbackServesTheMostUsedVariantOfTheLevelWhateverItsBucket() {
+        String topic = "Openings " + UUID.randomUUID();
+        poolEntry(topic, 1, "acc-low:pace-slow", 2);
+        InsightContentPoolEntry mostUsed = poolEntry(topic, 1, "acc-high:pace-fast", 9);
+        InsightContentPoolEntry runnerUp = poolEntry(topic, 1, "cold", 5);
+        poolEntry(topic, 2, "cold", 50);
+
+        Optional<PooledInsightsDTO> fallback = insightContentPoolService.findFallback(DOMAIN, topic, 1, null);
+
+        assertThat(fallback).hasValueSatisfying(pooled -> {
+            assertThat(pooled.getPoolEntryId()).isEqualTo(mostUsed.getId());
+            assertThat(pooled.getInsights()).singleElement()
+                    .satisfies(insight -> assertThat(insight.getTitle()).isEqualTo("Control the centre"));
+        });
+        assertThat(insightContentPoolRepository.findById(mostUsed.getId()).orElseThrow().getUseCount()).isEqualTo(10);
+        // A learner who already had the most used variant gets the next one
+        assertThat(insightContentPoolService.findFallback(DOMAIN, topic, 1, mostUsed.getId()))
+                .map(PooledInsightsDTO::getPoolEntryId).hasValue(runnerUp.getId());
+    }
+
+    @Test
+    void contentFallbackIsEmptyForALevelWithoutPooledContent() {
+        String topic = "Endgames " + UUID.randomUUID();
+        InsightContentPoolEntry only = poolEntry(topic, 1, "cold", 3);
+
+        assertThat(insightContentPoolService.findFallback(DOMAIN, topic, 2, null)).isEmpty();
+        assertThat(insightContentPoolService.findFallback(DOMAIN, topic, 1, only.getId())).isEmpty();
+    }
+
+    @Test
+    void pathFallbackServesTheMostHitPathOfTheDomainEvenWhenExpired() {
+        Long domainId = domainRepository.findByName(DOMAIN).orElseThrow().getId();
+        learningPathCacheService.invalidateDomain(domainId);
+        cachedPath(domainId, "[\"Openings\"]", 3, LocalDateTime.now().plusDays(1));
+        cachedPath(domainId, "[\"Tactics\", \"Endgames\"]", 12, LocalDateTime.now().minusDays(1));
+
+        Optional<LearningPathDTO> fallback = learningPathCacheService.findFallback(domainId);
+
+        assertThat(fallback).map(LearningPathDTO::getTopics).hasValueSatisfying(topics ->
+                assertThat(topics).containsExactly("Tactics", "Endgames"));
+    }
+
+    @Test
+    void pathFallbackIsEmptyForADomainWithoutCachedPaths() {
+        Long domainId = domainRepository.findByName(DOMAIN).orElseThrow().getId();
+        learningPathCacheService.invalidateDomain(domainId);
+
+        assertThat(learningPathCacheService.findFallback(domainId)).isEmpty();
+    }
+
+    private InsightContentPoolEntry poolEntry(String topic, int level, String bucket, long useCount) {
+        return insightContentPoolRepository.save(InsightContentPoolEntry.builder()
+                .domainName(DOMAIN)
+                .topicName(topic)
+                .level(level)
+                .performanceBucket(bucket)
+                .insightsJson(INSIGHTS_JSON)
+                .useCount(useCount)
+                .build());
+    }
+
+    private void cachedPath(Long domainId, String topicsJson, long hitCount, LocalDateTime expiresAt) {
+        learningPathCacheRepository.save(LearningPathCacheEntry.builder()
+                .cacheKey(UUID.randomUUID().toString())
+                .domainId(domainId)
+                .promptVersion("v1")
+                .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": " + topicsJson + "}")
+                .hitCount(hitCount)
+                .lastHitAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiRequestBulkheadTest {
+
+    // One thread and one queue slot per lane
+    private final AiRequestBulkhead bulkhead = new AiRequestBulkhead(new SimpleMeterRegistry(), 1, 1, 1, 1, 5, false);
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void rejectsNewRequestsButNotResumedWorkWhenTheLaneIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = bulkhead.submit(AiRequestBulkhead.REVIEW_LANE, () -> await(release, "running"));
+        CompletableFuture<String> queued = bulkhead.submit(AiRequestBulkhead.REVIEW_LANE, () -> "queued");
+
+        assertThatThrownBy(() -> bulkhead.submit(AiRequestBulkhead.REVIEW_LANE, () -> "rejected"))
+                .isInstanceOf(BulkheadFullException.class);
+        CompletableFuture<String> resumed = bulkhead.resume(AiRequestBulkhead.REVIEW_LANE, () -> "resumed");
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("running");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+        assertThat(resumed.get(5, TimeUnit.SECONDS)).isEqualTo("resumed");
+    }
+
+    @Test
+    void finishedRequestsFreeTheirSlot() throws Exception {
+        bulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> "first").get(5, TimeUnit.SECONDS);
+        bulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> "second").get(5, TimeUnit.SECONDS);
+        CompletableFuture<String> third = bulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> "third");
+        CompletableFuture<String> fourth = bulkhead.submit(AiRequestBulkhead.GENERATION_LANE, () -> "fourth");
+
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("third");
+        assertThat(fourth.get(5, TimeUnit.SECONDS)).isEqualTo("fourth");
+    }
+
+    private static String await(CountDownLatch latch, String result) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
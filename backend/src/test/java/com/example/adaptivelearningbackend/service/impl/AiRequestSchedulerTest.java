@@ -0,0 +1,124 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiRequestSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AiRequestScheduler scheduler = new AiRequestScheduler(1, Duration.ofSeconds(5), meterRegistry);
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @Test
+    void waitingCallsAreServedInteractiveFirstThenPrefetchThenBatch() {
+        Sinks.One<String> slot = occupySlot();
+        schedule(GenerationPriority.BATCH, "u1", "batch");
+        schedule(GenerationPriority.PREFETCH, "u1", "prefetch");
+        schedule(GenerationPriority.INTERACTIVE, "u1", "interactive");
+
+        slot.tryEmitValue("done");
+
+        assertThat(started).containsExactly("interactive", "prefetch", "batch");
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void usersTakeTurnsWithinAPriorityClass() {
+        Sinks.One<String> slot = occupySlot();
+        schedule(GenerationPriority.INTERACTIVE, "u1", "u1-a");
+        schedule(GenerationPriority.INTERACTIVE, "u1", "u1-b");
+        schedule(GenerationPriority.INTERACTIVE, "u1", "u1-c");
+        schedule(GenerationPriority.INTERACTIVE, "u2", "u2-a");
+        schedule(GenerationPriority.INTERACTIVE, "u3", "u3-a");
+
+        slot.tryEmitValue("done");
+
+        assertThat(started).containsExactly("u1-a", "u2-a", "u3-a", "u1-b", "u1-c");
+    }
+
+    @Test
+    void callWithoutASlotWithinMaxWaitFailsAndLeavesTheQueue() {
+        AiRequestScheduler impatient = new AiRequestScheduler(1, Duration.ofMillis(100), meterRegistry);
+        Sinks.One<String> slot = Sinks.one();
+        impatient.schedule(GenerationPriority.INTERACTIVE, "holder", slot::asMono).subscribe();
+        AtomicBoolean called = new AtomicBoolean();
+
+        assertThatThrownBy(() -> impatient.schedule(GenerationPriority.PREFETCH, "u1",
+                () -> Mono.fromRunnable(() -> called.set(true))).block(Duration.ofSeconds(5)))
+                .isInstanceOf(AiRequestScheduler.QueueTimeoutException.class)
+                .hasMessageContaining("prefetch");
+        assertThat(called).isFalse();
+        assertThat(queued(GenerationPriority.PREFETCH)).isZero();
+    }
+
+    @Test
+    void cancellingAGrantedCallReleasesItsSlot() {
+        Sinks.One<String> slot = occupySlot();
+        Disposable granted = scheduler.schedule(GenerationPriority.INTERACTIVE, "u1", () -> {
+            started.add("granted");
+            return Mono.never();
+        }).subscribe();
+        schedule(GenerationPriority.INTERACTIVE, "u2", "next");
+
+        slot.tryEmitValue("done");
+        assertThat(started).containsExactly("granted");
+        assertThat(inFlight()).isEqualTo(1);
+
+        granted.dispose();
+
+        assertThat(started).containsExactly("granted", "next");
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void cancellingAWaitingCallRemovesItFromTheQueue() {
+        Sinks.One<String> slot = occupySlot();
+        Disposable waiting = scheduler.schedule(GenerationPriority.BATCH, "u1", () -> {
+            started.add("cancelled");
+            return Mono.just("cancelled");
+        }).subscribe();
+        assertThat(queued(GenerationPriority.BATCH)).isEqualTo(1);
+
+        waiting.dispose();
+        slot.tryEmitValue("done");
+
+        assertThat(queued(GenerationPriority.BATCH)).isZero();
+        assertThat(started).isEmpty();
+        assertThat(inFlight()).isZero();
+    }
+
+    // Holds the only slot until the returned sink is completed
+    private Sinks.One<String> occupySlot() {
+        Sinks.One<String> slot = Sinks.one();
+        scheduler.schedule(GenerationPriority.INTERACTIVE, "holder", slot::asMono).subscribe();
+        assertThat(inFlight()).isEqualTo(1);
+        return slot;
+    }
+
+    private void schedule(GenerationPriority priority, String user, String name) {
+        scheduler.schedule(priority, user, () -> Mono.fromCallable(() -> {
+            started.add(name);
+            return name;
+        })).subscribe();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("ai.scheduler.in-flight").gauge().value();
+    }
+
+    private double queued(GenerationPriority priority) {
+        return meterRegistry.get("ai.scheduler.queued").tag("priority", priority.name().toLowerCase()).gauge().value();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreaker breaker = new CircuitBreaker("generate-insights", 3, OPEN_DURATION, meterRegistry);
+
+    @Test
+    void opensAfterTheThresholdOfConsecutiveFailures() {
+        fail();
+        fail();
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail();
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(meterRegistry.get("ai.circuit.state").gauge().value()).isEqualTo(2);
+        assertRejectedWithoutCalling();
+        assertThat(meterRegistry.get("ai.circuit.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void successResetsTheConsecutiveFailureCount() {
+        fail();
+        fail();
+        succeed();
+        fail();
+        fail();
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void timeoutCountsAsAFailure() {
+        fail();
+        fail();
+
+        assertThatThrownBy(() -> breaker.protect(Mono.never(), Duration.ofMillis(20)).block())
+                .hasCauseInstanceOf(TimeoutException.class);
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenLetsASingleProbeThrough() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        Sinks.One<String> probe = Sinks.one();
+
+        Disposable inFlight = breaker.protect(probe.asMono(), TIMEOUT).subscribe();
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertRejectedWithoutCalling();
+        probe.tryEmitValue("ok");
+        assertThat(inFlight.isDisposed()).isTrue();
+    }
+
+    @Test
+    void failedProbeOpensTheCircuitAgain() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        fail();
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertRejectedWithoutCalling();
+    }
+
+    @Test
+    void successfulProbeClosesTheCircuit() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        succeed();
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // The failure count starts over: two more failures stay under the threshold
+        fail();
+        fail();
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.get("ai.circuit.transitions").tag("to", "CLOSED").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledProbeLetsTheNextCallProbe() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        breaker.protect(Mono.never(), TIMEOUT).subscribe().dispose();
+
+        succeed();
+
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void open() {
+        fail();
+        fail();
+        fail();
+        assertThat(breaker.currentState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.protect(Mono.error(new IllegalStateException("AI service unavailable")), TIMEOUT).block())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void succeed() {
+        assertThat(breaker.protect(Mono.just("ok"), TIMEOUT).block()).isEqualTo("ok");
+    }
+
+    private void assertRejectedWithoutCalling() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> breaker.protect(Mono.fromCallable(calls::incrementAndGet), TIMEOUT).block())
+                .isInstanceOf(CircuitBreaker.CircuitOpenException.class);
+        assertThat(calls).hasValue(0);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.AssessmentSubmissionDTO;
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import com.example.adaptivelearningbackend.service.LearningService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent domain starts against a slow AI service: every request waits for its learning path in the AI call
+ * scheduler or on the wire, not on a lane, servlet or pooled connection, so the thread count does not follow the
+ * number of requests, and the heap holds little more than each request's pending call. Admission control is off so every
+ * request takes the non-blocking path instead of a 202; the scheduler wait is raised so the 2000 requests queued behind
+ * the closed gate are still waiting, not timed out, when it opens.
+ */
+@TestPropertySource(properties = {"generation.admission.enabled=false", "python.service.scheduler.max-wait-seconds=300"})
+class DomainStartLoadTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Negotiation Skills";
+    // Lanes, fan-out, Netty event loops and WireMock's own request threads; independent of the number of requests
+    private static final int THREAD_ALLOWANCE = 100;
+    // Heap growth allowed while the requests wait: a fixed part for caches and pools, and a part per pending request
+    private static final long HEAP_ALLOWANCE_BYTES = 64L * 1024 * 1024;
+    private static final long HEAP_PER_PENDING_START_BYTES = 32L * 1024;
+
+    @Autowired
+    private LearningService learningService;
+    @Autowired
+    private LearningPathCacheService learningPathCacheService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 500, 2000})
+    void pendingDomainStartsHoldNoThreadOrConnection(int concurrency) throws Exception {
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-learning-path"))
+                .willReturn(okJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"Anchoring\", \"BATNA\"]}")
+                        .withTransformers(AiCallGate.NAME)));
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-insights")).willReturn(okJson("""
+                [{"title": "Anchoring", "explanation": "The first number frames the talks.",
+                  "questions": [{"questionType": "TRUE_FALSE", "questionText": "Anchors matter?", "options": [],
+                                 "correctAnswer": "true", "answerFeedbacks": {"true": "Right", "false": "They do"}}]}]
+                """)));
+        Long domainId = domainRepository.findByName(DOMAIN).orElseThrow().getId();
+        learningPathCacheService.invalidateDomain(domainId); // Every start has to ask the AI service
+        List<Long> userIds = learners(concurrency);
+        int baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        long baselineHeap = usedHeapAfterGc();
+
+        List<CompletableFuture<LearningPathDTO>> starts = new ArrayList<>();
+        for (Long userId : userIds) {
+            starts.add(startDomain(userId, domainId));
+        }
+        assertThat(aiCallGate.awaitPendingCall(Duration.ofSeconds(10))).isTrue();
+
+        // Every request has finished its first transaction and now only waits for the AI service
+        assertThat(eventually(() -> laneGauge("bulkhead.active") == 0 && laneGauge("bulkhead.queued") == 0)).isTrue();
+        assertThat(eventually(() -> schedulerGauge("ai.scheduler.in-flight") + schedulerGauge("ai.scheduler.queued") == concurrency))
+                .isTrue();
+        assertThat(((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections()).isZero();
+        assertThat(ManagementFactory.getThreadMXBean().getThreadCount() - baselineThreads).isLessThan(THREAD_ALLOWANCE);
+        assertThat(usedHeapAfterGc() - baselineHeap).isLessThan(HEAP_ALLOWANCE_BYTES + concurrency * HEAP_PER_PENDING_START_BYTES);
+        assertThat(starts).noneMatch(CompletableFuture::isDone);
+
+        aiCallGate.open();
+        CompletableFuture.allOf(starts.toArray(CompletableFuture[]::new)).get(120, TimeUnit.SECONDS);
+        assertThat(starts).allSatisfy(start -> assertThat(start.join().getTopics()).containsExactly("Anchoring", "BATNA"));
+    }
+
+    // A client that is turned away with 503 retries, as the frontend does after Retry-After
+    private CompletableFuture<LearningPathDTO> startDomain(Long userId, Long domainId) throws InterruptedException {
+        AssessmentSubmissionDTO submission = new AssessmentSubmissionDTO();
+        submission.setDomainId(domainId);
+        submission.setAnswers(Map.of());
+        while (true) {
+            try {
+                return learningService.startDomainAsync(userId, submission);
+            } catch (BulkheadFullException e) {
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private List<Long> learners(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String username = "load-" + count + "-" + i;
+            ids.add(userRepository.findByUsername(username)
+                    .orElseGet(() -> userRepository.save(UserEntity.builder()
+                            .username(username)
+                            .email(username + "@example.com")
+                            .password("not-used")
+                            .roles(new HashSet<>())
+                            .domainProgresses(new ArrayList<>())
+                            .build()))
+                    .getId());
+        }
+        return ids;
+    }
+
+    private double laneGauge(String name) {
+        return meterRegistry.get(name).tag("lane", AiRequestBulkhead.GENERATION_LANE).gauge().value();
+    }
+
+    private double schedulerGauge(String name) {
+        return meterRegistry.find(name).gauges().stream().mapToDouble(Gauge::value).sum();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long giveUpAt = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < giveUpAt) {
+            if (condition.getAsBoolean()) return true;
+            Thread.sleep(20);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.GenerationTargetDTO;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writing a generated level: pooled ids and JDBC batching keep the statement count far below the number of rows
+class GeneratedLevelBatchingTest extends AbstractIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedLevelBatchingTest.class);
+    private static final String DOMAIN = "Creative Writing";
+    private static final int INSIGHTS = 6;
+    private static final int QUESTIONS_PER_INSIGHT = 2;
+    private static final List<String> OPTIONS = List.of("Pause", "Rush", "Read the slides");
+
+    @Autowired
+    private InsightGenerationService insightGenerationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private InsightRepository insightRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void generatedLevelIsWrittenInBatches() throws Exception {
+        aiService.stubFor(post(urlPathEqualTo(AI_PATH + "/generate-insights"))
+                .willReturn(okJson(objectMapper.writeValueAsString(generatedInsights()))));
+        UserDomainProgress progress = startDomain();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Timer persistLevel = meterRegistry.timer("insights.persist.level");
+        long levelsBefore = persistLevel.count();
+        double persistMillisBefore = persistLevel.totalTime(TimeUnit.MILLISECONDS);
+
+        statistics.clear();
+        GenerationTargetDTO target = insightGenerationService.ensureInsights(progress.getId(), DOMAIN, "Openings", 1, null);
+        long levels = persistLevel.count() - levelsBefore;
+        double persistMillis = persistLevel.totalTime(TimeUnit.MILLISECONDS) - persistMillisBefore;
+
+        // Insights and questions, plus one row per option and per feedback
+        int rows = INSIGHTS + INSIGHTS * QUESTIONS_PER_INSIGHT * (1 + OPTIONS.size() + OPTIONS.size());
+        assertThat(levels).isEqualTo(1);
+        logger.info("Generated level of {} rows: {} statements, {} ms to persist", rows,
+                statistics.getPrepareStatementCount(), String.format("%.1f", persistMillis / levels));
+        assertThat(insightRepository.countByTopicProgressId(target.getTopicProgressId())).isEqualTo(INSIGHTS);
+        assertThat(statistics.getEntityInsertCount()).isGreaterThanOrEqualTo(INSIGHTS + INSIGHTS * QUESTIONS_PER_INSIGHT);
+        // One statement per row, as with allocationSize 1 and no batching, would be more than twice this
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(rows / 2);
+    }
+
+    private UserDomainProgress startDomain() {
+        UserEntity user = userRepository.findByUsername("admin").orElseThrow();
+        DomainEntity domain = domainRepository.findByName(DOMAIN).orElseThrow();
+        userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .ifPresent(userDomainProgressRepository::delete);
+        return userDomainProgressRepository.save(UserDomainProgress.builder()
+                .user(user)
+                .domain(domain)
+                .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"Openings\"]}")
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private static List<Map<String, Object>> generatedInsights() {
+        return IntStream.range(0, INSIGHTS)
+                .<Map<String, Object>>mapToObj(i -> Map.of(
+                        "title", "Opening " + i,
+                        "explanation", "How to open a story, part " + i,
+                        "questions", IntStream.range(0, QUESTIONS_PER_INSIGHT)
+                                .<Map<String, Object>>mapToObj(q -> Map.of(
+                                        "questionType", "MULTIPLE_CHOICE",
+                                        "questionText", "What helps opening " + i + "." + q + "?",
+                                        "options", OPTIONS,
+                                        "correctAnswer", "Pause",
+                                        "answerFeedbacks", Map.of("Pause", "Yes", "Rush", "No", "Read the slides", "No")))
+                                .toList()))
+                .toList();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.ReviewDTO;
+import com.example.adaptivelearningbackend.entity.GenerationJob;
+import com.example.adaptivelearningbackend.enums.GenerationJobType;
+import com.example.adaptivelearningbackend.enums.GenerationPriority;
+import com.example.adaptivelearningbackend.service.GenerationJobService;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.example.adaptivelearningbackend.service.LearningService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GenerationJobWorkerTest {
+
+    private final GenerationJobService generationJobService = mock(GenerationJobService.class);
+    private final LearningService learningService = mock(LearningService.class);
+    private final GenerationJobWorker worker = new GenerationJobWorker(generationJobService, learningService,
+            mock(InsightGenerationService.class), new ObjectMapper(), 2, false);
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void reviewJobIsGeneratedForItsTopicLevelAndCompletedByItsOwner() {
+        ReviewDTO review = ReviewDTO.builder().summary("Solid grasp of base cases").build();
+        when(learningService.generateReview(7L, 3L, "Recursion", 2)).thenReturn(review);
+        when(generationJobService.claimJobs(anyString(), anyInt())).thenReturn(List.of(reviewJob()));
+
+        worker.pollForJobs();
+
+        verify(generationJobService, timeout(5000)).markSucceeded(eq(11L), argThat(workerId -> workerId != null), eq(review));
+    }
+
+    @Test
+    void heartbeatRenewsLocksOfRunningJobsOnly() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(learningService.generateReview(any(), any(), any(), any())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        when(generationJobService.claimJobs(anyString(), anyInt())).thenReturn(List.of(reviewJob()));
+
+        worker.pollForJobs();
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.renewLocks();
+        verify(generationJobService).renewLocks(anyString(), argThat((Collection<Long> ids) -> ids.equals(List.of(11L))));
+
+        release.countDown();
+        worker.shutdown(); // waits for the job to finish
+        verify(generationJobService).markSucceeded(eq(11L), anyString(), any());
+        worker.renewLocks();
+        verify(generationJobService).renewLocks(anyString(), any()); // still the single call from above
+    }
+
+    private static GenerationJob reviewJob() {
+        return GenerationJob.builder()
+                .id(11L)
+                .jobType(GenerationJobType.REVIEW)
+                .priority(GenerationPriority.INTERACTIVE)
+                .userId(7L)
+                .domainId(3L)
+                .topicName("Recursion")
+                .level(2)
+                .attempts(1)
+                .build();
+    }
+}
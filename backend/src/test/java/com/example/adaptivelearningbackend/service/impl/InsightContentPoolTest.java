@@ -0,0 +1,188 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.GenerationTargetDTO;
+import com.example.adaptivelearningbackend.dto.InsightGenerationRequestDTO;
+import com.example.adaptivelearningbackend.dto.InsightPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.PooledInsightsDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.UserAnswerDetailDTO;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.InsightContentPoolService;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Learners in the same performance bucket share generated insights; the pool keeps a few variants per bucket
+@TestPropertySource(properties = {"generation.content-pool.enabled=true", "generation.content-pool.max-variants=2"})
+class InsightContentPoolTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Negotiation Skills";
+    private static final String INSIGHTS_PATH = AI_PATH + "/generate-insights";
+
+    @Autowired
+    private InsightContentPoolService insightContentPoolService;
+    @Autowired
+    private InsightGenerationService insightGenerationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Pool entries outlive a test run, so every test works on a topic of its own
+    private String topic;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        topic = "Framing " + UUID.randomUUID();
+        aiService.stubFor(post(urlPathEqualTo(INSIGHTS_PATH)).willReturn(okJson(objectMapper.writeValueAsString(insights("AI")))));
+    }
+
+    @Test
+    void bucketFollowsAccuracyAndPace() {
+        assertThat(insightContentPoolService.performanceBucket(null)).isEqualTo("cold");
+        assertThat(insightContentPoolService.performanceBucket(performance(0, 0))).isEqualTo("cold");
+        assertThat(insightContentPoolService.performanceBucket(performance(9, 10, 4_000L))).isEqualTo("acc-high:pace-fast");
+        assertThat(insightContentPoolService.performanceBucket(performance(6, 10, 15_000L))).isEqualTo("acc-mid:pace-normal");
+        assertThat(insightContentPoolService.performanceBucket(performance(2, 10, 45_000L))).isEqualTo("acc-low:pace-slow");
+        assertThat(insightContentPoolService.performanceBucket(performance(10, 10, null))).isEqualTo("acc-high:pace-unknown");
+    }
+
+    @Test
+    void acquireServesOnlyTheSameBucket() {
+        Long entry = insightContentPoolService.contribute(DOMAIN, topic, 1, "acc-high:pace-fast", insights("pooled"));
+
+        assertThat(insightContentPoolService.acquire(DOMAIN, topic, 1, "acc-high:pace-fast", null))
+                .map(PooledInsightsDTO::getPoolEntryId).hasValue(entry);
+        assertThat(insightContentPoolService.acquire(DOMAIN, topic, 1, "acc-low:pace-slow", null)).isEmpty();
+        assertThat(insightContentPoolService.acquire(DOMAIN, topic, 2, "acc-high:pace-fast", null)).isEmpty();
+    }
+
+    @Test
+    void acquireRotatesVariantsAndSkipsTheOneTheLearnerHad() {
+        Long first = insightContentPoolService.contribute(DOMAIN, topic, 1, "cold", insights("first"));
+        Long second = insightContentPoolService.contribute(DOMAIN, topic, 1, "cold", insights("second"));
+
+        // Both start with one use; serving one makes the other the least used
+        Long served = insightContentPoolService.acquire(DOMAIN, topic, 1, "cold", null).orElseThrow().getPoolEntryId();
+        Long next = insightContentPoolService.acquire(DOMAIN, topic, 1, "cold", null).orElseThrow().getPoolEntryId();
+        assertThat(List.of(served, next)).containsExactlyInAnyOrder(first, second);
+
+        assertThat(insightContentPoolService.acquire(DOMAIN, topic, 1, "cold", first))
+                .map(PooledInsightsDTO::getPoolEntryId).hasValue(second);
+    }
+
+    @Test
+    void bucketStopsTakingVariantsAtTheLimit() {
+        assertThat(insightContentPoolService.contribute(DOMAIN, topic, 1, "cold", insights("first"))).isNotNull();
+        assertThat(insightContentPoolService.contribute(DOMAIN, topic, 1, "cold", insights("second"))).isNotNull();
+
+        assertThat(insightContentPoolService.contribute(DOMAIN, topic, 1, "cold", insights("third"))).isNull();
+        assertThat(insightContentPoolService.contribute(DOMAIN, topic, 1, "acc-low:pace-slow", insights("other"))).isNotNull();
+    }
+
+    @Test
+    void secondLearnerInTheSameBucketReusesTheFirstLearnersInsights() {
+        UserDomainProgress first = startDomain("pool-first");
+        UserDomainProgress second = startDomain("pool-second");
+        UserDomainProgress struggling = startDomain("pool-struggling");
+
+        GenerationTargetDTO generated = insightGenerationService.ensureInsights(first.getId(), DOMAIN, topic, 1, null);
+        GenerationTargetDTO reused = insightGenerationService.ensureInsights(second.getId(), DOMAIN, topic, 1, null);
+
+        aiService.verify(1, postRequestedFor(urlPathEqualTo(INSIGHTS_PATH)));
+        assertThat(poolEntryOf(reused)).isNotNull().isEqualTo(poolEntryOf(generated));
+
+        // Another bucket is a miss and goes to the AI service
+        insightGenerationService.ensureInsights(struggling.getId(), DOMAIN, topic, 1, performance(2, 10, 45_000L));
+        aiService.verify(2, postRequestedFor(urlPathEqualTo(INSIGHTS_PATH)));
+    }
+
+    private Long poolEntryOf(GenerationTargetDTO target) {
+        return topicProgressRepository.findById(target.getTopicProgressId()).orElseThrow().getContentPoolEntryId();
+    }
+
+    private UserDomainProgress startDomain(String username) {
+        UserEntity user = userRepository.findByUsername(username).orElseGet(() -> userRepository.save(UserEntity.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("not-used")
+                .roles(new HashSet<>())
+                .domainProgresses(new ArrayList<>())
+                .build()));
+        DomainEntity domain = domainRepository.findByName(DOMAIN).orElseThrow();
+        userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .ifPresent(userDomainProgressRepository::delete);
+        return userDomainProgressRepository.save(UserDomainProgress.builder()
+                .user(user)
+                .domain(domain)
+                .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"" + topic + "\"]}")
+                .topicProgresses(new ArrayList<>())
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+
+    // correct out of answered, each answer taking timeTakenMs (null: not recorded)
+    private static TopicPerformanceDataDTO performance(int correct, int answered, Long timeTakenMs) {
+        List<UserAnswerDetailDTO> answers = IntStream.range(0, answered)
+                .mapToObj(i -> UserAnswerDetailDTO.builder()
+                        .questionId((long) i)
+                        .questionText("Question " + i)
+                        .isCorrect(i < correct)
+                        .timeTakenMs(timeTakenMs)
+                        .build())
+                .toList();
+        return TopicPerformanceDataDTO.builder()
+                .insightsPerformance(List.of(InsightPerformanceDataDTO.builder()
+                        .insightId(1L)
+                        .insightTitle("Anchoring")
+                        .questionsAnswered(answers)
+                        .timesShown(1)
+                        .build()))
+                .build();
+    }
+
+    private static TopicPerformanceDataDTO performance(int correct, int answered) {
+        return performance(correct, answered, 1_000L);
+    }
+
+    private static List<InsightGenerationRequestDTO.InsightDetailDTO> insights(String source) {
+        return IntStream.range(0, 6)
+                .mapToObj(i -> {
+                    InsightGenerationRequestDTO.InsightDetailDTO insight = new InsightGenerationRequestDTO.InsightDetailDTO();
+                    insight.setTitle(source + " insight " + i);
+                    insight.setExplanation("How framing shapes an offer, part " + i);
+                    insight.setQuestions(List.of());
+                    return insight;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AdaptiveLearningBackendApplication;
+import com.example.adaptivelearningbackend.dto.GenerationTargetDTO;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one database stand in for two replicas. The stubbed AI call takes longer than the
+ * generation lease, so only a renewed lease keeps the second replica from generating the same level again.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InsightGenerationLeaseTest {
+
+    private static final String DOMAIN = "Chess Strategy & Tactics";
+    private static final String INSIGHTS_PATH = "/api/ai/generate-insights";
+    private static final String INSIGHTS_JSON = """
+            [
+              {"title": "Forks", "explanation": "One piece attacks two.",
+               "questions": [{"questionType": "TRUE_FALSE", "questionText": "A knight can fork?", "options": [],
+                              "correctAnswer": "true", "answerFeedbacks": {"true": "Right", "false": "It can"}}]},
+              {"title": "Pins", "explanation": "A piece cannot move without exposing another.",
+               "questions": [{"questionType": "TRUE_FALSE", "questionText": "A pinned piece is free?", "options": [],
+                              "correctAnswer": "false", "answerFeedbacks": {"true": "It is not", "false": "Right"}}]}
+            ]
+            """;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static WireMockServer aiService;
+    static ConfigurableApplicationContext replicaA;
+    static ConfigurableApplicationContext replicaB;
+    static Long userDomainProgressId;
+
+    @BeforeAll
+    static void startReplicas() {
+        aiService = new WireMockServer(options().dynamicPort());
+        aiService.start();
+        replicaA = startReplica();
+        replicaB = startReplica();
+        userDomainProgressId = createDomainProgress(replicaA);
+    }
+
+    @AfterAll
+    static void stopReplicas() {
+        if (replicaB != null) replicaB.close();
+        if (replicaA != null) replicaA.close();
+        if (aiService != null) aiService.stop();
+    }
+
+    @BeforeEach
+    void resetAiService() {
+        aiService.resetAll();
+        aiService.stubFor(post(urlPathEqualTo(INSIGHTS_PATH)).willReturn(okJson(INSIGHTS_JSON).withFixedDelay(5000)));
+    }
+
+    @Test
+    void renewedLeaseKeepsTheSecondReplicaWaitingForTheFirstOnesResult() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<GenerationTargetDTO> first = callers.submit(() -> replicaA.getBean(InsightGenerationService.class)
+                    .ensureInsights(userDomainProgressId, DOMAIN, "Forks and Pins", 1, null));
+            // Past the 2s lease: without renewal replica B would take the lease over and call the AI service again
+            Thread.sleep(3000);
+            Future<GenerationTargetDTO> second = callers.submit(() -> replicaB.getBean(InsightGenerationService.class)
+                    .ensureInsights(userDomainProgressId, DOMAIN, "Forks and Pins", 1, null));
+
+            GenerationTargetDTO target = first.get(30, TimeUnit.SECONDS);
+            second.get(30, TimeUnit.SECONDS);
+
+            aiService.verify(1, postRequestedFor(urlPathEqualTo(INSIGHTS_PATH)));
+            assertThat(replicaB.getBean(InsightRepository.class).countByTopicProgressId(target.getTopicProgressId())).isEqualTo(2);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void resultIsDiscardedWhenTheLeasePassedToAnotherGenerator() throws Exception {
+        InsightGenerationService insightGenerationService = replicaA.getBean(InsightGenerationService.class);
+        GenerationTargetDTO target = insightGenerationService.reserveTopicLevel(userDomainProgressId, DOMAIN, "Endgames", 1);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> generation = callers.submit(() -> insightGenerationService.generateAndPersist(target, null));
+            Thread.sleep(1000);
+            // Another generator holds the lease by the time the AI result arrives
+            replicaB.getBean(JdbcTemplate.class).update(
+                    "UPDATE topic_progress SET generation_lease_owner = 'other-replica', generation_lease_until = ? WHERE id = ?",
+                    LocalDateTime.now().plusMinutes(5), target.getTopicProgressId());
+
+            generation.get(30, TimeUnit.SECONDS);
+
+            assertThat(replicaA.getBean(InsightRepository.class).countByTopicProgressId(target.getTopicProgressId())).isZero();
+            assertThat(replicaA.getBean(MeterRegistry.class).counter("insights.generation.lock.lost").count()).isEqualTo(1.0);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static ConfigurableApplicationContext startReplica() {
+        return new SpringApplicationBuilder(AdaptiveLearningBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.jpa.show-sql=false",
+                        "python.service.baseurl=" + aiService.baseUrl() + "/api/ai",
+                        "python.service.wire-format=json",
+                        "python.service.retry.insights.max-retries=0",
+                        "generation.streaming.enabled=false",
+                        "generation.content-pool.enabled=false",
+                        "generation.jobs.worker-enabled=false",
+                        "generation.lock.lease-seconds=2",
+                        "generation.lock.poll-interval-ms=100")
+                .run();
+    }
+
+    private static Long createDomainProgress(ConfigurableApplicationContext context) {
+        return context.getBean(TransactionTemplate.class).execute(status -> context.getBean(UserDomainProgressRepository.class)
+                .save(UserDomainProgress.builder()
+                        .user(context.getBean(UserRepository.class).findByUsername("admin").orElseThrow())
+                        .domain(context.getBean(DomainRepository.class).findByName(DOMAIN).orElseThrow())
+                        .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"Forks and Pins\", \"Endgames\"]}")
+                        .startedAt(LocalDateTime.now())
+                        .build())
+                .getId());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.entity.LearningPathCacheEntry;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.LearningPathCacheRepository;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// TTL, size bound and invalidation of the learning-path cache; the size bound is small so a few entries overflow it
+@TestPropertySource(properties = {"generation.path-cache.enabled=true", "generation.path-cache.max-entries=3"})
+class LearningPathCacheServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private LearningPathCacheService learningPathCacheService;
+    @Autowired
+    private LearningPathCacheServiceImpl learningPathCacheServiceImpl;
+    @Autowired
+    private LearningPathCacheRepository learningPathCacheRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+
+    private Long philosophy;
+    private Long chess;
+
+    @BeforeEach
+    void setUp() {
+        learningPathCacheRepository.deleteAll(); // The size bound counts every unpinned entry in the database
+        philosophy = domainRepository.findByName("Philosophy").orElseThrow().getId();
+        chess = domainRepository.findByName("Chess Strategy & Tactics").orElseThrow().getId();
+    }
+
+    @Test
+    void storedPathIsServedForTheSameAnswersInAnyOrder() {
+        learningPathCacheService.store(philosophy, Map.of(1L, "Beginner", 2L, "Ethics"), path("Ethics", "Logic"));
+
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(2L, "Ethics", 1L, "Beginner")))
+                .map(LearningPathDTO::getTopics).hasValue(List.of("Ethics", "Logic"));
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "Advanced", 2L, "Ethics"))).isEmpty();
+    }
+
+    @Test
+    void expiredPathIsNotServedAndIsPurged() {
+        Map<Long, String> answers = Map.of(1L, "Beginner");
+        learningPathCacheService.store(philosophy, answers, path("Ethics"));
+        learningPathCacheService.storePinned(chess, answers, path("Openings"));
+        expireAll();
+
+        assertThat(learningPathCacheService.lookup(philosophy, answers)).isEmpty();
+        assertThat(learningPathCacheService.lookup(chess, answers)).isPresent(); // catalogue entries have no TTL
+
+        learningPathCacheServiceImpl.purgeExpired();
+
+        assertThat(learningPathCacheRepository.findAll()).extracting(LearningPathCacheEntry::getDomainId).containsExactly(chess);
+    }
+
+    @Test
+    void leastRecentlyUsedPathIsEvictedBeyondTheSizeBound() {
+        learningPathCacheService.store(philosophy, Map.of(1L, "A"), path("A"));
+        learningPathCacheService.store(philosophy, Map.of(1L, "B"), path("B"));
+        learningPathCacheService.store(philosophy, Map.of(1L, "C"), path("C"));
+        learningPathCacheService.storePinned(philosophy, Map.of(1L, "Catalogue"), path("Catalogue"));
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "A"))).isPresent(); // A is now the most recent
+
+        learningPathCacheService.store(philosophy, Map.of(1L, "D"), path("D"));
+
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "B"))).isEmpty();
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "A"))).isPresent();
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "C"))).isPresent();
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "D"))).isPresent();
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "Catalogue"))).isPresent(); // pinned, not counted
+    }
+
+    @Test
+    void invalidatingADomainLeavesOtherDomainsCached() {
+        Map<Long, String> answers = Map.of(1L, "Beginner");
+        learningPathCacheService.store(philosophy, answers, path("Ethics"));
+        learningPathCacheService.storePinned(philosophy, Map.of(1L, "Advanced"), path("Metaphysics"));
+        learningPathCacheService.store(chess, answers, path("Openings"));
+
+        assertThat(learningPathCacheService.invalidateDomain(philosophy)).isEqualTo(2);
+
+        assertThat(learningPathCacheService.lookup(philosophy, answers)).isEmpty();
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "Advanced"))).isEmpty();
+        assertThat(learningPathCacheService.lookup(chess, answers)).isPresent();
+    }
+
+    @Test
+    void fallbackPathIsNotCached() {
+        LearningPathDTO fallback = path("Introduction");
+        fallback.setFallback(true);
+
+        learningPathCacheService.store(philosophy, Map.of(1L, "Beginner"), fallback);
+
+        assertThat(learningPathCacheService.lookup(philosophy, Map.of(1L, "Beginner"))).isEmpty();
+    }
+
+    private void expireAll() {
+        List<LearningPathCacheEntry> entries = learningPathCacheRepository.findAll();
+        entries.forEach(entry -> entry.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+        learningPathCacheRepository.saveAll(entries);
+    }
+
+    private static LearningPathDTO path(String... topics) {
+        LearningPathDTO path = new LearningPathDTO();
+        path.setDomainName("Test domain");
+        path.setTopics(List.of(topics));
+        return path;
+    }
+}
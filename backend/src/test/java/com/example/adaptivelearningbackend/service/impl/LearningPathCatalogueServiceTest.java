@@ -0,0 +1,146 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.LearningPathCatalogueCoverageDTO;
+import com.example.adaptivelearningbackend.dto.LearningPathDTO;
+import com.example.adaptivelearningbackend.entity.AssessmentQuestionEntity;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.repository.AssessmentQuestionRepository;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.service.AiIntegrationService;
+import com.example.adaptivelearningbackend.service.LearningPathCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LearningPathCatalogueServiceTest {
+
+    private static final DomainEntity DOMAIN = DomainEntity.builder().id(1L).name("Chess Strategy & Tactics").build();
+    private static final Map<Long, String> PINNED = Map.of(1L, "Openings", 2L, "Rarely");
+    private static final Map<Long, String> CACHED = Map.of(1L, "Endgames", 2L, "Rarely");
+    private static final Map<Long, String> NEW = Map.of(1L, "Tactics", 2L, "Weekly");
+
+    private final UserDomainProgressRepository userDomainProgressRepository = mock(UserDomainProgressRepository.class);
+    private final DomainRepository domainRepository = mock(DomainRepository.class);
+    private final AssessmentQuestionRepository assessmentQuestionRepository = mock(AssessmentQuestionRepository.class);
+    private final LearningPathCacheService learningPathCacheService = mock(LearningPathCacheService.class);
+    private final AiIntegrationService aiIntegrationService = mock(AiIntegrationService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LearningPathCatalogueServiceImpl catalogue = new LearningPathCatalogueServiceImpl(
+            userDomainProgressRepository, domainRepository, assessmentQuestionRepository, learningPathCacheService,
+            aiIntegrationService, objectMapper, new SimpleMeterRegistry(), false);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogue, "profilesPerDomain", 20);
+        ReflectionTestUtils.setField(catalogue, "minOccurrences", 2L);
+        ReflectionTestUtils.setField(catalogue, "throttleMs", 0L);
+        ReflectionTestUtils.setField(catalogue, "maxRunMinutes", 180L);
+        ReflectionTestUtils.setField(catalogue, "maxConsecutiveFailures", 2);
+        when(domainRepository.findAllById(any())).thenReturn(List.of(DOMAIN));
+        when(assessmentQuestionRepository.findByDomainId(1L)).thenReturn(List.of(question(1L), question(2L)));
+        when(learningPathCacheService.findPinned(eq(1L), anyCollection())).thenAnswer(invocation -> {
+            Collection<Map<Long, String>> profiles = invocation.getArgument(1);
+            return profiles.stream().filter(PINNED::equals).collect(Collectors.toSet());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogue.shutdown();
+    }
+
+    @Test
+    void runSkipsCataloguedProfilesAndPinsCachedOnesWithoutAnAiCall() throws Exception {
+        observedProfiles(Map.of(PINNED, 5, CACHED, 3, NEW, 2));
+        when(learningPathCacheService.pinExisting(1L, CACHED)).thenReturn(true);
+        when(aiIntegrationService.generateLearningPath(any(), any(), any())).thenReturn(path(false));
+
+        LearningPathCatalogueCoverageDTO.LastRun run = runToCompletion();
+
+        verify(learningPathCacheService, never()).pinExisting(1L, PINNED);
+        verify(learningPathCacheService, never()).storePinned(eq(1L), eq(CACHED), any());
+        verify(learningPathCacheService).storePinned(eq(1L), eq(NEW), any());
+        verify(aiIntegrationService, times(1)).generateLearningPath(any(), any(), any());
+        assertThat(run.getPinnedFromCache()).isEqualTo(1);
+        assertThat(run.getGenerated()).isEqualTo(1);
+        assertThat(run.getRemaining()).isZero();
+        assertThat(run.getStopReason()).isNull();
+    }
+
+    @Test
+    void runStopsAfterConsecutiveFailuresAndLeavesTheRestForTheNextRun() throws Exception {
+        observedProfiles(Map.of(CACHED, 5, NEW, 4, Map.of(1L, "Openings", 2L, "Daily"), 3,
+                Map.of(1L, "Endgames", 2L, "Daily"), 2));
+        when(aiIntegrationService.generateLearningPath(any(), any(), any())).thenReturn(path(true));
+
+        LearningPathCatalogueCoverageDTO.LastRun run = runToCompletion();
+
+        verify(aiIntegrationService, times(2)).generateLearningPath(any(), any(), any());
+        verify(learningPathCacheService, never()).storePinned(anyLong(), any(), any());
+        assertThat(run.getFailed()).isEqualTo(2);
+        assertThat(run.getRemaining()).isEqualTo(4);
+        assertThat(run.getStopReason()).startsWith("2 consecutive failures");
+    }
+
+    // Each profile submitted by the given number of learners
+    private void observedProfiles(Map<Map<Long, String>, Integer> occurrences) throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Map<Long, String>, Integer> entry : occurrences.entrySet()) {
+            String json = objectMapper.writeValueAsString(entry.getKey());
+            for (int i = 0; i < entry.getValue(); i++) {
+                rows.add(new Object[]{1L, json});
+            }
+        }
+        when(userDomainProgressRepository.findAssessmentAnswerProfiles()).thenReturn(rows);
+    }
+
+    private LearningPathCatalogueCoverageDTO.LastRun runToCompletion() throws InterruptedException {
+        assertThat(catalogue.startRun()).isTrue();
+        long deadline = System.currentTimeMillis() + 5000;
+        LearningPathCatalogueCoverageDTO coverage = catalogue.getCoverage();
+        while ((coverage.isRunning() || coverage.getLastRun() == null) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            coverage = catalogue.getCoverage();
+        }
+        assertThat(coverage.getLastRun()).isNotNull();
+        return coverage.getLastRun();
+    }
+
+    private static AssessmentQuestionEntity question(Long id) {
+        return AssessmentQuestionEntity.builder()
+                .id(id)
+                .domain(DOMAIN)
+                .questionText("Question " + id)
+                .options(new ArrayList<>(List.of("Openings", "Endgames", "Tactics")))
+                .build();
+    }
+
+    private static LearningPathDTO path(boolean fallback) {
+        LearningPathDTO path = new LearningPathDTO();
+        path.setDomainName(DOMAIN.getName());
+        path.setTopics(List.of("Forks", "Pins"));
+        path.setFallback(fallback);
+        return path;
+    }
+}
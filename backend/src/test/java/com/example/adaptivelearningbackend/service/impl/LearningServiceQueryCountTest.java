@@ -0,0 +1,242 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.DomainOverviewDTO;
+import com.example.adaptivelearningbackend.dto.SimpleInsightInfoDTO;
+import com.example.adaptivelearningbackend.dto.InsightPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.dto.TopicOverviewDTO;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.InsightEntity;
+import com.example.adaptivelearningbackend.entity.QuestionEntity;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserAnswer;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.enums.QuestionType;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.QuestionRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserAnswerRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.LearningService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement counts of the read paths that used to load a topic level entity by entity
+class LearningServiceQueryCountTest extends AbstractIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LearningServiceQueryCountTest.class);
+
+    @Autowired
+    private LearningService learningService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private InsightRepository insightRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.findByUsername("admin").orElseThrow();
+    }
+
+    @Test
+    void domainOverviewTakesTwoStatementsWhateverTheNumberOfTopicsAndLevels() {
+        List<String> topics = List.of("Variables", "Loops", "Functions", "Classes", "Modules");
+        UserDomainProgress progress = startDomain("Python Programming", topics);
+        topicLevel(progress, "Variables", 1, false, 6);
+        topicLevel(progress, "Variables", 2, false, 2);
+        topicLevel(progress, "Variables", 3, true, 0); // pre-generated, not reached yet
+        topicLevel(progress, "Loops", 1, false, 6);
+        topicLevel(progress, "Functions", 1, false, 3);
+
+        statistics.clear();
+        DomainOverviewDTO overview = learningService.getDomainOverview(user.getId(), progress.getDomain().getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(overview.getTopics()).extracting(TopicOverviewDTO::getTopicName).containsExactlyElementsOf(topics);
+        assertThat(overview.getTopics()).extracting(TopicOverviewDTO::getLevel).containsExactly(2, 1, 1, 1, 1);
+        assertThat(overview.getTopics()).extracting(TopicOverviewDTO::isReviewAvailable)
+                .containsExactly(false, true, false, false, false);
+        assertThat(overview.getTopics()).extracting(TopicOverviewDTO::isUnlocked)
+                .containsExactly(true, true, false, false, false);
+    }
+
+    @Test
+    void topicPerformanceDataTakesThreeStatementsWhateverTheSizeOfTheLevel() {
+        UserDomainProgress progress = startDomain("Cybersecurity Basics", List.of("Phishing", "Passwords"));
+        TopicProgress smallLevel = topicLevel(progress, "Phishing", 1, false, 1);
+        answeredInsights(smallLevel, 1, 1);
+        TopicProgress fullLevel = topicLevel(progress, "Passwords", 1, false, 6);
+        answeredInsights(fullLevel, 6, 2);
+
+        statistics.clear();
+        TopicPerformanceDataDTO small = gatherInsightPerformanceData(smallLevel);
+        long smallLevelStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        TopicPerformanceDataDTO full = gatherInsightPerformanceData(fullLevel);
+
+        assertThat(smallLevelStatements).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(small.getInsightsPerformance()).hasSize(1);
+        assertThat(full.getInsightsPerformance()).hasSize(6).allSatisfy(insight -> {
+            assertThat(insight.getQuestionsAnswered()).hasSize(2);
+            assertThat(insight.getQuestionsAnswered()).allSatisfy(answer ->
+                    assertThat(answer.getOptions()).containsExactly("A", "B", "C"));
+        });
+        assertThat(full.getInsightsPerformance()).extracting(InsightPerformanceDataDTO::getTimesShown).containsOnly(1);
+    }
+
+    // Serving one insight: level counters, the selection list and the chosen insight with its questions, against the
+    // same level loaded as entities with every collection initialized, as the eager mappings used to load it
+    @Test
+    void servingAnInsightLoadsOnlyTheChosenInsightsQuestions() {
+        UserDomainProgress progress = startDomain("Cybersecurity Basics", List.of("Firewalls"));
+        TopicProgress level = topicLevel(progress, "Firewalls", 1, false, 0);
+        answeredInsights(level, 6, 2);
+
+        ReadCost eager = measure(() -> topicProgressRepository.findById(level.getId()).orElseThrow().getInsights()
+                .forEach(insight -> insight.getQuestions().forEach(question -> {
+                    Hibernate.initialize(question.getOptions());
+                    Hibernate.initialize(question.getAnswerFeedbacks());
+                })));
+        ReadCost lazy = measure(() -> {
+            assertThat(topicProgressRepository.findCounters(progress.getId(), "Firewalls", 1)).isPresent();
+            List<SimpleInsightInfoDTO> candidates = insightRepository.findSelectionCandidatesForTopic(level.getId());
+            assertThat(candidates).hasSize(6);
+            insightRepository.findWithQuestionsById(candidates.get(0).getInsightId()).orElseThrow().getQuestions()
+                    .forEach(question -> {
+                        Hibernate.initialize(question.getOptions());
+                        Hibernate.initialize(question.getAnswerFeedbacks());
+                    });
+        });
+
+        logger.info("Serving one insight of a 6 x 2 level: entity-graph read {}, lazy read {}", eager, lazy);
+        assertThat(eager.entities()).isEqualTo(1 + 6 + 12);
+        assertThat(lazy.entities()).isEqualTo(1 + 2);
+        assertThat(lazy.collections()).isLessThan(eager.collections());
+        assertThat(lazy.statements()).isLessThanOrEqualTo(eager.statements());
+    }
+
+    record ReadCost(long statements, long entities, long collections, long allocatedBytes) {
+        @Override
+        public String toString() {
+            return statements + " statements, " + entities + " entities, " + collections + " collections, "
+                    + allocatedBytes / 1024 + " KiB allocated";
+        }
+    }
+
+    // Statements, entities and collections loaded and bytes allocated by this thread, in a fresh persistence context
+    private ReadCost measure(Runnable read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        statistics.clear();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        transactionTemplate.executeWithoutResult(status -> read.run());
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new ReadCost(statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+                statistics.getCollectionLoadCount(), allocated);
+    }
+
+    private TopicPerformanceDataDTO gatherInsightPerformanceData(TopicProgress level) {
+        return ReflectionTestUtils.invokeMethod(AopTestUtils.getTargetObject(learningService), "gatherInsightPerformanceData",
+                user.getId(), "Cybersecurity Basics", level.getTopicName(), level.getLevel(), level);
+    }
+
+    // Insights with multiple-choice questions, each answered once by the user
+    private void answeredInsights(TopicProgress level, int insights, int questionsPerInsight) {
+        for (int i = 0; i < insights; i++) {
+            InsightEntity insight = insightRepository.save(InsightEntity.builder()
+                    .topicProgress(level)
+                    .title(level.getTopicName() + " insight " + i)
+                    .explanation("Explanation " + i)
+                    .level(level.getLevel())
+                    .timesShown(1)
+                    .questions(new ArrayList<>())
+                    .build());
+            for (int q = 0; q < questionsPerInsight; q++) {
+                QuestionEntity question = questionRepository.save(QuestionEntity.builder()
+                        .insight(insight)
+                        .questionType(QuestionType.MULTIPLE_CHOICE)
+                        .questionText("Question " + i + "." + q)
+                        .options(new ArrayList<>(List.of("A", "B", "C")))
+                        .answerFeedbacks(new HashMap<>())
+                        .correctAnswer("A")
+                        .build());
+                userAnswerRepository.save(UserAnswer.builder()
+                        .user(user)
+                        .question(question)
+                        .selectedAnswer(q % 2 == 0 ? "A" : "B")
+                        .isCorrect(q % 2 == 0)
+                        .timeTakenMs(1500L)
+                        .build());
+            }
+        }
+    }
+
+    private UserDomainProgress startDomain(String domainName, List<String> topics) {
+        DomainEntity domain = domainRepository.findByName(domainName).orElseThrow();
+        userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .ifPresent(userDomainProgressRepository::delete);
+        String learningPathJson = "{\"domainName\": \"" + domainName + "\", \"topics\": [\""
+                + String.join("\", \"", topics) + "\"]}";
+        return userDomainProgressRepository.save(UserDomainProgress.builder()
+                .user(user)
+                .domain(domain)
+                .learningPathJson(learningPathJson)
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private TopicProgress topicLevel(UserDomainProgress progress, String topicName, int level, boolean staged,
+                                     int completedInsights) {
+        return topicProgressRepository.save(TopicProgress.builder()
+                .userDomainProgress(progress)
+                .topicName(topicName)
+                .level(level)
+                .staged(staged)
+                .insightsGenerated(true)
+                .completedInsightsCount(completedInsights)
+                .requiredInsightsForLevelCompletion(6)
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+}
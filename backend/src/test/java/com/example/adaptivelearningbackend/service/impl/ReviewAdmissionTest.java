@@ -0,0 +1,139 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.ReviewDTO;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.GenerationJob;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.exception.GenerationPendingException;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.GenerationJobRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.LearningService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// getReview answers inline while the review endpoint is within budget and hands the call to a generation job (202) when not
+class ReviewAdmissionTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Philosophy";
+    private static final String REVIEW_PATH = AI_PATH + "/generate-review";
+
+    @Autowired
+    private LearningService learningService;
+    @Autowired
+    private AiAdmissionControl aiAdmissionControl;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private GenerationJobRepository generationJobRepository;
+
+    private UserEntity user;
+    private DomainEntity domain;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername("admin").orElseThrow();
+        domain = domainRepository.findByName(DOMAIN).orElseThrow();
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson("""
+                {"summary": "Sound grasp of ethics", "strengths": ["Utilitarianism"], "weaknesses": [], "revisionQuestions": []}
+                """)));
+    }
+
+    // The admission control is shared by every test of this application context
+    @AfterEach
+    void bringReviewLatencyBackUnderBudget() {
+        recentReviewCalls(Duration.ZERO);
+    }
+
+    @Test
+    void underBudgetReviewIsGeneratedInline() {
+        finishedLevel(6);
+        recentReviewCalls(Duration.ofMillis(200));
+
+        ReviewDTO review = learningService.getReview(user.getId(), domain.getId());
+
+        assertThat(review.getSummary()).isEqualTo("Sound grasp of ethics");
+        aiService.verify(1, postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+    }
+
+    @Test
+    void overBudgetReviewIsQueuedAsAJob() {
+        UserDomainProgress progress = finishedLevel(6);
+        recentReviewCalls(Duration.ofMinutes(2));
+
+        assertThatThrownBy(() -> learningService.getReview(user.getId(), domain.getId()))
+                .isInstanceOfSatisfying(GenerationPendingException.class, pending -> {
+                    assertThat(pending.getJob().getId()).isNotNull();
+                    GenerationJob job = generationJobRepository.findById(pending.getJob().getId()).orElseThrow();
+                    assertThat(job.getUserDomainProgressId()).isEqualTo(progress.getId());
+                    assertThat(job.getTopicName()).isEqualTo("Ethics");
+                });
+        aiService.verify(0, postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+    }
+
+    @Test
+    void unfinishedLevelIsRefusedBeforeAnythingIsQueued() {
+        finishedLevel(3);
+        recentReviewCalls(Duration.ofMinutes(2));
+        long jobsBefore = generationJobRepository.count();
+
+        assertThatThrownBy(() -> learningService.getReview(user.getId(), domain.getId()))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(generationJobRepository.count()).isEqualTo(jobsBefore);
+    }
+
+    // Feeds the review endpoint's moving average, as AiIntegrationServiceImpl does after each call
+    private void recentReviewCalls(Duration latency) {
+        for (int i = 0; i < 30; i++) {
+            aiAdmissionControl.callStarted();
+            aiAdmissionControl.callFinished("/generate-review", latency.toNanos());
+        }
+    }
+
+    private UserDomainProgress finishedLevel(int completedInsights) {
+        userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .ifPresent(userDomainProgressRepository::delete);
+        UserDomainProgress progress = userDomainProgressRepository.save(UserDomainProgress.builder()
+                .user(user)
+                .domain(domain)
+                .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"Ethics\"]}")
+                .topicProgresses(new ArrayList<>())
+                .startedAt(LocalDateTime.now())
+                .build());
+        topicProgressRepository.save(TopicProgress.builder()
+                .userDomainProgress(progress)
+                .topicName("Ethics")
+                .level(1)
+                .insightsGenerated(true)
+                .completedInsightsCount(completedInsights)
+                .requiredInsightsForLevelCompletion(6)
+                .startedAt(LocalDateTime.now())
+                .build());
+        return progress;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.InsightEntity;
+import com.example.adaptivelearningbackend.entity.QuestionEntity;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserAnswer;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.enums.QuestionType;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.QuestionRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserAnswerRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The review's revision questions are sampled in the database from the questions of one level one learner answered
+class RevisionQuestionSamplingTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Creative Writing";
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private InsightRepository insightRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private UserEntity learner;
+    private UserEntity otherLearner;
+
+    @BeforeEach
+    void setUp() {
+        learner = userRepository.findByUsername("admin").orElseThrow();
+        otherLearner = userRepository.findByUsername("sampling-other").orElseGet(() -> userRepository.save(UserEntity.builder()
+                .username("sampling-other")
+                .email("sampling-other@example.com")
+                .password("not-used")
+                .roles(new HashSet<>())
+                .domainProgresses(new ArrayList<>())
+                .build()));
+    }
+
+    @Test
+    void samplesDistinctQuestionsOfTheLevelTheLearnerAnswered() {
+        TopicProgress level = topicLevel(learner, "Dialogue", 1);
+        TopicProgress nextLevel = topicLevel(learner, "Dialogue", 2);
+        List<QuestionEntity> questions = questions(level, 8);
+        Set<Long> answeredByLearner = new HashSet<>();
+        for (QuestionEntity question : questions.subList(0, 5)) {
+            answer(learner, question);
+            answer(learner, question); // a retried question is still one candidate
+            answeredByLearner.add(question.getId());
+        }
+        questions.subList(5, 8).forEach(question -> answer(otherLearner, question));
+        questions(nextLevel, 4).forEach(question -> answer(learner, question));
+
+        for (int i = 0; i < 10; i++) {
+            List<Long> sample = userAnswerRepository.sampleAnsweredQuestionIds(learner.getId(), level.getId(), 3);
+
+            assertThat(sample).hasSize(3).doesNotHaveDuplicates();
+            assertThat(answeredByLearner).containsAll(sample);
+        }
+    }
+
+    @Test
+    void returnsEveryAnsweredQuestionWhenFewerThanTheLimit() {
+        TopicProgress level = topicLevel(learner, "Pacing", 1);
+        List<QuestionEntity> questions = questions(level, 4);
+        answer(learner, questions.get(0));
+        answer(learner, questions.get(2));
+        answer(learner, questions.get(2));
+
+        assertThat(userAnswerRepository.sampleAnsweredQuestionIds(learner.getId(), level.getId(), 3))
+                .containsExactlyInAnyOrder(questions.get(0).getId(), questions.get(2).getId());
+    }
+
+    @Test
+    void isEmptyForALevelWithoutAnswers() {
+        TopicProgress level = topicLevel(learner, "Voice", 1);
+        questions(level, 3).forEach(question -> answer(otherLearner, question));
+
+        assertThat(userAnswerRepository.sampleAnsweredQuestionIds(learner.getId(), level.getId(), 3)).isEmpty();
+    }
+
+    private TopicProgress topicLevel(UserEntity user, String topicName, int level) {
+        DomainEntity domain = domainRepository.findByName(DOMAIN).orElseThrow();
+        UserDomainProgress progress = userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .orElseGet(() -> userDomainProgressRepository.save(UserDomainProgress.builder()
+                        .user(user)
+                        .domain(domain)
+                        .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"" + topicName + "\"]}")
+                        .topicProgresses(new ArrayList<>())
+                        .startedAt(LocalDateTime.now())
+                        .build()));
+        return topicProgressRepository.save(TopicProgress.builder()
+                .userDomainProgress(progress)
+                .topicName(topicName)
+                .level(level)
+                .insightsGenerated(true)
+                .requiredInsightsForLevelCompletion(6)
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private List<QuestionEntity> questions(TopicProgress level, int count) {
+        InsightEntity insight = insightRepository.save(InsightEntity.builder()
+                .topicProgress(level)
+                .title(level.getTopicName() + " insight")
+                .explanation("Explanation")
+                .level(level.getLevel())
+                .questions(new ArrayList<>())
+                .build());
+        List<QuestionEntity> questions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            questions.add(questionRepository.save(QuestionEntity.builder()
+                    .insight(insight)
+                    .questionType(QuestionType.TRUE_FALSE)
+                    .questionText(level.getTopicName() + " question " + i)
+                    .options(new ArrayList<>())
+                    .answerFeedbacks(new HashMap<>())
+                    .correctAnswer("true")
+                    .build()));
+        }
+        return questions;
+    }
+
+    private void answer(UserEntity user, QuestionEntity question) {
+        userAnswerRepository.save(UserAnswer.builder()
+                .user(user)
+                .question(question)
+                .selectedAnswer("true")
+                .isCorrect(true)
+                .timeTakenMs(1200L)
+                .build());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentJoinsShareOneUpstreamSubscription() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(10), meterRegistry);
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> upstream = Mono.delay(Duration.ofMillis(500))
+                .map(tick -> "learning path")
+                .doOnSubscribe(subscription -> subscriptions.incrementAndGet());
+
+        int callers = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return singleFlight.join("learning-path:7:Chess", () -> upstream).block();
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("learning path");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(subscriptions).hasValue(1);
+        assertThat(meterRegistry.counter("ai.singleflight.calls", "role", "leader").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("ai.singleflight.calls", "role", "joiner").count()).isEqualTo(callers - 1.0);
+    }
+
+    @Test
+    void joinerTimingOutDoesNotCancelTheSharedCall() {
+        SingleFlight singleFlight = new SingleFlight(Duration.ofMillis(400), meterRegistry);
+        AtomicInteger subscriptions = new AtomicInteger();
+        AtomicInteger cancellations = new AtomicInteger();
+        Mono<String> upstream = Mono.delay(Duration.ofMillis(600))
+                .map(tick -> "review")
+                .doOnSubscribe(subscription -> subscriptions.incrementAndGet())
+                .doOnCancel(cancellations::incrementAndGet);
+
+        assertThatThrownBy(() -> singleFlight.join("review:7", () -> upstream).block())
+                .hasCauseInstanceOf(TimeoutException.class);
+        // Still in flight: the next caller gets the shared result instead of starting a call of its own
+        assertThat(singleFlight.join("review:7", () -> Mono.just("second call")).block()).isEqualTo("review");
+        assertThat(subscriptions).hasValue(1);
+        assertThat(cancellations).hasValue(0);
+    }
+}
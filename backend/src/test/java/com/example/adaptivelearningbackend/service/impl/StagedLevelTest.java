@@ -0,0 +1,146 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.GenerationTargetDTO;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A level pre-generated in the background is promoted when the learner reaches it, or discarded when it no longer applies
+class StagedLevelTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Chess Strategy & Tactics";
+    private static final String TOPIC = "Openings";
+    private static final String INSIGHTS_PATH = AI_PATH + "/generate-insights";
+
+    @Autowired
+    private InsightGenerationService insightGenerationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private InsightRepository insightRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UserDomainProgress progress;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        aiService.stubFor(post(urlPathEqualTo(INSIGHTS_PATH)).willReturn(okJson(objectMapper.writeValueAsString(generatedInsights()))));
+        progress = startDomain();
+    }
+
+    @Test
+    void reachedStagedLevelIsPromotedWithoutRegeneration() {
+        GenerationTargetDTO staged = insightGenerationService.ensureInsightsInBackground(progress.getId(), DOMAIN, TOPIC, 2, null);
+        assertThat(topicLevel(2)).satisfies(level -> {
+            assertThat(level.isStaged()).isTrue();
+            assertThat(level.isInsightsGenerated()).isTrue();
+            assertThat(level.getStartedAt()).isNull();
+        });
+        double hitsBefore = pregenerationLookups("hit");
+
+        GenerationTargetDTO reached = insightGenerationService.ensureInsights(progress.getId(), DOMAIN, TOPIC, 2, null);
+
+        assertThat(reached.getTopicProgressId()).isEqualTo(staged.getTopicProgressId());
+        assertThat(reached.isNeedsGeneration()).isFalse();
+        assertThat(topicLevel(2)).satisfies(level -> {
+            assertThat(level.isStaged()).isFalse();
+            assertThat(level.getStartedAt()).isNotNull();
+        });
+        assertThat(insightRepository.countByTopicProgressId(staged.getTopicProgressId())).isEqualTo(6);
+        aiService.verify(1, postRequestedFor(urlPathEqualTo(INSIGHTS_PATH)));
+        assertThat(pregenerationLookups("hit")).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void discardedStagedLevelIsRemovedWithItsInsights() {
+        GenerationTargetDTO staged = insightGenerationService.ensureInsightsInBackground(progress.getId(), DOMAIN, TOPIC, 2, null);
+        assertThat(insightRepository.countByTopicProgressId(staged.getTopicProgressId())).isEqualTo(6);
+
+        assertThat(insightGenerationService.discardStagedLevel(progress.getId(), TOPIC, 2)).isTrue();
+
+        assertThat(topicProgressRepository.findByUserDomainProgressIdAndTopicNameAndLevel(progress.getId(), TOPIC, 2)).isEmpty();
+        assertThat(insightRepository.countByTopicProgressId(staged.getTopicProgressId())).isZero();
+    }
+
+    @Test
+    void reachedLevelIsNotDiscarded() {
+        GenerationTargetDTO reached = insightGenerationService.ensureInsights(progress.getId(), DOMAIN, TOPIC, 1, null);
+
+        assertThat(insightGenerationService.discardStagedLevel(progress.getId(), TOPIC, 1)).isFalse();
+        assertThat(insightGenerationService.discardStagedLevel(progress.getId(), TOPIC, 3)).isFalse();
+
+        assertThat(insightRepository.countByTopicProgressId(reached.getTopicProgressId())).isEqualTo(6);
+    }
+
+    private TopicProgress topicLevel(int level) {
+        return topicProgressRepository.findByUserDomainProgressIdAndTopicNameAndLevel(progress.getId(), TOPIC, level).orElseThrow();
+    }
+
+    private double pregenerationLookups(String outcome) {
+        Counter counter = meterRegistry.find("insights.pregeneration.lookups").tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private UserDomainProgress startDomain() {
+        UserEntity user = userRepository.findByUsername("admin").orElseThrow();
+        DomainEntity domain = domainRepository.findByName(DOMAIN).orElseThrow();
+        userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .ifPresent(userDomainProgressRepository::delete);
+        return userDomainProgressRepository.save(UserDomainProgress.builder()
+                .user(user)
+                .domain(domain)
+                .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"" + TOPIC + "\"]}")
+                .topicProgresses(new ArrayList<>())
+                .startedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private static List<Map<String, Object>> generatedInsights() {
+        return IntStream.range(0, 6)
+                .<Map<String, Object>>mapToObj(i -> Map.of(
+                        "title", "Opening principle " + i,
+                        "explanation", "Develop pieces and control the centre, part " + i,
+                        "questions", List.of(Map.of(
+                                "questionType", "TRUE_FALSE",
+                                "questionText", "Is principle " + i + " about development?",
+                                "options", List.of(),
+                                "correctAnswer", "true",
+                                "answerFeedbacks", Map.of("true", "Right", "false", "It is")))))
+                .toList();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.AbstractIntegrationTest;
+import com.example.adaptivelearningbackend.dto.ReviewDTO;
+import com.example.adaptivelearningbackend.entity.DomainEntity;
+import com.example.adaptivelearningbackend.entity.InsightEntity;
+import com.example.adaptivelearningbackend.entity.QuestionEntity;
+import com.example.adaptivelearningbackend.entity.TopicProgress;
+import com.example.adaptivelearningbackend.entity.UserAnswer;
+import com.example.adaptivelearningbackend.entity.UserDomainProgress;
+import com.example.adaptivelearningbackend.entity.UserEntity;
+import com.example.adaptivelearningbackend.enums.QuestionType;
+import com.example.adaptivelearningbackend.repository.DomainRepository;
+import com.example.adaptivelearningbackend.repository.InsightRepository;
+import com.example.adaptivelearningbackend.repository.QuestionRepository;
+import com.example.adaptivelearningbackend.repository.TopicProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserAnswerRepository;
+import com.example.adaptivelearningbackend.repository.UserDomainProgressRepository;
+import com.example.adaptivelearningbackend.repository.UserRepository;
+import com.example.adaptivelearningbackend.service.LearningService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A generated review is stored with the fingerprint of the answers it was built from and served again until they change
+class StoredReviewTest extends AbstractIntegrationTest {
+
+    private static final String DOMAIN = "Philosophy";
+    private static final String REVIEW_PATH = AI_PATH + "/generate-review";
+
+    @Autowired
+    private LearningService learningService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DomainRepository domainRepository;
+    @Autowired
+    private UserDomainProgressRepository userDomainProgressRepository;
+    @Autowired
+    private TopicProgressRepository topicProgressRepository;
+    @Autowired
+    private InsightRepository insightRepository;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    private UserEntity user;
+    private DomainEntity domain;
+    private QuestionEntity question;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername("admin").orElseThrow();
+        domain = domainRepository.findByName(DOMAIN).orElseThrow();
+        question = answeredLevel();
+    }
+
+    @Test
+    void repeatedReviewWithTheSameAnswersIsServedWithoutAnAiCall() {
+        stubReview("Sound grasp of ethics");
+
+        ReviewDTO first = learningService.getReview(user.getId(), domain.getId());
+        ReviewDTO second = learningService.getReview(user.getId(), domain.getId());
+
+        assertThat(second.getSummary()).isEqualTo(first.getSummary()).isEqualTo("Sound grasp of ethics");
+        aiService.verify(1, postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+    }
+
+    @Test
+    void newAnswerMakesTheNextReviewRegenerate() {
+        stubReview("Sound grasp of ethics");
+        learningService.getReview(user.getId(), domain.getId());
+        answer("false");
+        stubReview("Revisit the trolley problem");
+
+        ReviewDTO regenerated = learningService.getReview(user.getId(), domain.getId());
+
+        assertThat(regenerated.getSummary()).isEqualTo("Revisit the trolley problem");
+        aiService.verify(2, postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+    }
+
+    @Test
+    void fallbackReviewIsNotStored() {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(aResponse().withStatus(400)));
+        assertThat(learningService.getReview(user.getId(), domain.getId()).isFallback()).isTrue();
+        stubReview("Sound grasp of ethics");
+
+        assertThat(learningService.getReview(user.getId(), domain.getId()).getSummary()).isEqualTo("Sound grasp of ethics");
+        aiService.verify(2, postRequestedFor(urlPathEqualTo(REVIEW_PATH)));
+    }
+
+    private void stubReview(String summary) {
+        aiService.stubFor(post(urlPathEqualTo(REVIEW_PATH)).willReturn(okJson("""
+                {"summary": "%s", "strengths": ["Utilitarianism"], "weaknesses": [], "revisionQuestions": []}
+                """.formatted(summary))));
+    }
+
+    // A finished level of one insight with one question the learner answered
+    private QuestionEntity answeredLevel() {
+        userDomainProgressRepository.findByUserIdAndDomainId(user.getId(), domain.getId())
+                .ifPresent(userDomainProgressRepository::delete);
+        UserDomainProgress progress = userDomainProgressRepository.save(UserDomainProgress.builder()
+                .user(user)
+                .domain(domain)
+                .learningPathJson("{\"domainName\": \"" + DOMAIN + "\", \"topics\": [\"Ethics\"]}")
+                .topicProgresses(new ArrayList<>())
+                .startedAt(LocalDateTime.now())
+                .build());
+        TopicProgress level = topicProgressRepository.save(TopicProgress.builder()
+                .userDomainProgress(progress)
+                .topicName("Ethics")
+                .level(1)
+                .insightsGenerated(true)
+                .completedInsightsCount(1)
+                .requiredInsightsForLevelCompletion(1)
+                .startedAt(LocalDateTime.now())
+                .build());
+        InsightEntity insight = insightRepository.save(InsightEntity.builder()
+                .topicProgress(level)
+                .title("The trolley problem")
+                .explanation("Outcomes against duties.")
+                .level(1)
+                .questions(new ArrayList<>())
+                .build());
+        QuestionEntity answered = questionRepository.save(QuestionEntity.builder()
+                .insight(insight)
+                .questionType(QuestionType.TRUE_FALSE)
+                .questionText("Does utilitarianism judge by outcomes?")
+                .options(new ArrayList<>())
+                .answerFeedbacks(new HashMap<>())
+                .correctAnswer("true")
+                .build());
+        question = answered;
+        answer("true");
+        return answered;
+    }
+
+    private void answer(String selectedAnswer) {
+        userAnswerRepository.save(UserAnswer.builder()
+                .user(user)
+                .question(question)
+                .selectedAnswer(selectedAnswer)
+                .isCorrect("true".equals(selectedAnswer))
+                .timeTakenMs(2000L)
+                .build());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import com.example.adaptivelearningbackend.dto.TopicPerformanceDataDTO;
+import com.example.adaptivelearningbackend.exception.BulkheadFullException;
+import com.example.adaptivelearningbackend.service.InsightGenerationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TopicInsightFanOutTest {
+
+    private final InsightGenerationService insightGenerationService = mock(InsightGenerationService.class);
+    private TopicInsightFanOut fanOut;
+
+    @AfterEach
+    void tearDown() {
+        if (fanOut != null) fanOut.shutdown();
+    }
+
+    @Test
+    void failingSiblingDoesNotCancelTheFirstTopic() throws Exception {
+        fanOut = new TopicInsightFanOut(insightGenerationService, 4, 10, 5, false);
+        CountDownLatch siblingFailed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            siblingFailed.countDown();
+            throw new IllegalStateException("AI service unavailable");
+        }).when(insightGenerationService).ensureInsightsInBackground(anyLong(), anyString(), eq("Sibling"), anyInt(), any());
+        doAnswer(invocation -> {
+            // Still running when the sibling fails
+            assertThat(siblingFailed.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(50);
+            return null;
+        }).when(insightGenerationService).ensureInsights(anyLong(), anyString(), eq("First"), anyInt(), any());
+
+        fanOut.generateFirstLevels(1L, "Domain", List.of(topic("First"), topic("Sibling")));
+    }
+
+    @Test
+    void failingFirstTopicCancelsRunningSiblings() throws Exception {
+        fanOut = new TopicInsightFanOut(insightGenerationService, 4, 10, 5, false);
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        CountDownLatch siblingInterrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            siblingStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                siblingInterrupted.countDown();
+            }
+            return null;
+        }).when(insightGenerationService).ensureInsightsInBackground(anyLong(), anyString(), eq("Sibling"), anyInt(), any());
+        doAnswer(invocation -> {
+            assertThat(siblingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            throw new IllegalStateException("AI service unavailable");
+        }).when(insightGenerationService).ensureInsights(anyLong(), anyString(), eq("First"), anyInt(), any());
+
+        assertThatThrownBy(() -> fanOut.generateFirstLevels(1L, "Domain", List.of(topic("First"), topic("Sibling"))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("First");
+        assertThat(siblingInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectedFirstTopicIsReportedAsFullBulkhead() throws Exception {
+        fanOut = new TopicInsightFanOut(insightGenerationService, 1, 10, 5, false);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(insightGenerationService).ensureInsights(anyLong(), anyString(), eq("Blocking"), anyInt(), any());
+
+        // One thread busy with the blocking topic and its eight siblings fill the queue of eight
+        List<TopicPerformanceDataDTO> topics = new ArrayList<>(List.of(topic("Blocking")));
+        for (int i = 0; i < 8; i++) topics.add(topic("Sibling" + i));
+        Thread caller = new Thread(() -> fanOut.generateFirstLevels(1L, "Domain", topics));
+        caller.start();
+        try {
+            // Waiting on the first topic means every sibling has been submitted
+            long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (caller.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < giveUpAt) {
+                Thread.sleep(10);
+            }
+
+            assertThatThrownBy(() -> fanOut.generateFirstLevels(2L, "Domain", List.of(topic("Rejected"))))
+                    .isInstanceOf(BulkheadFullException.class);
+        } finally {
+            release.countDown();
+            caller.join(5000);
+        }
+    }
+
+    private static TopicPerformanceDataDTO topic(String name) {
+        return TopicPerformanceDataDTO.builder().topicName(name).currentLevel(1).build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.adaptivelearningbackend.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkerThreadsTest {
+
+    @Test
+    void createsNamedVirtualThreadsInVirtualMode() {
+        Thread thread = WorkerThreads.factory("lane-", true).newThread(() -> { });
+
+        assertThat(thread.isVirtual()).isTrue();
+        assertThat(thread.getName()).isEqualTo("lane-0");
+    }
+
+    @Test
+    void createsNamedDaemonPlatformThreadsByDefault() {
+        var factory = WorkerThreads.factory("lane-", false);
+        factory.newThread(() -> { });
+        Thread thread = factory.newThread(() -> { });
+
+        assertThat(thread.isVirtual()).isFalse();
+        assertThat(thread.isDaemon()).isTrue();
+        assertThat(thread.getName()).isEqualTo("lane-1");
+    }
+}
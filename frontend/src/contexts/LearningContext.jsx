@@ -258,6 +258,24 @@ export const LearningProvider = ({ children }) => {
     const fetchNextInsight = useCallback(async () => {
         if (!state.selectedDomain) return;
         dispatch({ type: 'SET_LOADING', payload: true });
+        // Show the first insight of the level as soon as it exists; the rest keep generating server-side
+        const stream = new AbortController();
+        let firstInsight = null;
+        try {
+            const summary = await api.streamInsights(state.selectedDomain.id, (insight) => {
+                if (firstInsight) return;
+                firstInsight = insight;
+                dispatch({ type: 'SET_CURRENT_INSIGHT', payload: insight });
+                stream.abort();
+            }, stream.signal);
+            if (!firstInsight && summary?.insights === 0) {
+                dispatch({ type: 'CLEAR_CURRENT_INSIGHT' });
+                await fetchTopicProgress(state.selectedDomain.id);
+            }
+            return;
+        } catch (streamError) {
+            if (firstInsight) return; // aborted on purpose after the first event
+        }
         try {
             const response = await api.getNextInsight(state.selectedDomain.id);
             if (response.status === 204 || !response.data) {
@@ -15,8 +15,31 @@ apiClient.interceptors.request.use(cfg=>{
     if(t) cfg.headers.Authorization = `Bearer ${t}`;
     return cfg;
 });
+const JOB_POLL_INTERVAL_MS = 1500;
+const sleep = (ms) => new Promise(resolve => setTimeout(resolve, ms));
+
+// Polls a queued generation job until it leaves PENDING/RUNNING
+export const awaitGenerationJob = async (jobId) => {
+    for (;;) {
+        const { data: job } = await apiClient.get(`/learning/jobs/${jobId}`);
+        if (job.status === 'SUCCEEDED') return job;
+        if (job.status === 'FAILED') throw new Error(job.lastError || 'Content generation failed');
+        await sleep(JOB_POLL_INTERVAL_MS);
+    }
+};
+
+// 202 Accepted = content is being generated by a background job. Wait for it, then resolve as if the call had
+// blocked: with the job result, or by repeating a GET whose content is now in place.
+const resolveGenerationJob = async (res) => {
+    if (res.status !== 202 || !res.data?.id) return res;
+    const job = await awaitGenerationJob(res.data.id);
+    if (job.result != null) return { ...res, status: 200, data: job.result };
+    if ((res.config.method || 'get').toLowerCase() === 'get') return apiClient.request(res.config);
+    return { ...res, status: 200, data: '' };
+};
+
 apiClient.interceptors.response.use(
-    res=>res,
+    resolveGenerationJob,
     err=> { if(err.response?.status===401){
         localStorage.removeItem("token");
         window.location='/login';
@@ -44,6 +67,40 @@ export const getDomainOverview = (domainId) =>
 export const selectTopic = (domainId, topicIdx) =>
     apiClient.post(`/learning/domains/${domainId}/select-topic/${topicIdx}`);
 export const getProfile = () => apiClient.get('/auth/me');
+export const getGenerationJob = (jobId) => apiClient.get(`/learning/jobs/${jobId}`);
+
+// Server-Sent Events read through fetch (EventSource cannot send the bearer token). Calls onInsight for every
+// "insight-ready" event and resolves with the "complete" payload; abort via signal to stop listening early.
+export const streamInsights = async (domainId, onInsight, signal) => {
+    const t = localStorage.getItem('token');
+    const res = await fetch(`${baseURL}/learning/domains/${domainId}/insights/stream`, {
+        headers: { Accept: 'text/event-stream', ...(t ? { Authorization: `Bearer ${t}` } : {}) },
+        signal,
+    });
+    if (!res.ok || !res.body) throw new Error(`Insight stream failed with status ${res.status}`);
+    const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+    for (;;) {
+        const { value, done } = await reader.read();
+        if (done) throw new Error('Insight stream ended unexpectedly');
+        buffer += value;
+        let end;
+        while ((end = buffer.indexOf('\n\n')) >= 0) {
+            const block = buffer.slice(0, end);
+            buffer = buffer.slice(end + 2);
+            let event = 'message';
+            const data = [];
+            for (const line of block.split('\n')) {
+                if (line.startsWith('event:')) event = line.slice(6).trim();
+                else if (line.startsWith('data:')) data.push(line.slice(5));
+            }
+            const payload = data.length ? JSON.parse(data.join('\n')) : null;
+            if (event === 'insight-ready') onInsight(payload);
+            else if (event === 'complete') return payload;
+            else if (event === 'generation-failed') throw new Error(payload?.message || 'Insight generation failed');
+        }
+    }
+};
 
 
 export default apiClient;
@@ -0,0 +1,73 @@
+import gzip
+import json
+
+from starlette.types import ASGIApp, Message, Receive, Scope, Send
+
+
+class GzipRequestMiddleware:
+    """Decompresses request bodies sent with ``Content-Encoding: gzip``.
+
+    The backend gzips large performance payloads; routes keep reading plain JSON.
+    Bodies that are not valid gzip are rejected with 400 before reaching a route.
+    """
+
+    def __init__(self, app: ASGIApp) -> None:
+        self.app = app
+
+    async def __call__(self, scope: Scope, receive: Receive, send: Send) -> None:
+        if scope["type"] != "http" or not _is_gzip(scope):
+            await self.app(scope, receive, send)
+            return
+
+        chunks = []
+        more_body = True
+        while more_body:
+            message = await receive()
+            if message["type"] == "http.disconnect":
+                return
+            chunks.append(message.get("body", b""))
+            more_body = message.get("more_body", False)
+
+        try:
+            body = gzip.decompress(b"".join(chunks))
+        except (OSError, EOFError):
+            await _send_bad_request(send)
+            return
+
+        headers = [
+            (name, value) for name, value in scope["headers"]
+            if name not in (b"content-encoding", b"content-length")
+        ]
+        headers.append((b"content-length", str(len(body)).encode("latin-1")))
+        scope = dict(scope, headers=headers)
+
+        body_sent = False
+
+        async def replay() -> Message:
+            nonlocal body_sent
+            if body_sent:
+                return await receive()  # e.g. http.disconnect for streaming responses
+            body_sent = True
+            return {"type": "http.request", "body": body, "more_body": False}
+
+        await self.app(scope, replay, send)
+
+
+def _is_gzip(scope: Scope) -> bool:
+    for name, value in scope["headers"]:
+        if name == b"content-encoding":
+            return value.strip().lower() == b"gzip"
+    return False
+
+
+async def _send_bad_request(send: Send) -> None:
+    content = json.dumps({"detail": "Request body is not valid gzip"}).encode("utf-8")
+    await send({
+        "type": "http.response.start",
+        "status": 400,
+        "headers": [
+            (b"content-type", b"application/json"),
+            (b"content-length", str(len(content)).encode("latin-1")),
+        ],
+    })
+    await send({"type": "http.response.body", "body": content})
@@ -0,0 +1,67 @@
+from contextvars import ContextVar
+from typing import Any, Callable, Coroutine
+
+import cbor2
+from fastapi import Request, Response
+from fastapi.responses import JSONResponse
+from fastapi.routing import APIRoute
+
+CBOR_MEDIA_TYPE = "application/cbor"
+
+# Set per request by NegotiatedRoute, read when the response is rendered
+_response_format: ContextVar[str] = ContextVar("response_format", default="json")
+
+
+class NegotiatedResponse(JSONResponse):
+    """JSON response that renders as CBOR when the request's Accept header lists application/cbor."""
+
+    def __init__(self, content: Any, *args: Any, **kwargs: Any) -> None:
+        if _response_format.get() == "cbor":
+            self.media_type = CBOR_MEDIA_TYPE
+        super().__init__(content, *args, **kwargs)
+
+    def render(self, content: Any) -> bytes:
+        if self.media_type == CBOR_MEDIA_TYPE:
+            return cbor2.dumps(content)
+        return super().render(content)
+
+
+class NegotiatedRoute(APIRoute):
+    """Accepts CBOR request bodies next to JSON and picks the response format from the Accept header.
+
+    A CBOR body is decoded once and handed to FastAPI's usual validation as if it had been parsed from JSON;
+    an undecodable body is answered with 400.
+    """
+
+    def get_route_handler(self) -> Callable[[Request], Coroutine[Any, Any, Response]]:
+        handler = super().get_route_handler()
+
+        async def negotiated_handler(request: Request) -> Response:
+            if _is_cbor(request.headers.get("content-type")):
+                body = await request.body()
+                try:
+                    payload = cbor2.loads(body)
+                except (ValueError, EOFError):
+                    return JSONResponse(status_code=400, content={"detail": "Request body is not valid CBOR"})
+                request = _as_parsed_json_request(request, body, payload)
+
+            token = _response_format.set("cbor" if CBOR_MEDIA_TYPE in request.headers.get("accept", "") else "json")
+            try:
+                return await handler(request)
+            finally:
+                _response_format.reset(token)
+
+        return negotiated_handler
+
+
+def _is_cbor(content_type: str | None) -> bool:
+    return content_type is not None and content_type.split(";")[0].strip().lower() == CBOR_MEDIA_TYPE
+
+
+def _as_parsed_json_request(request: Request, body: bytes, payload: Any) -> Request:
+    headers = [(name, value) for name, value in request.scope["headers"] if name != b"content-type"]
+    headers.append((b"content-type", b"application/json"))
+    parsed = Request(dict(request.scope, headers=headers), request.receive)
+    parsed._body = body
+    parsed._json = payload  # Request.json() returns the cached value instead of parsing the body
+    return parsed
@@ -2,8 +2,10 @@ from typing import List
 
 from fastapi import FastAPI, HTTPException, Body
 from fastapi.exceptions import RequestValidationError
-from fastapi.responses    import JSONResponse
+from fastapi.responses    import JSONResponse, StreamingResponse
+from app.core.compression import GzipRequestMiddleware
 from app.core.config import settings
+from app.core.wire_format import NegotiatedResponse, NegotiatedRoute
 from app.models import (
     LearningPathResponse,
     ReviewGenerationRequest,
@@ -18,6 +20,10 @@ app = FastAPI(
     version=settings.APP_VERSION,
     description="AI microservice powering the Adaptive Learning Platform.",
 )
+# The backend gzips large request bodies (Content-Encoding: gzip)
+app.add_middleware(GzipRequestMiddleware)
+# Request bodies may be CBOR (Content-Type: application/cbor) on every route
+app.router.route_class = NegotiatedRoute
 
 # Catch & log validation errors so we see exactly which field is wrong
 @app.exception_handler(RequestValidationError)
@@ -32,6 +38,7 @@ async def health_check() -> dict[str, str]:
 
 @app.post(
     "/api/ai/generate-learning-path",
+    response_class=NegotiatedResponse,
     response_model=LearningPathResponse,
     tags=["Learning Path"],
     summary="Generate learning path (adaptable with assessment data)",
@@ -53,6 +60,7 @@ async def generate_learning_path(request: LearningPathRequest) -> LearningPathRe
 
 @app.post(
     "/api/ai/generate-insights",
+    response_class=NegotiatedResponse,
     response_model=List[InsightDetail], # Directly returns list of insights
     tags=["Insights"],
     summary="Generate insight batch (adaptable with user performance data)",
@@ -75,8 +83,36 @@ async def generate_insights(request: InsightsRequest = Body(..., embed=False)) -
         ) from exc
 
 
+@app.post(
+    "/api/ai/generate-insights/stream",
+    tags=["Insights"],
+    summary="Stream insight batch as NDJSON, one insight per line",
+    response_class=StreamingResponse,
+)
+async def stream_insights(request: InsightsRequest = Body(..., embed=False)) -> StreamingResponse:
+    """Same input as /generate-insights. Each line is one InsightDetail (camelCase), written as soon as
+    it is ready. A failure after the first line aborts the response, so the client sees a truncated
+    stream rather than a clean end and can tell a partial batch from a complete one."""
+    async def ndjson_lines():
+        try:
+            async for insight in llm_service.stream_insights_logic(
+                    domain_name=request.domain_name,
+                    topic_name=request.topic_name,
+                    level=request.level,
+                    user_id=request.user_id,
+                    user_topic_performance_data=request.user_topic_performance_data,
+            ):
+                yield insight.model_dump_json(by_alias=True) + "\n"
+        except Exception as exc:
+            print(f"Exception in stream_insights: {exc}")
+            raise
+
+    return StreamingResponse(ndjson_lines(), media_type="application/x-ndjson")
+
+
 @app.post(
     "/api/ai/generate-review",
+    response_class=NegotiatedResponse,
     response_model=ReviewResponse,
     tags=["Review"],
     summary="Generate spaced‑repetition review",
@@ -47,6 +47,17 @@ class InsightPerformanceData(CamelModel):
     questions_answered: List[UserAnswerDetail] = Field(default_factory=list, description="List of details for each question answered by the user related to this insight.")
     times_shown: Optional[int] = Field(default=0, description="Number of times this insight has been presented to the user.")
 
+class InsightPerformanceSummary(CamelModel): # Compact form of InsightPerformanceData
+    insight_id: int = Field(..., description="Unique identifier for the insight, corresponding to the InsightEntity ID in the backend system.")
+    insight_title: str = Field(..., description="Title of the insight the aggregates belong to.")
+    times_shown: Optional[int] = Field(default=0, description="Number of times this insight has been presented to the user.")
+    questions_answered: int = Field(default=0, description="Number of questions on this insight the user has answered.")
+    correct_answers: int = Field(default=0, description="Number of those answers that were correct.")
+    accuracy: Optional[float] = Field(None, description="Share of correct answers between 0 and 1; null when nothing was answered.")
+    median_time_taken_ms: Optional[int] = Field(None, description="Median time in milliseconds the user spent per question.")
+    missed_question_ids: List[int] = Field(default_factory=list, description="IDs of the questions answered incorrectly.")
+    missed_concepts: List[str] = Field(default_factory=list, description="Short labels of the concepts behind the incorrectly answered questions.")
+
 class TopicPerformanceData(CamelModel): # Main "User Data" payload from Java
     user_id: Optional[int] = Field(None, description="Optional unique identifier for the user.")
     domain_name: Optional[str] = Field(None, description="Optional name of the learning domain this performance data pertains to.")
@@ -54,6 +65,7 @@ class TopicPerformanceData(CamelModel): # Main "User Data" payload from Java
     current_level: Optional[int] = Field(None, description="Optional current difficulty or progression level of the user within the topic.")
     assessment_answers: Optional[List[AssessmentAnswer]] = Field(default_factory=list, description="List of answers provided by the user during an initial assessment at the very beginning. Used for initial adaptation.")
     insights_performance: Optional[List[InsightPerformanceData]] = Field(default_factory=list, description="List of performance data for specific insights within a topic. Used for topic-level adaptation. Importance is higher.")
+    insights_summary: Optional[List[InsightPerformanceSummary]] = Field(default_factory=list, description="Compact alternative to insights_performance: per-insight aggregates and missed concepts. Used for topic-level adaptation. Importance is higher.")
 
 class UserProficiencyProfile(CamelModel): # Output of UserDataAnalyzerAgent
     user_id: Optional[int] = Field(None, description="Optional unique identifier for the user whose proficiency is being profiled.")
@@ -3,7 +3,7 @@ from __future__ import annotations
 import asyncio
 import json
 import os
-from typing import Any, Dict, List, Optional
+from typing import Any, AsyncIterator, Dict, List, Optional
 
 from pydantic import BaseModel, Field
 from pydantic_ai import Agent
@@ -19,6 +19,8 @@ from app.models import (
 
 _LLM_MODE = os.getenv("LLM_MODE", "mock").strip().lower()
 _USE_REAL_LLM = _LLM_MODE in {"real", "live", "prod", "production", "true", "1"}
+# Simulated model latency per mock call, so the backend can be benchmarked against a slow stub
+_MOCK_LATENCY_SECONDS = max(0.0, float(os.getenv("LLM_MOCK_LATENCY_MS", "0") or 0)) / 1000
 
 # ---------------------------------------------------------------------------
 FALLBACK_SEQUENCE_1 = FallbackModel(
@@ -71,7 +73,7 @@ _default_groq_settings: ModelSettings = {
 # ---------- Structured prompt payloads -------------------------------------
 async def _maybe_sleep_for_mock():
     if not _USE_REAL_LLM:
-        await asyncio.sleep(0)
+        await asyncio.sleep(_MOCK_LATENCY_SECONDS)
 
 
 def _build_mock_learning_path(domain_name: str) -> LearningPathResponse:
@@ -186,7 +188,8 @@ _user_data_analyzer_agent = Agent(
     system_prompt=(
         "You are an expert learning analyst AI. Your task is to analyze the provided user performance data "
         "(TopicPerformanceData) and generate a UserProficiencyProfile.\n"
-        "Input 'TopicPerformanceData' contains 'assessment_answers' (for initial assessment) OR 'insights_performance' (for topic-level adaptation).\n"
+        "Input 'TopicPerformanceData' contains 'assessment_answers' (for initial assessment) OR 'insights_performance' / 'insights_summary' (for topic-level adaptation).\n"
+        "'insights_summary' carries per-insight accuracy, median time and missed concepts instead of individual answers.\n"
         "Identify key strengths (concepts user grasps well) and weaknesses (areas needing improvement).\n"
         "Suggest an 'overall_understanding_level' (e.g., Beginner, Intermediate, Advanced, Needs Reinforcement).\n"
         "For 'analyzed_context', use the input topic_name and level, or 'InitialAssessment for domain X' if analyzing assessment_answers.\n"
@@ -343,11 +346,47 @@ async def generate_insights_logic(
         await _maybe_sleep_for_mock()
         return _mock_insights(domain_name, topic_name, level)
 
+    insights = await _draft_insights(domain_name, topic_name, level, user_id, user_topic_performance_data)
+    enriched_insights = await asyncio.gather(
+        *[add_questions(insight) for insight in insights]
+    )
+    return enriched_insights
+
+
+async def stream_insights_logic(
+        domain_name: str,
+        topic_name: str,
+        level: int,
+        user_id: Optional[int],
+        user_topic_performance_data: Optional[TopicPerformanceData] = None,
+) -> AsyncIterator[InsightDetail]:
+    """Same content as generate_insights_logic, but yields every insight as soon as its
+    questions are attached instead of waiting for the whole batch. Order follows completion."""
+    if not _USE_REAL_LLM:
+        for insight in _mock_insights(domain_name, topic_name, level):
+            await _maybe_sleep_for_mock()
+            yield insight
+        return
+
+    insights = await _draft_insights(domain_name, topic_name, level, user_id, user_topic_performance_data)
+    for enriched in asyncio.as_completed([add_questions(insight) for insight in insights]):
+        yield await enriched
+
+
+async def _draft_insights(
+        domain_name: str,
+        topic_name: str,
+        level: int,
+        user_id: Optional[int],
+        user_topic_performance_data: Optional[TopicPerformanceData],
+) -> List[InsightDetail]:
+    """Analysis, planning and the insights agent; questions are attached afterwards."""
     adaptation_plan_dict = None
     proficiency_profile = None
 
     if user_topic_performance_data and (
-            user_topic_performance_data.insights_performance or user_topic_performance_data.assessment_answers):
+            user_topic_performance_data.insights_performance or user_topic_performance_data.insights_summary
+            or user_topic_performance_data.assessment_answers):
         try:
             analyzer_payload = user_topic_performance_data.model_copy(
                 update={
@@ -411,10 +450,7 @@ async def generate_insights_logic(
         )
         insights = [fallback_insight]  # Return a list with one fallback
 
-    enriched_insights = await asyncio.gather(
-        *[add_questions(insight) for insight in insights]
-    )
-    return enriched_insights
+    return insights
 
 
 async def generate_review_logic(
@@ -229,6 +229,52 @@ async def test_generate_insights_empty_agent_output_triggers_generic_fallback(mo
     assert insights[0].questions == []
 
 
+# -------------------- stream_insights_logic --------------------
+
+async def test_stream_insights_mock_mode_yields_every_mock_insight(mocker):
+    mocker.patch.object(llm_service, "_USE_REAL_LLM", False)
+
+    streamed = [i async for i in llm_service.stream_insights_logic(
+        domain_name="Python", topic_name="Loops", level=1, user_id=3)]
+
+    assert [i.title for i in streamed] == [i.title for i in llm_service._mock_insights("Python", "Loops", 1)]
+
+
+async def test_stream_insights_yields_each_insight_once_questions_are_attached(mocker, long_explanation, sample_questions):
+    mocker.patch.object(llm_service, "_USE_REAL_LLM", True)
+    mocker.patch.object(llm_service._insights_agent, "run", new=AsyncMock(return_value=SimpleNamespace(output=[
+        _insight("Slow Insight", long_explanation),
+        _insight("Fast Insight", long_explanation),
+    ])))
+
+    async def question_side_effect(payload_json: str):
+        # The first insight's questions take longer, so the second one must be streamed first
+        if json.loads(payload_json)["title"] == "Slow Insight":
+            await asyncio.sleep(0.05)
+        return SimpleNamespace(output=sample_questions)
+
+    mocker.patch.object(llm_service._question_agent, "run", new=AsyncMock(side_effect=question_side_effect))
+
+    streamed = [i async for i in llm_service.stream_insights_logic(
+        domain_name="Python", topic_name="Loops", level=1, user_id=3, user_topic_performance_data=None)]
+
+    assert [i.title for i in streamed] == ["Fast Insight", "Slow Insight"]
+    assert all(len(i.questions) == 2 for i in streamed)
+
+
+# -------------------- mock latency --------------------
+
+async def test_mock_mode_waits_for_configured_latency(mocker):
+    mocker.patch.object(llm_service, "_USE_REAL_LLM", False)
+    mocker.patch.object(llm_service, "_MOCK_LATENCY_SECONDS", 1.5)
+    sleep_mock = mocker.patch.object(llm_service.asyncio, "sleep", new=AsyncMock())
+
+    review = await llm_service.generate_review_logic(topic_name="Loops", level=1, performance_data={"accuracy": 0.5})
+
+    sleep_mock.assert_awaited_once_with(1.5)
+    assert review.summary
+
+
 # -------------------- add_questions helper --------------------
 
 async def test_add_questions_attaches_generated_questions(mocker, sample_insight, sample_questions):
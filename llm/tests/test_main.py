@@ -1,5 +1,7 @@
 # ========== FILE: tests/test_main.py ==========
+import gzip
 import json
+import cbor2
 import pytest
 from types import SimpleNamespace
 from unittest.mock import AsyncMock
@@ -99,12 +101,126 @@ async def test_generate_insights_happy_path(client, mocker):
         assert {"title", "explanation", "aiMetadata", "questions"}.issubset(item.keys())
 
 
+async def test_generate_insights_accepts_gzip_body_with_compact_summary(client, mocker, sample_insight):
+    logic = AsyncMock(return_value=[sample_insight])
+    mocker.patch("app.services.llm_service.generate_insights_logic", new=logic)
+    payload = {
+        "domain_name": "Python", "topic_name": "Loops", "level": 2, "user_id": 123,
+        "user_topic_performance_data": {
+            "assessment_answers": [],
+            "insights_summary": [{
+                "insight_id": 7, "insight_title": "For vs While", "times_shown": 2,
+                "questions_answered": 4, "correct_answers": 3, "accuracy": 0.75,
+                "median_time_taken_ms": 5400, "missed_question_ids": [31],
+                "missed_concepts": ["a while loop"],
+            }],
+        },
+    }
+    res = await client.post(
+        "/api/ai/generate-insights",
+        content=gzip.compress(json.dumps(payload).encode("utf-8")),
+        headers={"Content-Type": "application/json", "Content-Encoding": "gzip"},
+    )
+    assert res.status_code == 200
+    summary = logic.await_args.kwargs["user_topic_performance_data"].insights_summary[0]
+    assert summary.accuracy == 0.75
+    assert summary.missed_concepts == ["a while loop"]
+
+
+async def test_generate_insights_rejects_invalid_gzip_body(client):
+    res = await client.post(
+        "/api/ai/generate-insights",
+        content=b"not gzip",
+        headers={"Content-Type": "application/json", "Content-Encoding": "gzip"},
+    )
+    assert res.status_code == 400
+
+
+async def test_generate_insights_cbor_request_and_response(client, mocker, sample_insight):
+    mocker.patch(
+        "app.services.llm_service.generate_insights_logic",
+        new=AsyncMock(return_value=[sample_insight]),
+    )
+    payload = {"domainName": "Python", "topicName": "Loops", "level": 1, "userId": 123}
+    res = await client.post(
+        "/api/ai/generate-insights",
+        content=cbor2.dumps(payload),
+        headers={"Content-Type": "application/cbor", "Accept": "application/cbor, application/json"},
+    )
+    assert res.status_code == 200
+    assert res.headers["content-type"].startswith("application/cbor")
+    body = cbor2.loads(res.content)
+    assert body[0]["title"] == sample_insight.title
+    assert {"title", "explanation", "aiMetadata", "questions"}.issubset(body[0].keys())
+
+
+async def test_generate_insights_cbor_request_answered_with_json_by_default(client, mocker, sample_insight):
+    mocker.patch(
+        "app.services.llm_service.generate_insights_logic",
+        new=AsyncMock(return_value=[sample_insight]),
+    )
+    payload = {"domainName": "Python", "topicName": "Loops", "level": 1, "userId": 123}
+    res = await client.post(
+        "/api/ai/generate-insights",
+        content=cbor2.dumps(payload),
+        headers={"Content-Type": "application/cbor"},
+    )
+    assert res.status_code == 200
+    assert res.headers["content-type"].startswith("application/json")
+    assert res.json()[0]["title"] == sample_insight.title
+
+
+async def test_generate_insights_rejects_invalid_cbor_body(client):
+    res = await client.post(
+        "/api/ai/generate-insights",
+        content=b"\xff\xff",
+        headers={"Content-Type": "application/cbor"},
+    )
+    assert res.status_code == 400
+
+
 async def test_generate_insights_validation_error_level_string_instead_of_int(client):
     payload = {"domainName": "Python", "topicName": "Loops", "level": "two", "userId": 1}
     res = await client.post("/api/ai/generate-insights", json=payload)
     assert res.status_code == 422
 
 
+async def test_stream_insights_writes_one_json_object_per_line(client, mocker, sample_insight):
+    second = sample_insight.model_copy(update={"title": "Scopes and Lifetimes"})
+
+    async def fake_stream(**_):
+        yield sample_insight
+        yield second
+
+    mocker.patch("app.services.llm_service.stream_insights_logic", new=fake_stream)
+    payload = {"domainName": "Python", "topicName": "Variables", "level": 1, "userId": 5}
+    res = await client.post("/api/ai/generate-insights/stream", json=payload)
+    assert res.status_code == 200
+    assert res.headers["content-type"].startswith("application/x-ndjson")
+    lines = [json.loads(line) for line in res.text.splitlines() if line]
+    assert [line["title"] for line in lines] == ["Understanding Variables", "Scopes and Lifetimes"]
+    # Same camelCase contract as the JSON-array endpoint
+    assert {"title", "explanation", "aiMetadata", "questions"}.issubset(lines[0].keys())
+
+
+async def test_stream_insights_validation_error_before_streaming(client):
+    payload = {"domainName": "Python", "topicName": "Loops", "level": "two"}
+    res = await client.post("/api/ai/generate-insights/stream", json=payload)
+    assert res.status_code == 422
+
+
+async def test_stream_insights_failure_after_first_line_truncates_response(client, mocker, sample_insight):
+    async def failing_stream(**_):
+        yield sample_insight
+        raise RuntimeError("model went away")
+
+    mocker.patch("app.services.llm_service.stream_insights_logic", new=failing_stream)
+    payload = {"domainName": "Python", "topicName": "Variables", "level": 1}
+    # No clean end of the chunked body: the transport surfaces the failure instead of a complete response
+    with pytest.raises(Exception):
+        await client.post("/api/ai/generate-insights/stream", json=payload)
+
+
 # -------------------- /api/ai/generate-review --------------------
 
 async def test_generate_review_happy_path(client, mocker):